@@ -0,0 +1,47 @@
+package com.boardshoot.boardshoot.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base64 pildi dekodeerimine nagu NoteController.addImageToNote JSON-i teekonnas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class Base64DecodeBenchmark {
+
+    @Param({"65536", "1048576", "5242880"})
+    private int imageSize;
+
+    private String encodedImage;
+
+    @Setup
+    public void setUp() {
+        byte[] image = new byte[imageSize];
+        // Fikseeritud seeme, et sisend oleks igal käivitusel sama
+        new Random(42).nextBytes(image);
+        encodedImage = Base64.getEncoder().encodeToString(image);
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return Base64.getDecoder().decode(encodedImage);
+    }
+}
@@ -0,0 +1,130 @@
+package com.boardshoot.boardshoot.benchmark;
+
+import com.boardshoot.boardshoot.model.Folder;
+import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.NoteImage;
+import com.boardshoot.boardshoot.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Märkmete hulgiloomine Hibernate'i kaudu (nagu NoteService.createNotes): märkmed koos kahe tekstiga ühes tehingus.
+ * Erinevalt teistest testidest kasutab päris andmebaasi, sest mõõdetakse just INSERT-lausete partiisid.
+ * Vaikimisi on andmebaas mälus olev H2; võrgus oleva andmebaasi jaoks anna -p jdbcUrl=... -p jdbcUser=... -p jdbcPassword=...
+ * (ainult tühja andmebaasiga, sest tabelid luuakse ja kustutatakse). batchSize=1 vastab partiideta kirjutamisele.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// Hibernate'i kirjutustee soojeneb aeglaselt, lühema soojenduse järel tulemus alles kasvab
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class BulkNoteInsertBenchmark {
+
+    private static final int TEXTS_PER_NOTE = 2;
+
+    @Param({"100", "1000"})
+    private int noteCount;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    @Param({"jdbc:h2:mem:bulk_insert;DB_CLOSE_DELAY=-1"})
+    private String jdbcUrl;
+
+    @Param({"sa"})
+    private String jdbcUser;
+
+    @Param({""})
+    private String jdbcPassword;
+
+    private SessionFactory sessionFactory;
+    private Long folderId;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL, jdbcUrl)
+                .applySetting(AvailableSettings.JAKARTA_JDBC_USER, jdbcUser)
+                .applySetting(AvailableSettings.JAKARTA_JDBC_PASSWORD, jdbcPassword)
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize)
+                .applySetting(AvailableSettings.ORDER_INSERTS, true)
+                .applySetting(AvailableSettings.ORDER_UPDATES, true)
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Folder.class)
+                .addAnnotatedClass(Note.class)
+                .addAnnotatedClass(NoteImage.class)
+                .buildMetadata()
+                .buildSessionFactory();
+
+        sessionFactory.inTransaction(session -> {
+            User user = new User("bench", "password", "bench@example.com");
+            session.persist(user);
+            Folder folder = new Folder("Bench", user);
+            session.persist(folder);
+            userId = user.getId();
+            folderId = folder.getId();
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteNotes() {
+        // Hoiame tabelid väikesed, et iga iteratsioon mõõdaks sama tööd
+        sessionFactory.inTransaction(session -> {
+            session.createNativeMutationQuery("DELETE FROM note_texts").executeUpdate();
+            session.createNativeMutationQuery("DELETE FROM note").executeUpdate();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public long createNotes() {
+        return sessionFactory.fromTransaction(session -> {
+            Folder folder = session.getReference(Folder.class, folderId);
+            User user = session.getReference(User.class, userId);
+            long lastId = 0;
+            for (int i = 0; i < noteCount; i++) {
+                Note note = new Note();
+                note.setTitle("Note " + i);
+                note.setFolder(folder);
+                note.setUser(user);
+                for (int t = 0; t < TEXTS_PER_NOTE; t++) {
+                    note.addText("Text " + i + "." + t);
+                }
+                session.persist(note);
+                if (note.getId() != null) {
+                    lastId = note.getId();
+                }
+            }
+            session.flush();
+            return lastId;
+        });
+    }
+}
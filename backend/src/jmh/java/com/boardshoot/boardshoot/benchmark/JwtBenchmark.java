@@ -0,0 +1,83 @@
+package com.boardshoot.boardshoot.benchmark;
+
+import com.boardshoot.boardshoot.security.JwtUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT valideerimine ja kasutajanime lugemine - iga autenditud päringu kuum tee
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JwtBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKeyThatIsLongEnoughForHs256Signing";
+
+    private JwtUtils jwtUtils;
+    private JwtUtils uncachedJwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = createJwtUtils(10000);
+        uncachedJwtUtils = createJwtUtils(0);
+        token = jwtUtils.generateJwtToken("benchmark-user");
+    }
+
+    private static JwtUtils createJwtUtils(int cacheSize) {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", 24 * 60 * 60 * 1000);
+        ReflectionTestUtils.setField(utils, "jwtCacheSize", cacheSize);
+        return utils;
+    }
+
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String getUserNameFromJwtToken() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+
+    /**
+     * Filtri varasem voog: valideerimine ja seejärel kasutajanime lugemine (kaks parsimist)
+     */
+    @Benchmark
+    public String validateThenGetUserNameUncached() {
+        return uncachedJwtUtils.validateJwtToken(token) ? uncachedJwtUtils.getUserNameFromJwtToken(token) : null;
+    }
+
+    /**
+     * Filtri praegune voog ilma vahemäluta: üks parsimine ja allkirja kontroll
+     */
+    @Benchmark
+    public Object parseValidatedClaimsUncached() {
+        return uncachedJwtUtils.parseValidatedClaims(token).orElse(null);
+    }
+
+    /**
+     * Filtri praegune voog korduva tokeniga: sisu tuleb kontrollitud tokenite vahemälust
+     */
+    @Benchmark
+    public Object parseValidatedClaimsCached() {
+        return jwtUtils.parseValidatedClaims(token).orElse(null);
+    }
+}
@@ -0,0 +1,70 @@
+package com.boardshoot.boardshoot.benchmark;
+
+import com.boardshoot.boardshoot.model.Folder;
+import com.boardshoot.boardshoot.model.ImageVariants;
+import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Märkmete nimekirja JSON-i serialiseerimine nagu NoteController.getNotes vastuses
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class NoteSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int noteCount;
+
+    private ObjectMapper objectMapper;
+    private List<Note> notes;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        User user = new User("benchmark-user", "password", "benchmark@example.com");
+        user.setId(1L);
+        Folder folder = new Folder("Benchmark folder", user);
+        folder.setId(1L);
+
+        notes = new ArrayList<>(noteCount);
+        for (int i = 0; i < noteCount; i++) {
+            Note note = new Note();
+            note.setId((long) i);
+            note.setTitle("Note " + i);
+            note.setFolder(folder);
+            note.setUser(user);
+            note.addText("Lorem ipsum dolor sit amet, consectetur adipiscing elit " + i);
+            for (int m = 0; m < 3; m++) {
+                String url = "https://example.supabase.co/storage/v1/object/public/images/note_" + i + "_" + m + ".jpg";
+                note.addImage(url, new ImageVariants(url.replace(".jpg", "_thumb.jpg"), url.replace(".jpg", "_preview.jpg")));
+            }
+            notes.add(note);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeNotes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(notes);
+    }
+}
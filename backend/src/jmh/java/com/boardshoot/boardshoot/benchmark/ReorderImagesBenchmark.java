@@ -0,0 +1,111 @@
+package com.boardshoot.boardshoot.benchmark;
+
+import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.NoteImage;
+import com.boardshoot.boardshoot.repository.NoteRepository;
+import com.boardshoot.boardshoot.service.EntityCacheService;
+import com.boardshoot.boardshoot.service.NoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NoteService.reorderImages (URL-ide järgi) ja reorderImagesById suurte piltide nimekirjadega.
+ * Andmebaas ja vahemälu on asendatud mälus oleva märkmega.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ReorderImagesBenchmark {
+
+    private static final Long NOTE_ID = 1L;
+
+    @Param({"10", "100", "1000", "5000"})
+    private int imageCount;
+
+    private NoteService noteService;
+    private Note note;
+    private List<NoteImage> originalImages;
+    private List<String> newOrder;
+    private List<Long> newIdOrder;
+
+    @Setup
+    public void setUp() {
+        note = new Note();
+        note.setId(NOTE_ID);
+
+        originalImages = new ArrayList<>(imageCount);
+        for (int i = 0; i < imageCount; i++) {
+            NoteImage image = new NoteImage(note,
+                    "https://example.supabase.co/storage/v1/object/public/images/note_1_" + i + ".jpg", null, i);
+            image.setId((long) i + 1);
+            originalImages.add(image);
+        }
+        List<NoteImage> shuffled = new ArrayList<>(originalImages);
+        Collections.shuffle(shuffled, new Random(42));
+        newOrder = new ArrayList<>(imageCount);
+        newIdOrder = new ArrayList<>(imageCount);
+        for (NoteImage image : shuffled) {
+            newOrder.add(image.getUrl());
+            newIdOrder.add(image.getId());
+        }
+
+        NoteRepository noteRepository = Stubs.of(NoteRepository.class, (method, args) -> {
+            switch (method.getName()) {
+                case "findById":
+                    return Optional.of(note);
+                case "save":
+                    return args[0];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        noteService = new NoteService();
+        ReflectionTestUtils.setField(noteService, "noteRepository", noteRepository);
+        ReflectionTestUtils.setField(noteService, "entityCacheService", new EntityCacheService() {
+            @Override
+            public void evictNote(Note note) {
+            }
+        });
+    }
+
+    @Benchmark
+    public Note reorderImages() {
+        resetImages();
+        return noteService.reorderImages(NOTE_ID, newOrder);
+    }
+
+    @Benchmark
+    public Note reorderImagesById() {
+        resetImages();
+        return noteService.reorderImagesById(NOTE_ID, newIdOrder);
+    }
+
+    // Taastame algse järjekorra, et iga kutse töötleks sama sisendit
+    private void resetImages() {
+        for (int i = 0; i < originalImages.size(); i++) {
+            originalImages.get(i).setPosition(i);
+        }
+        note.setImages(new ArrayList<>(originalImages));
+    }
+}
@@ -0,0 +1,104 @@
+package com.boardshoot.boardshoot.benchmark;
+
+import com.boardshoot.boardshoot.model.User;
+import com.boardshoot.boardshoot.service.UserCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserCacheService'i teisendused User objekti ja Redis'e räsi vahel. Redis on asendatud mälus oleva asendusega,
+ * seega mõõdetakse ainult rakenduse poolset tööd. getCachedUser loeb kohalikust vahemälust,
+ * getCachedUserFromRedis kustutab enne lugemist kohaliku kirje.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class UserCacheBenchmark {
+
+    private UserCacheService userCacheService;
+    private User user;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        user = new User("benchmark-user", "password", "benchmark@example.com");
+        user.setId(42L);
+
+        Map<Object, Object> cachedEntries = new HashMap<>();
+        cachedEntries.put("id", 42L);
+        cachedEntries.put("username", "benchmark-user");
+        cachedEntries.put("email", "benchmark@example.com");
+
+        HashOperations<String, Object, Object> hashOperations = Stubs.of(HashOperations.class, (method, args) -> {
+            switch (method.getName()) {
+                case "entries":
+                    return cachedEntries;
+                case "putAll":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>() {
+            @Override
+            public <HK, HV> HashOperations<String, HK, HV> opsForHash() {
+                return (HashOperations<String, HK, HV>) (HashOperations<String, ?, ?>) hashOperations;
+            }
+
+            @Override
+            public Boolean expire(String key, long timeout, TimeUnit unit) {
+                return Boolean.TRUE;
+            }
+
+            @Override
+            public List<Object> executePipelined(SessionCallback<?> session) {
+                session.execute(this);
+                return Collections.emptyList();
+            }
+        };
+
+        userCacheService = new UserCacheService();
+        ReflectionTestUtils.setField(userCacheService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(userCacheService, "meterRegistry", new SimpleMeterRegistry());
+        userCacheService.init();
+        userCacheService.cacheUser(user);
+    }
+
+    @Benchmark
+    public void cacheUser() {
+        userCacheService.cacheUser(user);
+    }
+
+    @Benchmark
+    public Map<String, Object> getCachedUser() {
+        return userCacheService.getCachedUser("benchmark-user");
+    }
+
+    @Benchmark
+    public Map<String, Object> getCachedUserFromRedis() {
+        userCacheService.evictLocal("benchmark-user");
+        return userCacheService.getCachedUser("benchmark-user");
+    }
+}
@@ -0,0 +1,78 @@
+package com.boardshoot.boardshoot.benchmark;
+
+import com.boardshoot.boardshoot.service.CompactUserSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vahemälus hoitava kasutaja serialiseerimine: räsi väljad JSON-ina (vaikimisi vorming)
+ * võrrelduna ühe kompaktse binaarse väärtusega. Andmemahud on kirjas failis BENCHMARKS.md.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class UserCacheSerializationBenchmark {
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private final StringRedisSerializer fieldSerializer = StringRedisSerializer.UTF_8;
+    private final CompactUserSerializer binarySerializer = new CompactUserSerializer();
+
+    private Map<String, Object> user;
+    private Map<byte[], byte[]> hashFields;
+    private byte[] binaryValue;
+
+    @Setup
+    public void setUp() {
+        user = new HashMap<>();
+        user.put("id", 42L);
+        user.put("username", "benchmark-user");
+        user.put("email", "benchmark@example.com");
+        hashFields = serializeHash();
+        binaryValue = binarySerializer.serialize(user);
+    }
+
+    private Map<byte[], byte[]> serializeHash() {
+        Map<byte[], byte[]> fields = new HashMap<>(4);
+        user.forEach((field, value) -> fields.put(fieldSerializer.serialize(field), jsonSerializer.serialize(value)));
+        return fields;
+    }
+
+    @Benchmark
+    public Map<byte[], byte[]> serializeJsonHash() {
+        return serializeHash();
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binarySerializer.serialize(user);
+    }
+
+    @Benchmark
+    public Map<String, Object> deserializeJsonHash() {
+        Map<String, Object> result = new HashMap<>();
+        hashFields.forEach((field, value) -> result.put(fieldSerializer.deserialize(field), jsonSerializer.deserialize(value)));
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, Object> deserializeBinary() {
+        return binarySerializer.deserialize(binaryValue);
+    }
+}
@@ -3,11 +3,17 @@ package com.boardshoot.boardshoot;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Map;
+
 @SpringBootApplication
 public class BoardshootApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(BoardshootApplication.class, args);
+		SpringApplication application = new SpringApplication(BoardshootApplication.class);
+		// Vaikimisi avatud actuator'i lõpp-punktid; application.properties võib neid üle kirjutada
+		application.setDefaultProperties(Map.of(
+				"management.endpoints.web.exposure.include", "health,info,metrics,prometheus"));
+		application.run(args);
 		System.out.println("Server is running on port 8080");
 	}
 
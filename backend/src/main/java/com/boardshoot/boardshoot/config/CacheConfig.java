@@ -0,0 +1,95 @@
+package com.boardshoot.boardshoot.config;
+
+import com.boardshoot.boardshoot.model.Folder;
+import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.User;
+import com.boardshoot.boardshoot.service.EntityCacheService;
+import com.fasterxml.jackson.annotation.JsonIncludeProperties;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kaustade ja märkmete lugemise vahemälu Redis'es.
+ * Igal vahemälul on oma eluiga ja kindla tüübiga JSON serialiseerija (ilma tüübiinfota).
+ */
+@Configuration
+public class CacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    @Value("${boardshoot.cache.folders.ttl-seconds:600}")
+    private long foldersTtlSeconds;
+
+    @Value("${boardshoot.cache.notes.ttl-seconds:600}")
+    private long notesTtlSeconds;
+
+    @Value("${boardshoot.cache.folder-notes.ttl-seconds:300}")
+    private long folderNotesTtlSeconds;
+
+    @Bean
+    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+        ObjectMapper objectMapper = cacheObjectMapper();
+        TypeFactory types = objectMapper.getTypeFactory();
+
+        Map<String, RedisCacheConfiguration> caches = new HashMap<>();
+        caches.put(EntityCacheService.FOLDERS,
+            cacheConfiguration(objectMapper, types.constructCollectionType(List.class, Folder.class), foldersTtlSeconds));
+        caches.put(EntityCacheService.NOTES,
+            cacheConfiguration(objectMapper, types.constructType(Note.class), notesTtlSeconds));
+        caches.put(EntityCacheService.FOLDER_NOTES,
+            cacheConfiguration(objectMapper, types.constructCollectionType(List.class, Note.class), folderNotesTtlSeconds));
+
+        logger.info("Configuring Redis caches {}", caches.keySet());
+        return RedisCacheManager.builder(connectionFactory)
+                .withInitialCacheConfigurations(caches)
+                // Tundmatuid vahemälusid ei looda - iga vahemälu vajab oma tüüpi
+                .disableCreateOnMissingCache()
+                // Kirjutamine ja kustutamine toimub alles pärast andmebaasi tehingu lõppu
+                .transactionAware()
+                .enableStatistics()
+                .build();
+    }
+
+    /**
+     * ObjectMapper, millega olemeid vahemällu kirjutatakse; hilisemad uued väljad ei riku vanu kirjeid
+     */
+    public static ObjectMapper cacheObjectMapper() {
+        return new ObjectMapper()
+                .findAndRegisterModules()
+                .addMixIn(User.class, CachedUserMixin.class)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Kaustade ja märkmete juures hoitakse kasutajast ainult ID-d: parooli räsi ei tohi Redis'esse jõuda
+     * ning kasutajanimi ja e-post vananeksid, sest kasutaja muutmine neid kirjeid ei kustuta
+     */
+    @JsonIncludeProperties("id")
+    abstract static class CachedUserMixin {
+    }
+
+    static RedisCacheConfiguration cacheConfiguration(ObjectMapper objectMapper, JavaType type, long ttlSeconds) {
+        return RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofSeconds(ttlSeconds))
+                .disableCachingNullValues()
+                .prefixCacheNameWith("cache:")
+                .serializeValuesWith(SerializationPair.fromSerializer(new Jackson2JsonRedisSerializer<>(objectMapper, type)));
+    }
+}
@@ -0,0 +1,29 @@
+package com.boardshoot.boardshoot.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate'i JDBC partiikirjutuse seadistus: samasugused INSERT ja UPDATE laused saadetakse
+ * andmebaasile partiidena. Järjestamine rühmitab laused tabelite kaupa, et partiid ei katkeks.
+ */
+@Configuration
+public class HibernateConfig {
+
+    @Value("${boardshoot.jpa.batch-size:50}")
+    private int batchSize;
+
+    @Bean
+    public HibernatePropertiesCustomizer batchingHibernateProperties() {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+            // Versioonitud märkmete uuendusi saab samuti partiidena saata
+            properties.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, true);
+        };
+    }
+}
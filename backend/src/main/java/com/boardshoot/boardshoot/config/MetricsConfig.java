@@ -0,0 +1,50 @@
+package com.boardshoot.boardshoot.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Micrometer'i seadistus: @Timed annotatsioonide tugi ja latentsuse histogrammid.
+ * Mõõdikud on nähtavad aadressil /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Võimaldab @Timed annotatsiooni kasutada teenuste ja JWT meetoditel
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /**
+     * Lülitab lõpp-punktide ja rakenduse enda taimeritele sisse histogrammid,
+     * et Prometheus saaks arvutada protsentiile ja SLO-sid
+     */
+    @Bean
+    public MeterFilter latencyHistogramFilter() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() == Meter.Type.TIMER
+                        && (id.getName().startsWith("http.server.requests") || id.getName().startsWith("boardshoot."))) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                            .maximumExpectedValue((double) Duration.ofSeconds(30).toNanos())
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
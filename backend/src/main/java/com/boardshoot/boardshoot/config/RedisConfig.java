@@ -1,13 +1,18 @@
 package com.boardshoot.boardshoot.config;
 
+import com.boardshoot.boardshoot.service.UserCacheService;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -34,6 +39,7 @@ public class RedisConfig {
     }
 
     @Bean
+    @Primary
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         logger.info("Loon RedisTemplate objekti");
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -50,4 +56,39 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Vahemälu jaoks mõeldud RedisTemplate ilma tehingute toeta: ühendust ei seota lõimega
+     * ja käske ei mähita MULTI/EXEC plokki, kui andmebaasi tehing on aktiivne
+     */
+    @Bean
+    public RedisTemplate<String, Object> cacheRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setEnableTransactionSupport(false);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * Kuulab kasutajate vahemälu teavitusi ja kustutab muutunud kasutaja kohalikust vahemälust
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       @Qualifier("cacheRedisTemplate") RedisTemplate<String, Object> cacheRedisTemplate,
+                                                                       UserCacheService userCacheService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            Object username = cacheRedisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (username != null) {
+                userCacheService.evictLocal(username.toString());
+            }
+        }, new ChannelTopic(UserCacheService.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
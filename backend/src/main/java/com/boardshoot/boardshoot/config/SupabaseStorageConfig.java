@@ -1,13 +1,31 @@
 package com.boardshoot.boardshoot.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class SupabaseStorageConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(SupabaseStorageConfig.class);
+
     @Value("${supabase.url}")
     private String supabaseUrl;
 
@@ -20,9 +38,97 @@ public class SupabaseStorageConfig {
     @Value("${supabase.storage.bucket}")
     private String bucketName;
 
+    // Storage HTTP kliendi seaded
+    @Value("${supabase.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${supabase.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${supabase.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${supabase.http.read-timeout-ms:30000}")
+    private long readTimeoutMs;
+
+    // Kui kaua oodatakse vaba ühendust kogumist
+    @Value("${supabase.http.connection-request-timeout-ms:5000}")
+    private long connectionRequestTimeoutMs;
+
+    @Value("${supabase.http.keep-alive-ms:30000}")
+    private long keepAliveMs;
+
+    @Value("${supabase.http.http2:false}")
+    private boolean http2;
+
+    @Bean
+    public RestTemplate restTemplate(ClientHttpRequestFactory storageRequestFactory) {
+        return new RestTemplate(storageRequestFactory);
+    }
+
+    /**
+     * Storage API päringute tehas. Vaikimisi Apache HttpClient ühenduste kogumi, keep-alive'i ja
+     * ajalimiitidega; supabase.http.http2=true korral JDK HttpClient HTTP/2 toega.
+     * Bean'ina registreeritud, et Spring sulgeks kliendi rakenduse peatumisel.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ClientHttpRequestFactory storageRequestFactory() {
+        if (http2) {
+            logger.info("Using JDK HTTP/2 client for storage: connectTimeout={}ms, readTimeout={}ms",
+                connectTimeoutMs, readTimeoutMs);
+            return createHttp2RequestFactory(connectTimeoutMs, readTimeoutMs);
+        }
+        logger.info("Using pooled HTTP client for storage: maxConnections={}, perRoute={}, connectTimeout={}ms, readTimeout={}ms",
+            maxConnections, maxConnectionsPerRoute, connectTimeoutMs, readTimeoutMs);
+        return createPooledRequestFactory(maxConnections, maxConnectionsPerRoute, connectTimeoutMs,
+            readTimeoutMs, connectionRequestTimeoutMs, keepAliveMs);
+    }
+
+    /**
+     * Loob Apache HttpClient'il põhineva päringutehase ühenduste kogumiga
+     */
+    public static HttpComponentsClientHttpRequestFactory createPooledRequestFactory(int maxConnections,
+                                                                                   int maxConnectionsPerRoute,
+                                                                                   long connectTimeoutMs,
+                                                                                   long readTimeoutMs,
+                                                                                   long connectionRequestTimeoutMs,
+                                                                                   long keepAliveMs) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerRoute)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                // Kontrollime enne taaskasutust, et server pole vahepeal ühendust sulgenud
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build())
+            .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build())
+            .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAliveMs))
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(keepAliveMs))
+            .build();
+
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * Loob JDK HttpClient'il põhineva päringutehase, mis eelistab HTTP/2 ühendusi
+     */
+    public static JdkClientHttpRequestFactory createHttp2RequestFactory(long connectTimeoutMs, long readTimeoutMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return requestFactory;
     }
     
     public String getSupabaseUrl() {
@@ -51,4 +157,4 @@ public class SupabaseStorageConfig {
     public String getStorageUrl() {
         return supabaseUrl + "/storage/v1";
     }
-} 
\ No newline at end of file
+}
@@ -65,7 +65,7 @@ public class AuthController {
         userCacheService.cacheUser(user);
 
         // Generate JWT token for immediate login after signup
-        String jwt = jwtUtils.generateJwtToken(user.getUsername());
+        String jwt = jwtUtils.generateJwtToken(user);
         
         // Return token and user info
         Map<String, Object> response = new HashMap<>();
@@ -93,7 +93,7 @@ public class AuthController {
             // Salvestame kasutaja vahemällu
             userCacheService.cacheUser(user);
             
-            String jwt = jwtUtils.generateJwtToken(user.getUsername());
+            String jwt = jwtUtils.generateJwtToken(user);
             logger.info("User logged in successfully: {}", user.getUsername());
 
             // Return token and user info
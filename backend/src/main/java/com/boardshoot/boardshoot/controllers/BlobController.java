@@ -0,0 +1,52 @@
+package com.boardshoot.boardshoot.controllers;
+
+import com.boardshoot.boardshoot.service.LocalBlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/blobs")
+@CrossOrigin(origins = "*")
+public class BlobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobController.class);
+
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    /**
+     * Tagastab kohalikus hoidlas oleva pildi voona.
+     * Sisu ei muutu kunagi (URL on sisu räsi), seega võib klient seda piiramatult vahemällu hoida.
+     */
+    @GetMapping("/{hash}")
+    public ResponseEntity<Resource> getBlob(@PathVariable String hash) {
+        try {
+            Optional<Path> blob = localBlobStore.find(hash);
+            if (!blob.isPresent()) {
+                logger.warn("Blob not found: {}", hash);
+                return ResponseEntity.notFound().build();
+            }
+
+            Path path = blob.get();
+            return ResponseEntity.ok()
+                    .contentType(localBlobStore.detectContentType(path))
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                    .eTag(hash)
+                    .body(new FileSystemResource(path));
+        } catch (IOException e) {
+            logger.error("Error reading blob {}: {}", hash, e.getMessage(), e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.boardshoot.boardshoot.controllers;
+
+import com.boardshoot.boardshoot.service.CacheInspectionService;
+import com.boardshoot.boardshoot.service.CachePrefixStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Redis'e vahemälu vaatamine ilma Redis't blokeerimata: kõik päringud kasutavad SCAN käsku.
+ */
+@RestController
+@RequestMapping("/api/cache-admin")
+@CrossOrigin(origins = "*")
+public class CacheAdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheAdminController.class);
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private CacheInspectionService cacheInspectionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Voogedastab mustrile vastavad võtmed kliendile, üks JSON string rea kohta
+     */
+    @GetMapping("/keys")
+    public ResponseEntity<StreamingResponseBody> streamKeys(@RequestParam(defaultValue = "*") String pattern,
+                                                            @RequestParam(defaultValue = "500") int count,
+                                                            @RequestParam(defaultValue = "10000") long limit) {
+        StreamingResponseBody body = out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try {
+                cacheInspectionService.scanKeys(pattern, count, limit, key -> {
+                    try {
+                        writer.write(objectMapper.writeValueAsString(key));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Klient sulges ühenduse - SCAN katkestatakse
+                logger.warn("Key stream aborted: {}", e.getMessage());
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * Tagastab võtmete arvu, mälukasutuse ja aegumiste jaotuse võtme eesliidete kaupa
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats(@RequestParam(defaultValue = "*") String pattern,
+                                      @RequestParam(defaultValue = "500") int count,
+                                      @RequestParam(defaultValue = "10000") long maxKeys) {
+        try {
+            Map<String, CachePrefixStats> stats = cacheInspectionService.inspect(pattern, count, maxKeys);
+            long scanned = stats.values().stream().mapToLong(CachePrefixStats::getKeys).sum();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("pattern", pattern);
+            response.put("scannedKeys", scanned);
+            response.put("truncated", scanned >= maxKeys);
+            response.put("prefixes", stats.values());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error inspecting Redis cache: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of("success", false, "message", "Error inspecting cache: " + e.getMessage()));
+        }
+    }
+}
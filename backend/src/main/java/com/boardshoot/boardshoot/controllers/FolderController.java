@@ -2,6 +2,8 @@ package com.boardshoot.boardshoot.controllers;
 
 import com.boardshoot.boardshoot.model.Folder;
 import com.boardshoot.boardshoot.repository.UserRepository;
+import com.boardshoot.boardshoot.service.ContentVersionService;
+import com.boardshoot.boardshoot.service.EntityCacheService;
 import com.boardshoot.boardshoot.service.FolderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -26,13 +29,25 @@ public class FolderController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private ContentVersionService contentVersionService;
+    
+    /**
+     * Tagastab kasutaja kaustad koos ETag päisega.
+     * Muutmata nimekirja korral vastatakse 304 ilma kaustu laadimata.
+     */
     @GetMapping("/folders")
-    public ResponseEntity<List<Folder>> getAllFolders() {
+    public ResponseEntity<List<Folder>> getAllFolders(WebRequest webRequest) {
         try {
             logger.info("Getting all folders for current user");
+            String etag = folderService.getCurrentUserFoldersETag();
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                logger.info("Folders not modified");
+                return null;
+            }
             List<Folder> folders = folderService.getCurrentUserFolders();
             logger.info("Retrieved {} folders", folders.size());
-            return new ResponseEntity<>(folders, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(etag).body(folders);
         } catch (Exception e) {
             logger.error("Error retrieving folders", e);
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -74,12 +89,17 @@ public class FolderController {
     
     // Uus lõpp-punkt kaustade saamiseks konkreetse kasutaja ID järgi - testimiseks
     @GetMapping("/folders/user/{userId}")
-    public ResponseEntity<List<Folder>> getFoldersByUserId(@PathVariable Long userId) {
+    public ResponseEntity<List<Folder>> getFoldersByUserId(@PathVariable Long userId, WebRequest webRequest) {
         try {
             logger.info("Getting all folders for user ID: {}", userId);
+            String etag = contentVersionService.getETag(EntityCacheService.FOLDERS, userId);
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                logger.info("Folders for user ID {} not modified", userId);
+                return null;
+            }
             List<Folder> folders = folderService.getUserFolders(userId);
             logger.info("Retrieved {} folders for user ID: {}", folders.size(), userId);
-            return new ResponseEntity<>(folders, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(etag).body(folders);
         } catch (Exception e) {
             logger.error("Error retrieving folders for user ID: {}", userId, e);
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -1,16 +1,37 @@
 package com.boardshoot.boardshoot.controllers;
 
 import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.service.AutosaveFailedException;
+import com.boardshoot.boardshoot.service.AutosaveState;
+import com.boardshoot.boardshoot.service.ContentVersionService;
+import com.boardshoot.boardshoot.service.EntityCacheService;
+import com.boardshoot.boardshoot.service.ImageUploadJob;
+import com.boardshoot.boardshoot.service.ImageUploadJobService;
+import com.boardshoot.boardshoot.service.NoteAutosaveService;
+import com.boardshoot.boardshoot.service.NoteDraft;
 import com.boardshoot.boardshoot.service.NoteService;
+import com.boardshoot.boardshoot.service.NoteSummaryPage;
+import com.boardshoot.boardshoot.service.NoteTextEdit;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Base64;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/folders/{folderId}/notes")
@@ -22,19 +43,66 @@ public class NoteController {
     @Autowired
     private NoteService noteService;
     
+    @Autowired
+    private ImageUploadJobService imageUploadJobService;
+    
+    @Autowired
+    private ContentVersionService contentVersionService;
+    
+    @Autowired
+    private NoteAutosaveService noteAutosaveService;
+    
+    /**
+     * Tagastab kausta märkmed koos ETag päisega.
+     * Kui päringu If-None-Match vastab kausta versioonile, vastatakse 304 ilma märkmeid laadimata.
+     */
     @GetMapping
-    public ResponseEntity<List<Note>> getNotes(@PathVariable Long folderId) {
+    public ResponseEntity<List<Note>> getNotes(@PathVariable Long folderId, WebRequest webRequest) {
         try {
             logger.info("Getting notes for folder: {}", folderId);
+            // Puhverdatud automaatsalvestused kirjutatakse enne versiooni lugemist, et vastus neid sisaldaks
+            noteAutosaveService.flushFolder(folderId);
+            String etag = contentVersionService.getETag(EntityCacheService.FOLDER_NOTES, folderId);
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                logger.info("Notes for folder {} not modified", folderId);
+                return null;
+            }
             List<Note> notes = noteService.getNotesForFolder(folderId);
             logger.info("Retrieved {} notes", notes.size());
-            return ResponseEntity.ok(notes);
+            return ResponseEntity.ok().eTag(etag).body(notes);
         } catch (Exception e) {
             logger.error("Error getting notes for folder: {}", folderId, e);
             throw e;
         }
     }
     
+    /**
+     * Tagastab märkmete lühivaated lehekülgede kaupa.
+     * Järgmise lehe saamiseks tuleb parameetrina "after" saata eelmise vastuse nextCursor.
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<NoteSummaryPage> getNoteSummaries(@PathVariable Long folderId,
+                                                            @RequestParam(required = false) Long after,
+                                                            @RequestParam(defaultValue = "50") int limit,
+                                                            WebRequest webRequest) {
+        try {
+            logger.info("Getting note summaries for folder: {} after: {}", folderId, after);
+            noteAutosaveService.flushFolder(folderId);
+            // Lehekülg sõltub samast kausta versioonist kui täielik märkmete nimekiri
+            String etag = contentVersionService.getETag(EntityCacheService.FOLDER_NOTES, folderId);
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                logger.info("Note summaries for folder {} not modified", folderId);
+                return null;
+            }
+            NoteSummaryPage page = noteService.getNoteSummaries(folderId, after, limit);
+            logger.info("Retrieved {} note summaries", page.getItems().size());
+            return ResponseEntity.ok().eTag(etag).body(page);
+        } catch (Exception e) {
+            logger.error("Error getting note summaries for folder: {}", folderId, e);
+            throw e;
+        }
+    }
+    
     @PostMapping
     public ResponseEntity<Note> createNote(@PathVariable Long folderId, @RequestBody CreateNoteRequest request) {
         try {
@@ -48,13 +116,80 @@ public class NoteController {
         }
     }
     
+    /**
+     * Loob kausta mitu märget ühe päringu ja tehinguga (nt tahvli import)
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createNotes(@PathVariable Long folderId, @RequestBody BulkCreateNotesRequest request) {
+        try {
+            logger.info("Creating {} notes in folder: {}", request.getNotes() != null ? request.getNotes().size() : 0, folderId);
+            List<Note> notes = noteService.createNotes(folderId, request.getNotes());
+            logger.info("Created {} notes in folder: {}", notes.size(), folderId);
+            return ResponseEntity.ok(notes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error creating notes in folder: {}", folderId, e);
+            return ResponseEntity.status(500).body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Teisaldab mitu märget teise kausta ühe päringuga
+     */
+    @PostMapping("/bulk/move")
+    public ResponseEntity<?> moveNotes(@PathVariable Long folderId, @RequestBody BulkMoveNotesRequest request) {
+        try {
+            if (request.getTargetFolderId() == null) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Target folder is required"));
+            }
+            logger.info("Moving notes from folder: {} to folder: {}", folderId, request.getTargetFolderId());
+            // Puhverdatud automaatsalvestused kirjutatakse enne teisaldamist vanasse kausta
+            if (request.getNoteIds() != null) {
+                request.getNoteIds().forEach(noteAutosaveService::flushNote);
+            }
+            int moved = noteService.moveNotes(folderId, request.getNoteIds(), request.getTargetFolderId());
+            return ResponseEntity.ok(Map.of("success", true, "moved", moved));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error moving notes from folder: {}", folderId, e);
+            return ResponseEntity.status(500).body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Kustutab mitu märget ühe päringuga
+     */
+    @DeleteMapping("/bulk")
+    public ResponseEntity<?> deleteNotes(@PathVariable Long folderId, @RequestBody BulkDeleteNotesRequest request) {
+        try {
+            logger.info("Deleting notes from folder: {}", folderId);
+            List<Long> deleted = noteService.deleteNotes(folderId, request.getNoteIds());
+            // Tehing on kinnitatud; loobume ainult tegelikult kustutatud märkmete puhverdatud muudatustest
+            deleted.forEach(noteAutosaveService::discard);
+            return ResponseEntity.ok(Map.of("success", true, "deleted", deleted.size()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error deleting notes from folder: {}", folderId, e);
+            return ResponseEntity.status(500).body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{noteId}")
-    public ResponseEntity<Note> getNote(@PathVariable Long folderId, @PathVariable Long noteId) {
+    public ResponseEntity<Note> getNote(@PathVariable Long folderId, @PathVariable Long noteId, WebRequest webRequest) {
         try {
             logger.info("Getting note: {} from folder: {}", noteId, folderId);
+            noteAutosaveService.flushNote(noteId);
+            String etag = contentVersionService.getETag(EntityCacheService.NOTES, noteId);
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                logger.info("Note {} not modified", noteId);
+                return null;
+            }
             Note note = noteService.getNote(noteId);
             logger.info("Retrieved note: {}", note.getId());
-            return ResponseEntity.ok(note);
+            return ResponseEntity.ok().eTag(etag).body(note);
         } catch (Exception e) {
             logger.error("Error getting note: {} from folder: {}", noteId, folderId, e);
             throw e;
@@ -62,22 +197,58 @@ public class NoteController {
     }
     
     @PutMapping("/{noteId}")
-    public ResponseEntity<Note> updateNote(@PathVariable Long folderId, @PathVariable Long noteId, @RequestBody UpdateNoteRequest request) {
+    public ResponseEntity<?> updateNote(@PathVariable Long folderId, @PathVariable Long noteId, @RequestBody UpdateNoteRequest request) {
         try {
             logger.info("Updating note: {} in folder: {}", noteId, folderId);
+            // Puhverdatud automaatsalvestus ei tohi hiljem seda muudatust üle kirjutada
+            noteAutosaveService.flushNote(noteId);
             Note note = noteService.updateNote(noteId, request.getTitle(), request.getText());
             logger.info("Updated note: {}", note.getId());
             return ResponseEntity.ok(note);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Concurrent update of note: {} in folder: {}", noteId, folderId);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("success", false, "message", "Note was modified by another request"));
         } catch (Exception e) {
             logger.error("Error updating note: {} in folder: {}", noteId, folderId, e);
             throw e;
         }
     }
     
+    /**
+     * Uuendab märkmest ainult päringus antud välju. Kui "version" on antud ja märget on vahepeal muudetud,
+     * vastatakse 409 ning klient peab märkme uuesti laadima. Automaatsalvestuse kirjutatud versioonid
+     * loetakse kliendi omaks, seega kliendi enda puhverdatud muudatused konflikti ei põhjusta.
+     */
+    @PatchMapping("/{noteId}")
+    public ResponseEntity<?> patchNote(@PathVariable Long folderId, @PathVariable Long noteId, @RequestBody PatchNoteRequest request) {
+        try {
+            logger.info("Patching note: {} in folder: {} at version: {}", noteId, folderId, request.getVersion());
+            
+            // Üksik "text" on lühivorm ühe tekstiga märkme jaoks
+            List<String> texts = request.getTexts();
+            if (texts == null && request.getText() != null) {
+                texts = List.of(request.getText());
+            }
+            
+            noteAutosaveService.flushNote(noteId);
+            Long version = noteAutosaveService.resolveVersion(noteId, request.getVersion());
+            Note note = noteService.patchNote(noteId, version, request.getTitle(), texts);
+            logger.info("Patched note: {} to version: {}", note.getId(), note.getVersion());
+            return ResponseEntity.ok(note);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Version conflict patching note: {} in folder: {}", noteId, folderId);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("success", false, "message", "Note was modified by another request"));
+        } catch (Exception e) {
+            logger.error("Error patching note: {} in folder: {}", noteId, folderId, e);
+            return ResponseEntity.status(500).body(Map.of("success", false, "message", "Server error: " + e.getMessage()));
+        }
+    }
+    
     @DeleteMapping("/{noteId}")
     public ResponseEntity<?> deleteNote(@PathVariable Long folderId, @PathVariable Long noteId) {
         try {
             logger.info("Deleting note: {} from folder: {}", noteId, folderId);
+            noteAutosaveService.discard(noteId);
             boolean result = noteService.deleteNote(noteId);
             logger.info("Note deletion result: {}", result);
             return ResponseEntity.ok(Map.of("success", true, "message", "Note deleted successfully"));
@@ -87,6 +258,59 @@ public class NoteController {
         }
     }
     
+    /**
+     * Automaatsalvestus: võtab vastu tekstimuudatused ja puhverdab need serveris.
+     * Andmebaasi kirjutatakse koondatult, kui kasutaja teeb pausi, või kutsel .../autosave/flush.
+     * Vastuses on puhvri tekstid ja versioon, mida klient saab PATCH-il kasutada.
+     * Kui varasemaid muudatusi ei saanud kirjutada, vastatakse 409 (konflikt) või 503 koos puhverdatud tekstidega.
+     */
+    @PostMapping("/{noteId}/autosave")
+    public ResponseEntity<?> autosaveNote(@PathVariable Long folderId, @PathVariable Long noteId, @RequestBody AutosaveRequest request) {
+        try {
+            if (request.getEdits() == null || request.getEdits().isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Edits are required"));
+            }
+            logger.debug("Buffering {} autosave edits for note: {} in folder: {}", request.getEdits().size(), noteId, folderId);
+            AutosaveState state = noteAutosaveService.applyEdits(noteId, request.getEdits());
+            Map<String, Object> body = new HashMap<>();
+            body.put("success", true);
+            body.put("texts", state.getTexts());
+            body.put("version", state.getVersion());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+        } catch (AutosaveFailedException e) {
+            return autosaveFailed(noteId, e);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid autosave edit for note: {} in folder: {}: {}", noteId, folderId, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error buffering autosave for note: {} in folder: {}: {}", noteId, folderId, e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of("success", false, "message", "Server error: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Kirjutab märkme puhverdatud automaatsalvestuse kohe andmebaasi, nt kui kasutaja lahkub redaktorist
+     */
+    @PostMapping("/{noteId}/autosave/flush")
+    public ResponseEntity<?> flushAutosave(@PathVariable Long folderId, @PathVariable Long noteId) {
+        try {
+            logger.info("Flushing autosave for note: {} in folder: {}", noteId, folderId);
+            noteAutosaveService.flushNoteOrThrow(noteId);
+            return ResponseEntity.ok(noteService.getNote(noteId));
+        } catch (AutosaveFailedException e) {
+            return autosaveFailed(noteId, e);
+        } catch (Exception e) {
+            logger.error("Error flushing autosave for note: {} in folder: {}: {}", noteId, folderId, e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of("success", false, "message", "Server error: " + e.getMessage()));
+        }
+    }
+    
+    private ResponseEntity<?> autosaveFailed(Long noteId, AutosaveFailedException e) {
+        logger.warn("Autosave of note: {} could not be saved: {}", noteId, e.getMessage());
+        HttpStatus status = e.isConflict() ? HttpStatus.CONFLICT : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(Map.of("success", false, "message", e.getMessage(), "texts", e.getTexts()));
+    }
+    
     @PostMapping("/{noteId}/images")
     public ResponseEntity<?> addImageToNote(@PathVariable Long folderId, 
                                            @PathVariable Long noteId, 
@@ -128,6 +352,124 @@ public class NoteController {
         }
     }
     
+    /**
+     * Lisab märkmele pildi, mis saadetakse toore binaarkehana (application/octet-stream või image/*).
+     * Pilt voogedastatakse salvestusse ilma base64 teisenduseta ja ilma tervikuna mällu lugemata.
+     */
+    @PostMapping(value = "/{noteId}/images", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "image/*"})
+    public ResponseEntity<?> streamImageToNote(@PathVariable Long folderId,
+                                               @PathVariable Long noteId,
+                                               HttpServletRequest request) {
+        logger.info("Streaming image to note: {} in folder: {}", noteId, folderId);
+        
+        long contentLength = request.getContentLengthLong();
+        MediaType contentType = request.getContentType() != null ? MediaType.parseMediaType(request.getContentType()) : null;
+        
+        try (InputStream imageStream = request.getInputStream()) {
+            return storeStreamedImage(folderId, noteId, imageStream, contentLength, contentType);
+        } catch (IOException e) {
+            logger.error("Error reading image stream for note: {} in folder: {}", noteId, folderId, e);
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Could not read image data: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Lisab märkmele pildi multipart vormi osa "image" kaudu.
+     * Multipart faili loetakse voona, seega suured pildid ei koorma mälu.
+     */
+    @PostMapping(value = "/{noteId}/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadImageToNote(@PathVariable Long folderId,
+                                               @PathVariable Long noteId,
+                                               @RequestPart("image") MultipartFile image) {
+        logger.info("Multipart image upload to note: {} in folder: {}", noteId, folderId);
+        
+        MediaType contentType = image.getContentType() != null ? MediaType.parseMediaType(image.getContentType()) : null;
+        
+        try (InputStream imageStream = image.getInputStream()) {
+            return storeStreamedImage(folderId, noteId, imageStream, image.getSize(), contentType);
+        } catch (IOException e) {
+            logger.error("Error reading multipart image for note: {} in folder: {}", noteId, folderId, e);
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Could not read image data: " + e.getMessage()));
+        }
+    }
+    
+    private ResponseEntity<?> storeStreamedImage(Long folderId, Long noteId, InputStream imageStream,
+                                                 long contentLength, MediaType contentType) {
+        if (contentLength == 0) {
+            logger.warn("Image stream is empty for note: {} in folder: {}", noteId, folderId);
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Image is required"));
+        }
+        
+        try {
+            noteService.addImageToNote(noteId, imageStream, contentLength, contentType);
+            
+            logger.info("Successfully streamed image to note: {}", noteId);
+            return ResponseEntity.ok(Map.of("success", true, "message", "Image added successfully"));
+        } catch (Exception e) {
+            logger.error("Error streaming image to note: {} in folder: {}: {}", noteId, folderId, e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false, 
+                "message", "Server error: " + e.getMessage())
+            );
+        }
+    }
+    
+    /**
+     * Võtab pildi vastu asünkroonseks üleslaadimiseks ja tagastab kohe 202 koos töö ID-ga.
+     * Pilt salvestatakse ooteala kausta ja laaditakse salvestusse taustal.
+     */
+    @PostMapping(value = "/{noteId}/images/async", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "image/*"})
+    public ResponseEntity<?> addImageToNoteAsync(@PathVariable Long folderId,
+                                                 @PathVariable Long noteId,
+                                                 HttpServletRequest request) {
+        logger.info("Async image upload to note: {} in folder: {}", noteId, folderId);
+        
+        long contentLength = request.getContentLengthLong();
+        if (contentLength == 0) {
+            logger.warn("Image stream is empty for note: {} in folder: {}", noteId, folderId);
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Image is required"));
+        }
+        MediaType contentType = request.getContentType() != null ? MediaType.parseMediaType(request.getContentType()) : null;
+        
+        try (InputStream imageStream = request.getInputStream()) {
+            ImageUploadJob job = imageUploadJobService.submit(noteId, imageStream, contentLength, contentType);
+            
+            logger.info("Accepted async image upload job: {} for note: {}", job.getId(), noteId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "success", true,
+                "jobId", job.getId(),
+                "status", job.getStatus(),
+                "statusUrl", "/api/folders/" + folderId + "/notes/" + noteId + "/images/jobs/" + job.getId())
+            );
+        } catch (RejectedExecutionException e) {
+            logger.warn("Upload queue full, rejecting image for note: {}", noteId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(Map.of("success", false, "message", "Upload queue is full, try again later"));
+        } catch (Exception e) {
+            logger.error("Error accepting async image for note: {} in folder: {}: {}", noteId, folderId, e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false, 
+                "message", "Server error: " + e.getMessage())
+            );
+        }
+    }
+    
+    /**
+     * Tagastab asünkroonse üleslaadimise töö oleku
+     */
+    @GetMapping("/{noteId}/images/jobs/{jobId}")
+    public ResponseEntity<?> getImageUploadJob(@PathVariable Long folderId,
+                                               @PathVariable Long noteId,
+                                               @PathVariable String jobId) {
+        Optional<ImageUploadJob> job = imageUploadJobService.getJob(jobId);
+        if (!job.isPresent() || !job.get().getNoteId().equals(noteId)) {
+            logger.warn("Image upload job not found: {} for note: {}", jobId, noteId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("success", false, "message", "Job not found"));
+        }
+        return ResponseEntity.ok(job.get());
+    }
+    
     /**
      * Kustutab pildi märkmest
      */
@@ -163,7 +505,32 @@ public class NoteController {
     }
     
     /**
-     * Muudab piltide järjekorda märkmes
+     * Kustutab pildi märkmest pildi ID järgi
+     */
+    @DeleteMapping("/{noteId}/images/{imageId}")
+    public ResponseEntity<?> deleteImageById(@PathVariable Long folderId, 
+                                             @PathVariable Long noteId,
+                                             @PathVariable Long imageId) {
+        try {
+            logger.info("Deleting image {} from note: {} in folder: {}", imageId, noteId, folderId);
+            
+            if (noteService.deleteImageById(noteId, imageId)) {
+                logger.info("Successfully deleted image {} from note: {}", imageId, noteId);
+                return ResponseEntity.ok(Map.of("success", true, "message", "Image deleted successfully"));
+            }
+            logger.warn("Image {} not found in note: {}", imageId, noteId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("success", false, "message", "Image not found"));
+        } catch (Exception e) {
+            logger.error("Error deleting image {} from note: {} in folder: {}: {}", imageId, noteId, folderId, e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of(
+                "success", false, 
+                "message", "Server error: " + e.getMessage())
+            );
+        }
+    }
+    
+    /**
+     * Muudab piltide järjekorda märkmes. Eelistatud on piltide ID-d, URL-id on vanemate klientide jaoks.
      */
     @PutMapping("/{noteId}/images/reorder")
     public ResponseEntity<?> reorderImages(@PathVariable Long folderId, 
@@ -172,14 +539,16 @@ public class NoteController {
         try {
             logger.info("Reordering images for note: {} in folder: {}", noteId, folderId);
             
-            if (request.getImageUrls() == null || request.getImageUrls().isEmpty()) {
-                logger.warn("Image URLs list is empty for note: {} in folder: {}", noteId, folderId);
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Image URLs list is required"));
+            Note updatedNote;
+            if (request.getImageIds() != null && !request.getImageIds().isEmpty()) {
+                updatedNote = noteService.reorderImagesById(noteId, request.getImageIds());
+            } else if (request.getImageUrls() != null && !request.getImageUrls().isEmpty()) {
+                updatedNote = noteService.reorderImages(noteId, request.getImageUrls());
+            } else {
+                logger.warn("Image order is empty for note: {} in folder: {}", noteId, folderId);
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Image IDs or URLs list is required"));
             }
             
-            // Muudame piltide järjekorda
-            Note updatedNote = noteService.reorderImages(noteId, request.getImageUrls());
-            
             logger.info("Successfully reordered images for note: {}", noteId);
             return ResponseEntity.ok(updatedNote);
         } catch (Exception e) {
@@ -212,6 +581,51 @@ public class NoteController {
         }
     }
     
+    public static class BulkCreateNotesRequest {
+        private List<NoteDraft> notes;
+        
+        public List<NoteDraft> getNotes() {
+            return notes;
+        }
+        
+        public void setNotes(List<NoteDraft> notes) {
+            this.notes = notes;
+        }
+    }
+    
+    public static class BulkMoveNotesRequest {
+        private List<Long> noteIds;
+        private Long targetFolderId;
+        
+        public List<Long> getNoteIds() {
+            return noteIds;
+        }
+        
+        public void setNoteIds(List<Long> noteIds) {
+            this.noteIds = noteIds;
+        }
+        
+        public Long getTargetFolderId() {
+            return targetFolderId;
+        }
+        
+        public void setTargetFolderId(Long targetFolderId) {
+            this.targetFolderId = targetFolderId;
+        }
+    }
+    
+    public static class BulkDeleteNotesRequest {
+        private List<Long> noteIds;
+        
+        public List<Long> getNoteIds() {
+            return noteIds;
+        }
+        
+        public void setNoteIds(List<Long> noteIds) {
+            this.noteIds = noteIds;
+        }
+    }
+    
     public static class UpdateNoteRequest {
         private String title;
         private String text;
@@ -233,6 +647,57 @@ public class NoteController {
         }
     }
     
+    public static class PatchNoteRequest {
+        private Long version;
+        private String title;
+        private String text;
+        private List<String> texts;
+        
+        public Long getVersion() {
+            return version;
+        }
+        
+        public void setVersion(Long version) {
+            this.version = version;
+        }
+        
+        public String getTitle() {
+            return title;
+        }
+        
+        public void setTitle(String title) {
+            this.title = title;
+        }
+        
+        public String getText() {
+            return text;
+        }
+        
+        public void setText(String text) {
+            this.text = text;
+        }
+        
+        public List<String> getTexts() {
+            return texts;
+        }
+        
+        public void setTexts(List<String> texts) {
+            this.texts = texts;
+        }
+    }
+    
+    public static class AutosaveRequest {
+        private List<NoteTextEdit> edits;
+        
+        public List<NoteTextEdit> getEdits() {
+            return edits;
+        }
+        
+        public void setEdits(List<NoteTextEdit> edits) {
+            this.edits = edits;
+        }
+    }
+    
     public static class AddImageRequest {
         private String image;
         
@@ -258,8 +723,17 @@ public class NoteController {
     }
     
     public static class ReorderImagesRequest {
+        private List<Long> imageIds;
         private List<String> imageUrls;
         
+        public List<Long> getImageIds() {
+            return imageIds;
+        }
+        
+        public void setImageIds(List<Long> imageIds) {
+            this.imageIds = imageIds;
+        }
+        
         public List<String> getImageUrls() {
             return imageUrls;
         }
@@ -1,6 +1,7 @@
 package com.boardshoot.boardshoot.controllers;
 
 import com.boardshoot.boardshoot.model.User;
+import com.boardshoot.boardshoot.service.CacheInspectionService;
 import com.boardshoot.boardshoot.service.UserCacheService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,7 +13,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -27,6 +30,12 @@ public class RedisTestController {
     
     @Autowired
     private UserCacheService userCacheService;
+
+    @Autowired
+    private CacheInspectionService cacheInspectionService;
+
+    // Suurim /keys vastuses tagastatavate võtmete arv; täielik nimekiri on saadaval /api/cache-admin/keys kaudu
+    private static final int MAX_LISTED_KEYS = 1000;
     
     @GetMapping("/ping")
     public ResponseEntity<?> testRedisConnection() {
@@ -145,9 +154,10 @@ public class RedisTestController {
         try {
             logger.info("Redis kõikide võtmete vaatamine...");
             
-            // Võtame kõik võtmed
-            java.util.Set<String> keys = redisTemplate.keys("*");
-            logger.info("Redis'es on {} võtit: {}", keys.size(), keys);
+            // KEYS * blokeeriks Redis'e, seega käime võtmed läbi SCAN käsuga ja piirame nende arvu
+            List<String> keys = new ArrayList<>();
+            cacheInspectionService.scanKeys("*", 500, MAX_LISTED_KEYS, keys::add);
+            logger.info("Redis'est loetud {} võtit", keys.size());
             
             return ResponseEntity.ok(keys);
         } catch (Exception e) {
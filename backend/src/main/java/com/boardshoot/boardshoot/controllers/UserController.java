@@ -2,6 +2,7 @@ package com.boardshoot.boardshoot.controllers;
 
 import com.boardshoot.boardshoot.model.User;
 import com.boardshoot.boardshoot.repository.UserRepository;
+import com.boardshoot.boardshoot.security.TokenRevocationRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,6 +18,9 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @PostMapping
     public User createUser(@RequestBody User user) {
         return userRepository.save(user);
@@ -45,7 +49,10 @@ public class UserController {
             existingUser.setUsername(userDetails.getUsername());
             existingUser.setPassword(userDetails.getPassword());
             existingUser.setEmail(userDetails.getEmail());
-            return userRepository.save(existingUser);
+            User savedUser = userRepository.save(existingUser);
+            // Parool muutus - varem väljastatud tokenid ei kehti
+            tokenRevocationRegistry.revokeUser(savedUser.getId());
+            return savedUser;
         }
         throw new RuntimeException("User not found");
     }
@@ -69,7 +76,10 @@ public class UserController {
             }
             
             // Ei muuda parooli
-            return userRepository.save(existingUser);
+            User savedUser = userRepository.save(existingUser);
+            // Olemasolevad tokenid kehtivad edasi, kuid uute andmetega
+            tokenRevocationRegistry.userChanged(savedUser);
+            return savedUser;
         }
         throw new RuntimeException("User not found");
     }
@@ -79,6 +89,7 @@ public class UserController {
         Optional<User> user = userRepository.findById(id);
         if (user.isPresent()){
             userRepository.deleteById(id);
+            tokenRevocationRegistry.revokeUser(id);
             return ("bye bye user");
         }
         throw new RuntimeException("User not found");
@@ -11,7 +11,8 @@ import lombok.Data;
 @Table(name = "folder")
 public class Folder {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "folder_seq")
+    @SequenceGenerator(name = "folder_seq", sequenceName = "folder_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
     private String name;
@@ -0,0 +1,18 @@
+package com.boardshoot.boardshoot.model;
+
+/**
+ * Olemite võtmete jagamise seaded.
+ * Võtmed võetakse jadast ALLOCATION_SIZE kaupa (Hibernate'i "pooled" optimeerija): üks jada päring annab
+ * võtmed terve partii jaoks ja INSERT-laused saab saata JDBC partiidena, mida IDENTITY veerud ei võimalda.
+ * Vanade IDENTITY võtmetega andmebaasides seab jadad olemasolevate ridade järele IdSequenceService.
+ */
+public final class IdGeneration {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Järjekorratabelitesse lisatakse ridu tuhandete kaupa ja võtmete lüngad pole olulised
+    public static final int QUEUE_ALLOCATION_SIZE = 1000;
+
+    private IdGeneration() {
+    }
+}
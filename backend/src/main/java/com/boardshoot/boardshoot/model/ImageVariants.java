@@ -0,0 +1,36 @@
+package com.boardshoot.boardshoot.model;
+
+/**
+ * Pildi väiksemate variantide URL-id. Kui pilt oli juba väike, viitavad variandid originaalile.
+ * Andmebaasis hoitakse neid NoteImage veergudes; see klass on ainult nende edasiandmiseks ja JSON vastuseks.
+ */
+public class ImageVariants {
+
+    private String thumbnailUrl;
+
+    private String previewUrl;
+
+    public ImageVariants() {
+    }
+
+    public ImageVariants(String thumbnailUrl, String previewUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+        this.previewUrl = previewUrl;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getPreviewUrl() {
+        return previewUrl;
+    }
+
+    public void setPreviewUrl(String previewUrl) {
+        this.previewUrl = previewUrl;
+    }
+}
@@ -1,19 +1,33 @@
 package com.boardshoot.boardshoot.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Entity
 @Table(name = "note")
 public class Note {
     
+    // Mitme märkme laadimisel loetakse kogumid kuni nii mitme märkme kaupa ühe päringuga
+    public static final int COLLECTION_BATCH_SIZE = 50;
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_seq")
+    @SequenceGenerator(name = "note_seq", sequenceName = "note_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
     
     private String title;
     
+    // Optimistlik lukustus: samaaegsed salvestused ei kirjuta enam vaikselt üksteist üle.
+    // Vaikeväärtus annab versiooni ka enne veeru lisamist loodud märkmetele
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+    
     @ManyToOne
     @JoinColumn(name = "folder_id")
     private Folder folder;
@@ -28,15 +42,17 @@ public class Note {
         joinColumns = @JoinColumn(name = "note_id")
     )
     @Column(name = "text")
+    // Järjekorraveeru abil uuendatakse muutunud teksti ühe reaga, mitte kogu kogumi ümberkirjutamisega
+    @OrderColumn(name = "text_order")
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     private List<String> texts = new ArrayList<>();
     
-    @ElementCollection
-    @CollectionTable(
-        name = "note_images",
-        joinColumns = @JoinColumn(name = "note_id")
-    )
-    @Column(name = "image_url", columnDefinition = "TEXT")
-    private List<String> imageUrls = new ArrayList<>();
+    // Pildid koos variantidega, püsiva ID ja järjekorranumbriga.
+    // Vanade note_images ja note_image_variants tabelite read viib siia NoteImageMigrationService
+    @OneToMany(mappedBy = "note", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("position")
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
+    private List<NoteImage> images = new ArrayList<>();
     
     public Long getId() {
         return id;
@@ -46,6 +62,14 @@ public class Note {
         this.id = id;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public String getTitle() {
         return title;
     }
@@ -82,15 +106,49 @@ public class Note {
         this.texts.add(text);
     }
     
+    public List<NoteImage> getImages() {
+        return images;
+    }
+    
+    public void setImages(List<NoteImage> images) {
+        this.images = images;
+    }
+    
+    /**
+     * Piltide URL-id järjekorras. Jäetud JSON-i vanemate klientide jaoks, muudatused käivad piltide kaudu.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     public List<String> getImageUrls() {
+        List<String> imageUrls = new ArrayList<>(images.size());
+        for (NoteImage image : images) {
+            imageUrls.add(image.getUrl());
+        }
         return imageUrls;
     }
     
-    public void setImageUrls(List<String> imageUrls) {
-        this.imageUrls = imageUrls;
+    /**
+     * Pisipildi ja eelvaate URL-id originaalpildi URL-i järgi. Jäetud JSON-i vanemate klientide jaoks.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public Map<String, ImageVariants> getImageVariants() {
+        Map<String, ImageVariants> imageVariants = new HashMap<>();
+        for (NoteImage image : images) {
+            ImageVariants variants = image.getVariants();
+            if (variants != null) {
+                imageVariants.put(image.getUrl(), variants);
+            }
+        }
+        return imageVariants;
     }
     
-    public void addImageUrl(String imageUrl) {
-        this.imageUrls.add(imageUrl);
+    /**
+     * Lisab pildi koos selle variantidega piltide lõppu
+     * @return Lisatud pilt (ID määratakse salvestamisel)
+     */
+    public NoteImage addImage(String imageUrl, ImageVariants variants) {
+        int position = images.isEmpty() ? 0 : images.get(images.size() - 1).getPosition() + 1;
+        NoteImage image = new NoteImage(this, imageUrl, variants, position);
+        images.add(image);
+        return image;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package com.boardshoot.boardshoot.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+/**
+ * Märkme pilt koos püsiva ID ja järjekorranumbriga.
+ * Järjekorra muutmine ja kustutamine käivad ID järgi, seega ei pea klient pildi URL-i serverile tagasi saatma.
+ * Järjekorranumbrid ei pea olema järjestikused, oluline on ainult nende järjestus.
+ */
+@Entity
+@Table(name = "note_image", indexes = @Index(name = "idx_note_image_note_position", columnList = "note_id, position"))
+public class NoteImage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_image_seq")
+    @SequenceGenerator(name = "note_image_seq", sequenceName = "note_image_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "note_id", nullable = false)
+    @JsonIgnore
+    private Note note;
+
+    @Column(name = "url", nullable = false, columnDefinition = "TEXT")
+    private String url;
+
+    @Column(name = "thumbnail_url", columnDefinition = "TEXT")
+    private String thumbnailUrl;
+
+    @Column(name = "preview_url", columnDefinition = "TEXT")
+    private String previewUrl;
+
+    @Column(name = "position", nullable = false)
+    private int position;
+
+    public NoteImage() {
+    }
+
+    public NoteImage(Note note, String url, ImageVariants variants, int position) {
+        this.note = note;
+        this.url = url;
+        if (variants != null) {
+            this.thumbnailUrl = variants.getThumbnailUrl();
+            this.previewUrl = variants.getPreviewUrl();
+        }
+        this.position = position;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Note getNote() {
+        return note;
+    }
+
+    public void setNote(Note note) {
+        this.note = note;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getPreviewUrl() {
+        return previewUrl;
+    }
+
+    public void setPreviewUrl(String previewUrl) {
+        this.previewUrl = previewUrl;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    /**
+     * Tagastab variandid või null, kui pildil eraldi variante pole
+     */
+    @JsonIgnore
+    public ImageVariants getVariants() {
+        if (thumbnailUrl == null && previewUrl == null) {
+            return null;
+        }
+        return new ImageVariants(thumbnailUrl, previewUrl);
+    }
+}
@@ -0,0 +1,81 @@
+package com.boardshoot.boardshoot.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Storage'ist kustutamist ootav objekt. Read lisatakse samas tehingus, kus kustutatakse neile viitavad
+ * andmebaasi read, ja StorageDeletionService kustutab objektid hiljem partiidena.
+ */
+@Entity
+@Table(name = "storage_deletion", indexes = @Index(name = "idx_storage_deletion_due", columnList = "next_attempt_at"))
+public class StorageDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "storage_deletion_seq")
+    @SequenceGenerator(name = "storage_deletion_seq", sequenceName = "storage_deletion_seq", allocationSize = IdGeneration.QUEUE_ALLOCATION_SIZE)
+    private Long id;
+
+    // Objekti nimi bucketis
+    @Column(name = "object_name", nullable = false, length = 1024)
+    private String objectName;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public StorageDeletion() {
+    }
+
+    public StorageDeletion(String objectName, Instant createdAt) {
+        this.objectName = objectName;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getObjectName() {
+        return objectName;
+    }
+
+    public void setObjectName(String objectName) {
+        this.objectName = objectName;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
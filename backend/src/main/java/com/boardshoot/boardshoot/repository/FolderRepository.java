@@ -2,7 +2,11 @@ package com.boardshoot.boardshoot.repository;
 
 import com.boardshoot.boardshoot.model.Folder;
 import com.boardshoot.boardshoot.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -14,5 +18,12 @@ public interface FolderRepository extends JpaRepository<Folder, Long> {
 
     Optional<Folder> findByUserAndName(User user, String name);
 
+    // Omaniku kontrolliga laaditakse kohe ka kasutaja, et märkmete hulgiloomine ei vajaks eraldi päringut
+    @EntityGraph(attributePaths = {"user"})
     Optional<Folder> findByUserIdAndId(Long userId, Long folderId);
+
+    // Kaust kustutatakse ilma märkmeid laadimata; märkmed peavad olema enne eemaldatud
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Folder f WHERE f.id = :folderId")
+    int deleteFolderById(@Param("folderId") Long folderId);
 }
@@ -1,15 +1,90 @@
 package com.boardshoot.boardshoot.repository;
 
+import com.boardshoot.boardshoot.model.Folder;
 import com.boardshoot.boardshoot.model.Note;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long> {
     List<Note> findByFolderId(Long folderId);
+    
+    /**
+     * Laadib kausta märkmed koos kausta, kasutaja ja tekstidega ühe päringuga.
+     * Pildid ja variandid laaditakse partiidena (@BatchSize), sest kahte bag-kogumit ei saa korraga liita.
+     */
+    @EntityGraph(attributePaths = {"folder", "user", "texts"})
+    @Query("SELECT n FROM Note n WHERE n.folder.id = :folderId ORDER BY n.id")
+    List<Note> findWithTextsByFolderId(@Param("folderId") Long folderId);
     Optional<Note> findByFolderIdAndId(Long folderId, Long noteId);
+    
+    // Piltide muutmiseks: märkme rida lukustatakse ja selle versiooni tõstetakse kohe,
+    // seega samaaegsed muudatused ei põimu ja versiooniga PATCH näeb, et pilte muudeti
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT n FROM Note n WHERE n.id = :noteId")
+    Optional<Note> findForImageUpdateById(@Param("noteId") Long noteId);
     List<Note> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    @Query("SELECT n.id FROM Note n WHERE n.folder.id = :folderId")
+    List<Long> findIdsByFolderId(@Param("folderId") Long folderId);
+    
+    // Lühivaate päringud: lehekülg loetakse ID järgi (keyset), kogumid pärast ühe päringuga kogu lehe kohta
+    
+    @Query("SELECT n.id, n.title FROM Note n WHERE n.folder.id = :folderId AND n.id > :afterId ORDER BY n.id")
+    List<Object[]> findSummaryPage(@Param("folderId") Long folderId, @Param("afterId") Long afterId, Limit limit);
+    
+    // Ainult iga märkme esimene tekst (text_order = 0), mitte kõik tekstid
+    @Query("SELECT n.id, SUBSTRING(t, 1, :length) FROM Note n JOIN n.texts t WHERE n.id IN :noteIds AND INDEX(t) = 0")
+    List<Object[]> findTextPreviews(@Param("noteIds") Collection<Long> noteIds, @Param("length") int length);
+    
+    // Lehe kõik pildid järjekorras koos pisipildiga: sellest tulevad nii piltide arv kui ka esimese pildi pisipilt
+    @Query("SELECT i.note.id, i.url, i.thumbnailUrl FROM NoteImage i WHERE i.note.id IN :noteIds ORDER BY i.note.id, i.position")
+    List<Object[]> findImageSummaries(@Param("noteIds") Collection<Long> noteIds);
+    
+    // Hulgitoimingud: üks lause kogu märkmete hulga kohta, märkmeid mällu ei laadita
+    
+    @Query("SELECT n.id FROM Note n WHERE n.folder.id = :folderId AND n.id IN :noteIds")
+    List<Long> findIdsByFolderIdAndIdIn(@Param("folderId") Long folderId, @Param("noteIds") Collection<Long> noteIds);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Note n SET n.folder = :target, n.version = COALESCE(n.version, 0) + 1 WHERE n.folder.id = :folderId AND n.id IN :noteIds")
+    int moveToFolder(@Param("folderId") Long folderId, @Param("noteIds") Collection<Long> noteIds, @Param("target") Folder target);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM NoteImage i WHERE i.note.id IN :noteIds")
+    int deleteImagesByNoteIds(@Param("noteIds") Collection<Long> noteIds);
+    
+    // Hibernate kustutab samas käigus ka märkmete tekstid (note_texts)
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Note n WHERE n.id IN :noteIds")
+    int deleteByIds(@Param("noteIds") Collection<Long> noteIds);
+    
+    // Kausta kustutamine: pildid loetakse lehtede kaupa storage'i järjekorda, read kustutatakse kausta kaupa
+    
+    @Query("SELECT i.id, i.url, i.thumbnailUrl, i.previewUrl FROM NoteImage i WHERE i.note.folder.id = :folderId AND i.id > :afterId ORDER BY i.id")
+    List<Object[]> findImageUrlPage(@Param("folderId") Long folderId, @Param("afterId") Long afterId, Limit limit);
+    
+    // Märkmete kõigi piltide URL-id: kustutamisjärjekorra ja storage'i kontrolli jaoks
+    @Query("SELECT i.url, i.thumbnailUrl, i.previewUrl FROM NoteImage i WHERE i.note.id IN :noteIds")
+    List<Object[]> findImageUrlsByNoteIds(@Param("noteIds") Collection<Long> noteIds);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM NoteImage i WHERE i.note.id IN (SELECT n.id FROM Note n WHERE n.folder.id = :folderId)")
+    int deleteImagesByFolderId(@Param("folderId") Long folderId);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Note n WHERE n.folder.id = :folderId")
+    int deleteByFolderId(@Param("folderId") Long folderId);
+}
@@ -0,0 +1,23 @@
+package com.boardshoot.boardshoot.repository;
+
+import com.boardshoot.boardshoot.model.StorageDeletion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StorageDeletionRepository extends JpaRepository<StorageDeletion, Long> {
+
+    // Kustutamiseks valmis objektid lisamise järjekorras
+    List<StorageDeletion> findByNextAttemptAtLessThanEqualOrderById(Instant now, Limit limit);
+
+    // Antud objektidest need, mis juba ootavad kustutamist
+    @Query("SELECT d.objectName FROM StorageDeletion d WHERE d.objectName IN :objectNames")
+    List<String> findQueuedObjectNames(@Param("objectNames") Collection<String> objectNames);
+}
@@ -1,5 +1,6 @@
 package com.boardshoot.boardshoot.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -27,6 +29,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
@@ -35,18 +40,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = parseJwt(request);
             if (jwt != null) {
-                logger.info("JWT Token found: {}", jwt);
+                logger.debug("JWT Token found in request");
                 
-                if (jwtUtils.validateJwtToken(jwt)) {
-                    String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                    logger.info("Username from token: {}", username);
+                // Token kontrollitakse ja parsitakse ühe korra
+                Optional<Claims> claims = jwtUtils.parseValidatedClaims(jwt);
+                if (claims.isPresent()) {
+                    String username = claims.get().getSubject();
+                    logger.debug("Username from token: {}", username);
 
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    
-                    if (userDetails instanceof UserDetailsImpl) {
-                        logger.info("Loaded UserDetailsImpl with ID: {}", ((UserDetailsImpl) userDetails).getId());
+                    UserDetails userDetails;
+                    UserDetailsImpl fromToken = UserDetailsImpl.fromClaims(claims.get());
+                    if (fromToken != null) {
+                        // Kasutaja andmed on tokenis - andmebaasi poole ei pöörduta
+                        userDetails = tokenRevocationRegistry.currentPrincipal(fromToken, claims.get().getIssuedAt());
+                        if (userDetails == null) {
+                            logger.warn("JWT token for user {} has been revoked", fromToken.getId());
+                            filterChain.doFilter(request, response);
+                            return;
+                        }
                     } else {
-                        logger.warn("UserDetails is not an instance of UserDetailsImpl");
+                        // Vanemad tokenid ei sisalda kasutaja ID-d, laeme kasutaja andmebaasist
+                        userDetails = userDetailsService.loadUserByUsername(username);
+                        
+                        if (userDetails instanceof UserDetailsImpl) {
+                            logger.info("Loaded UserDetailsImpl with ID: {}", ((UserDetailsImpl) userDetails).getId());
+                        } else {
+                            logger.warn("UserDetails is not an instance of UserDetailsImpl");
+                        }
                     }
                     
                     UsernamePasswordAuthenticationToken authentication = 
@@ -58,7 +78,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                    logger.info("User authenticated successfully");
+                    logger.debug("User authenticated successfully");
                 } else {
                     logger.warn("JWT token validation failed");
                 }
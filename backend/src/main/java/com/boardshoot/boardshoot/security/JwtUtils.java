@@ -1,32 +1,124 @@
 package com.boardshoot.boardshoot.security;
 
+import com.boardshoot.boardshoot.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    // Tokenisse salvestatud kasutaja andmed, et päringu autentimiseks ei peaks andmebaasi poole pöörduma
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_EMAIL = "email";
+    public static final String CLAIM_ROLES = "roles";
+
+    // Kui kaua kontrollitud token maksimaalselt vahemälus püsib (ka siis, kui token kehtib kauem)
+    private static final long MAX_CACHED_TOKEN_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+
     @Value("${boardshoot.app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${boardshoot.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // Hiljuti kontrollitud tokenite arv, mille puhul allkirja uuesti ei kontrollita; 0 lülitab vahemälu välja
+    @Value("${boardshoot.app.jwtCacheSize:10000}")
+    private int jwtCacheSize = 10000;
+
+    // Võti, parser ja vahemälu luuakse esimesel kasutamisel üks kord
+    private volatile SecretKey signingKey;
+    private volatile JwtParser jwtParser;
+    private volatile Cache<String, Claims> verifiedTokens;
+
+    private SecretKey getSigningKey() {
+        SecretKey key = signingKey;
+        if (key == null) {
+            synchronized (this) {
+                key = signingKey;
+                if (key == null) {
+                    key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+                    signingKey = key;
+                }
+            }
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser parser = jwtParser;
+        if (parser == null) {
+            synchronized (this) {
+                parser = jwtParser;
+                if (parser == null) {
+                    parser = Jwts.parser()
+                            .verifyWith(getSigningKey())
+                            .build();
+                    jwtParser = parser;
+                }
+            }
+        }
+        return parser;
+    }
+
+    private Cache<String, Claims> getVerifiedTokens() {
+        Cache<String, Claims> cache = verifiedTokens;
+        if (cache == null) {
+            synchronized (this) {
+                cache = verifiedTokens;
+                if (cache == null) {
+                    cache = Caffeine.newBuilder()
+                            .maximumSize(jwtCacheSize)
+                            .expireAfter(new TokenExpiry())
+                            .build();
+                    verifiedTokens = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Loob tokeni, mis sisaldab kasutaja ID-d, e-posti ja rolle
+     */
+    public String generateJwtToken(User user) {
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        List<String> roles = new ArrayList<>();
+        for (GrantedAuthority authority : userDetails.getAuthorities()) {
+            roles.add(authority.getAuthority());
+        }
+        Date now = new Date();
+        return Jwts.builder()
+                .subject(user.getUsername())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_EMAIL, user.getEmail())
+                .claim(CLAIM_ROLES, roles)
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + jwtExpirationMs))
+                .signWith(getSigningKey(), Jwts.SIG.HS256)
+                .compact();
     }
 
     public String generateJwtToken(String username) {
@@ -34,26 +126,24 @@ public class JwtUtils {
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(getSigningKey(), Jwts.SIG.HS256)
                 .compact();
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getPayload()
-                .getSubject();
-    }
-
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Kontrollib tokenit ja tagastab selle sisu ühe parsimisega.
+     * Hiljuti kontrollitud tokenite puhul võetakse sisu vahemälust ilma allkirja uuesti arvutamata.
+     * @param token JWT token
+     * @return Tokeni sisu või tühi, kui token on vigane või aegunud
+     */
+    @Timed(value = "boardshoot.jwt", extraTags = {"operation", "parse"}, description = "JWT parsing time")
+    public Optional<Claims> parseValidatedClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            logger.error("JWT claims string is empty");
+            return Optional.empty();
+        }
         try {
-            Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
+            return Optional.of(parseClaims(token));
         } catch (SignatureException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -65,6 +155,71 @@ public class JwtUtils {
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
-        return false;
+        return Optional.empty();
+    }
+
+    @Timed(value = "boardshoot.jwt", extraTags = {"operation", "get_username"}, description = "JWT parsing time")
+    public String getUserNameFromJwtToken(String token) {
+        return parseClaims(token).getSubject();
+    }
+
+    @Timed(value = "boardshoot.jwt", extraTags = {"operation", "validate"}, description = "JWT parsing time")
+    public boolean validateJwtToken(String authToken) {
+        return parseValidatedClaims(authToken).isPresent();
+    }
+
+    /**
+     * Tagastab tokeni sisu vahemälust või parsib ja kontrollib selle.
+     * Vigase tokeni korral visatakse sama erind nagu parserist.
+     */
+    private Claims parseClaims(String token) {
+        if (jwtCacheSize <= 0 || token == null) {
+            return getParser().parseSignedClaims(token).getPayload();
+        }
+
+        Cache<String, Claims> cache = getVerifiedTokens();
+        Claims claims = cache.getIfPresent(token);
+        if (claims != null) {
+            // Vahemälu aegumine on millisekundi täpsusega, kontrollime igaks juhuks uuesti
+            if (!isExpired(claims)) {
+                return claims;
+            }
+            cache.invalidate(token);
+        }
+
+        claims = getParser().parseSignedClaims(token).getPayload();
+        cache.put(token, claims);
+        return claims;
+    }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    /**
+     * Hoiab tokenit vahemälus kuni selle aegumiseni, kuid mitte kauem kui MAX_CACHED_TOKEN_TTL_MS
+     */
+    private static class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+            long ttlMs = MAX_CACHED_TOKEN_TTL_MS;
+            Date expiration = claims.getExpiration();
+            if (expiration != null) {
+                ttlMs = Math.min(ttlMs, expiration.getTime() - System.currentTimeMillis());
+            }
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
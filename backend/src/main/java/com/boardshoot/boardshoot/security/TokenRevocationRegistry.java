@@ -0,0 +1,166 @@
+package com.boardshoot.boardshoot.security;
+
+import com.boardshoot.boardshoot.model.User;
+import com.boardshoot.boardshoot.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Register kasutajatest, kelle varem väljastatud tokenite sisu ei ole enam ajakohane.
+ * Kustutatud kasutaja (või muudetud parooliga kasutaja) tokenid tühistatakse,
+ * muudetud kasutajanime või e-postiga kasutaja vanemate tokenite puhul kasutatakse uusi andmeid.
+ * Muudatused hoitakse Redis'es tokeni eluea jooksul, seega näevad neid kõik sõlmed ka pärast taaskäivitust.
+ * Iga sõlm hoiab päringute tulemusi lühikest aega kohalikus vahemälus; teise sõlme muudatus jõuab
+ * kohale hiljemalt selle aja möödudes. Kui Redis pole kättesaadav, kontrollitakse vähemalt,
+ * kas kasutaja on andmebaasis alles.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationRegistry.class);
+
+    private static final String KEY_PREFIX = "token-change:";
+
+    @Value("${boardshoot.app.jwtExpirationMs}")
+    private long jwtExpirationMs;
+
+    // Kui kaua sõlm usaldab oma kohalikku teadmist, enne kui Redis'est uuesti küsib
+    @Value("${boardshoot.security.revocation.local-ttl-seconds:30}")
+    private long localTtlSeconds = 30;
+
+    @Autowired
+    @Qualifier("cacheRedisTemplate")
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Cache<Long, Optional<Change>> changes;
+
+    @PostConstruct
+    public void init() {
+        changes = Caffeine.newBuilder()
+                .maximumSize(100000)
+                .expireAfterWrite(localTtlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Tühistab kõik kasutajale seni väljastatud tokenid
+     */
+    public void revokeUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        store(userId, new Change(nowSeconds(), null));
+        logger.info("Revoked tokens issued to user {}", userId);
+    }
+
+    /**
+     * Märgib, et kasutaja andmed muutusid - varem väljastatud tokenid kehtivad edasi, kuid uute andmetega
+     */
+    public void userChanged(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        Optional<Change> previous = load(user.getId());
+        // Tühistamist ei kirjutata üle
+        if (previous.isPresent() && previous.get().isRevoked()) {
+            return;
+        }
+        store(user.getId(), new Change(nowSeconds(), UserDetailsImpl.build(user)));
+        logger.debug("Registered profile change for user {}", user.getId());
+    }
+
+    /**
+     * Tagastab tokeni põhjal loodud kasutaja, uuendatud andmetega kasutaja või null, kui token on tühistatud.
+     * Tokeni väljastamisaeg on sekundi täpsusega, seega muudatuse sekundil väljastatud token loetakse samuti vanaks.
+     */
+    public UserDetailsImpl currentPrincipal(UserDetailsImpl fromToken, Date issuedAt) {
+        Change change = changes.get(fromToken.getId(), this::load).orElse(null);
+        if (change == null) {
+            return fromToken;
+        }
+        if (issuedAt != null && TimeUnit.MILLISECONDS.toSeconds(issuedAt.getTime()) > change.since) {
+            return fromToken;
+        }
+        return change.principal;
+    }
+
+    private void store(Long userId, Change change) {
+        changes.put(userId, Optional.of(change));
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + userId, change.toMap(), jwtExpirationMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Teised sõlmed näevad kustutamist siiski andmebaasi kaudu, kui ka nende Redis'e päring ebaõnnestub
+            logger.error("Could not store token change of user {} in Redis: {}", userId, e.getMessage(), e);
+        }
+    }
+
+    private Optional<Change> load(Long userId) {
+        try {
+            Object value = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+            return value instanceof Map<?, ?> map ? Optional.of(Change.fromMap(userId, map)) : Optional.empty();
+        } catch (Exception e) {
+            logger.warn("Could not read token changes of user {} from Redis, checking the database: {}", userId, e.getMessage());
+            // Kustutatud kasutaja tokenid ei tohi kehtida ka siis, kui Redis on maas
+            return userRepository.existsById(userId) ? Optional.empty() : Optional.of(new Change(nowSeconds(), null));
+        }
+    }
+
+    private static long nowSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
+    private static final class Change {
+        // Aeg sekundites, millest varem väljastatud tokenid on vananenud
+        private final long since;
+        // Uued kasutaja andmed; null tähendab, et tokenid on tühistatud
+        private final UserDetailsImpl principal;
+
+        private Change(long since, UserDetailsImpl principal) {
+            this.since = since;
+            this.principal = principal;
+        }
+
+        private boolean isRevoked() {
+            return principal == null;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("since", since);
+            if (principal != null) {
+                map.put("username", principal.getUsername());
+                map.put("email", principal.getEmail());
+            }
+            return map;
+        }
+
+        private static Change fromMap(Long userId, Map<?, ?> map) {
+            long since = ((Number) map.get("since")).longValue();
+            Object username = map.get("username");
+            if (username == null) {
+                return new Change(since, null);
+            }
+            Object email = map.get("email");
+            return new Change(since, new UserDetailsImpl(userId, username.toString(),
+                    email != null ? email.toString() : null, Collections.emptyList()));
+        }
+    }
+}
@@ -2,11 +2,15 @@ package com.boardshoot.boardshoot.security;
 
 import com.boardshoot.boardshoot.model.User;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 public class UserDetailsImpl implements UserDetails {
     private static final long serialVersionUID = 1L;
@@ -16,6 +20,7 @@ public class UserDetailsImpl implements UserDetails {
     private String email;
     @JsonIgnore
     private String password;
+    private Collection<? extends GrantedAuthority> authorities = Collections.emptyList();
 
     public UserDetailsImpl(Long id, String username, String email, String password) {
         this.id = id;
@@ -24,6 +29,11 @@ public class UserDetailsImpl implements UserDetails {
         this.password = password;
     }
 
+    public UserDetailsImpl(Long id, String username, String email, Collection<? extends GrantedAuthority> authorities) {
+        this(id, username, email, (String) null);
+        this.authorities = authorities;
+    }
+
     public static UserDetailsImpl build(User user) {
         return new UserDetailsImpl(
                 user.getId(),
@@ -32,6 +42,25 @@ public class UserDetailsImpl implements UserDetails {
                 user.getPassword());
     }
 
+    /**
+     * Loob kasutaja otse tokeni sisust ilma andmebaasi pöördumiseta.
+     * Tagastab null, kui token ei sisalda kasutaja ID-d (vanem token).
+     */
+    public static UserDetailsImpl fromClaims(Claims claims) {
+        Long id = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        if (id == null) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        Object roles = claims.get(JwtUtils.CLAIM_ROLES);
+        if (roles instanceof Collection<?> roleNames) {
+            for (Object role : roleNames) {
+                authorities.add(new SimpleGrantedAuthority(role.toString()));
+            }
+        }
+        return new UserDetailsImpl(id, claims.getSubject(), claims.get(JwtUtils.CLAIM_EMAIL, String.class), authorities);
+    }
+
     public Long getId() {
         return id;
     }
@@ -42,7 +71,7 @@ public class UserDetailsImpl implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.emptyList();
+        return authorities;
     }
 
     @Override
@@ -0,0 +1,31 @@
+package com.boardshoot.boardshoot.service;
+
+import java.util.List;
+
+/**
+ * Märkme puhverdatud automaatsalvestust ei õnnestunud andmebaasi kirjutada.
+ * Sisaldab puhverdatud tekste, et klient saaks need pärast märkme uuesti laadimist taastada.
+ */
+public class AutosaveFailedException extends RuntimeException {
+
+    private final List<String> texts;
+    private final boolean conflict;
+
+    public AutosaveFailedException(String message, List<String> texts, boolean conflict) {
+        super(message);
+        this.texts = texts;
+        this.conflict = conflict;
+    }
+
+    public List<String> getTexts() {
+        return texts;
+    }
+
+    /**
+     * true, kui märget muudeti vahepeal mujal ja muudatusi ei saanud automaatselt ühendada;
+     * false, kui kirjutamine ise ebaõnnestus ja seda proovitakse veel
+     */
+    public boolean isConflict() {
+        return conflict;
+    }
+}
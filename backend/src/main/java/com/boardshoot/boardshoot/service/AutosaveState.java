@@ -0,0 +1,26 @@
+package com.boardshoot.boardshoot.service;
+
+import java.util.List;
+
+/**
+ * Märkme automaatsalvestuse puhvri seis: puhverdatud tekstid ja märkme versioon, millele need tuginevad.
+ * Selle versiooniga PATCH ei saa konflikti kliendi enda puhverdatud muudatuste tõttu.
+ */
+public class AutosaveState {
+
+    private final List<String> texts;
+    private final Long version;
+
+    public AutosaveState(List<String> texts, Long version) {
+        this.texts = texts;
+        this.version = version;
+    }
+
+    public List<String> getTexts() {
+        return texts;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
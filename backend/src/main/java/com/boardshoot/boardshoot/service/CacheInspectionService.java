@@ -0,0 +1,126 @@
+package com.boardshoot.boardshoot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Redis'e vahemälu vaatamine SCAN käsu abil. Erinevalt KEYS käsust ei blokeeri SCAN Redis't,
+ * vaid tagastab võtmed väikeste osade kaupa.
+ */
+@Service
+public class CacheInspectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInspectionService.class);
+
+    public static final int MAX_SCAN_COUNT = 10_000;
+    private static final byte[] MEMORY_USAGE = "USAGE".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    @Qualifier("cacheRedisTemplate")
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * Käib läbi mustrile vastavad võtmed ja annab need ükshaaval edasi
+     * @param pattern SCAN MATCH muster, nt "user:*"
+     * @param count Ühe SCAN sammu soovitatud suurus
+     * @param limit Suurim tagastatavate võtmete arv
+     * @return Läbi käidud võtmete arv
+     */
+    public long scanKeys(String pattern, int count, long limit, Consumer<String> sink) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(clampCount(count)).build();
+        long scanned = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (scanned < limit && cursor.hasNext()) {
+                sink.accept(cursor.next());
+                scanned++;
+            }
+        }
+        logger.info("Scanned {} Redis keys matching {}", scanned, pattern);
+        return scanned;
+    }
+
+    /**
+     * Koondab mustrile vastavate võtmete arvu, mälukasutuse ja aegumiste jaotuse eesliidete kaupa.
+     * TTL ja MEMORY USAGE küsitakse iga SCAN sammu võtmete kohta ühe torustatud päringuga.
+     * @param maxKeys Suurim läbi vaadatavate võtmete arv
+     */
+    public Map<String, CachePrefixStats> inspect(String pattern, int count, long maxKeys) {
+        int batchSize = clampCount(count);
+        Map<String, CachePrefixStats> stats = new TreeMap<>();
+        List<String> batch = new ArrayList<>(batchSize);
+        scanKeys(pattern, batchSize, maxKeys, key -> {
+            batch.add(key);
+            if (batch.size() >= batchSize) {
+                collect(batch, stats);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            collect(batch, stats);
+        }
+        return stats;
+    }
+
+    private void collect(List<String> keys, Map<String, CachePrefixStats> stats) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                byte[] rawKey = StringRedisSerializer.UTF_8.serialize(key);
+                connection.keyCommands().ttl(rawKey);
+                connection.execute("MEMORY", MEMORY_USAGE, rawKey);
+            }
+            return null;
+        }, StringRedisSerializer.UTF_8);
+
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            long ttl = toLong(results.get(2 * i));
+            long memory = toLong(results.get(2 * i + 1));
+            if (ttl == -2) {
+                // Võti aegus või kustutati pärast SCAN'i
+                continue;
+            }
+            stats.computeIfAbsent(prefixOf(key), CachePrefixStats::new).add(ttl, memory);
+        }
+    }
+
+    /**
+     * Võtme eesliide kuni esimese kooloni kaasa arvatud; koolonita võtmete eesliide on tühi
+     */
+    static String prefixOf(String key) {
+        int separator = key.indexOf(':');
+        return separator < 0 ? "" : key.substring(0, separator + 1);
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Long.parseLong(text.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int clampCount(int count) {
+        return Math.max(1, Math.min(count, MAX_SCAN_COUNT));
+    }
+}
@@ -0,0 +1,69 @@
+package com.boardshoot.boardshoot.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ühe võtme eesliitega (nt "user:") Redis'e kirjete koondandmed: võtmete arv, mälukasutus ja aegumiste jaotus.
+ */
+public class CachePrefixStats {
+
+    // Aegumise vahemikud sekundites; viimane vahemik on lahtine
+    static final String NO_EXPIRY = "none";
+    private static final long[] TTL_BUCKET_LIMITS = {60, 60 * 60, 24 * 60 * 60};
+    private static final String[] TTL_BUCKET_NAMES = {"<1m", "<1h", "<1d", ">=1d"};
+
+    private final String prefix;
+    private long keys;
+    private long memoryBytes;
+    private final Map<String, Long> ttlDistribution = new LinkedHashMap<>();
+
+    public CachePrefixStats(String prefix) {
+        this.prefix = prefix;
+        ttlDistribution.put(NO_EXPIRY, 0L);
+        for (String bucket : TTL_BUCKET_NAMES) {
+            ttlDistribution.put(bucket, 0L);
+        }
+    }
+
+    /**
+     * Lisab ühe võtme andmed
+     * @param ttlSeconds Redis'e TTL vastus sekundites (-1 ilma aegumiseta)
+     * @param memory MEMORY USAGE vastus baitides või -1, kui see pole teada
+     */
+    void add(long ttlSeconds, long memory) {
+        keys++;
+        if (memory > 0) {
+            memoryBytes += memory;
+        }
+        ttlDistribution.merge(bucketFor(ttlSeconds), 1L, Long::sum);
+    }
+
+    private static String bucketFor(long ttlSeconds) {
+        if (ttlSeconds < 0) {
+            return NO_EXPIRY;
+        }
+        for (int i = 0; i < TTL_BUCKET_LIMITS.length; i++) {
+            if (ttlSeconds < TTL_BUCKET_LIMITS[i]) {
+                return TTL_BUCKET_NAMES[i];
+            }
+        }
+        return TTL_BUCKET_NAMES[TTL_BUCKET_NAMES.length - 1];
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public long getKeys() {
+        return keys;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public Map<String, Long> getTtlDistribution() {
+        return ttlDistribution;
+    }
+}
@@ -0,0 +1,104 @@
+package com.boardshoot.boardshoot.service;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Vahemälus hoitava kasutaja kompaktne binaarne kuju: versioon, ID muutuva pikkusega täisarvuna
+ * ning kasutajanimi ja e-post pikkuse-eesliitega UTF-8 stringidena.
+ * Kogu kirje salvestatakse ühe Redis'e väärtusena, väljade nimesid ega tüübiinfot ei salvestata.
+ */
+public class CompactUserSerializer implements RedisSerializer<Map<String, Object>> {
+
+    private static final byte VERSION = 1;
+
+    @Override
+    public byte[] serialize(Map<String, Object> user) throws SerializationException {
+        if (user == null) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(VERSION);
+        Object id = user.get("id");
+        // 0 tähistab puuduvat ID-d, seega salvestame ID + 1
+        writeVarLong(out, id == null ? 0 : ((Number) id).longValue() + 1);
+        writeString(out, (String) user.get("username"));
+        writeString(out, (String) user.get("email"));
+        return out.toByteArray();
+    }
+
+    @Override
+    public Map<String, Object> deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported cached user version: " + version);
+            }
+            Map<String, Object> user = new HashMap<>(4);
+            long id = readVarLong(in);
+            user.put("id", id == 0 ? null : id - 1);
+            user.put("username", readString(in));
+            user.put("email", readString(in));
+            return Collections.unmodifiableMap(user);
+        } catch (BufferUnderflowException e) {
+            throw new SerializationException("Truncated cached user", e);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        // Pikkus + 1, et eristada tühja stringi ja null'i
+        writeVarLong(out, utf8.length + 1L);
+        out.write(utf8, 0, utf8.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        int size = (int) (length - 1);
+        if (size > in.remaining()) {
+            throw new SerializationException("Truncated cached user");
+        }
+        String value = new String(in.array(), in.position(), size, StandardCharsets.UTF_8);
+        in.position(in.position() + size);
+        return value;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed cached user id");
+    }
+}
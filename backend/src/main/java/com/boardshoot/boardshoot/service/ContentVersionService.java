@@ -0,0 +1,113 @@
+package com.boardshoot.boardshoot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * Kaustade ja märkmete versioonitunnused HTTP ETag päiste jaoks.
+ * Tunnus hoitakse Redis'es samade nimede ja võtmetega nagu {@link EntityCacheService} vahemälud,
+ * nii et tingimusliku päringu kontroll ei pea olemeid andmebaasist laadima.
+ * Muudatuse korral tunnus kustutatakse ja järgmine lugemine loob uue juhusliku tunnuse,
+ * seega ei saa kadunud võtme asemele tekkida kunagi varem väljastatud väärtus.
+ */
+@Service
+public class ContentVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentVersionService.class);
+    private static final String VERSION_KEY_PREFIX = "version:";
+    private static final StringRedisSerializer SERIALIZER = StringRedisSerializer.UTF_8;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    @Qualifier("cacheRedisTemplate")
+    private RedisTemplate<String, Object> redisTemplate;
+
+    // Aegunud tunnus tähendab vaid üht täielikku allalaadimist
+    @Value("${boardshoot.etag.ttl-seconds:86400}")
+    private long ttlSeconds = 86400;
+
+    /**
+     * Tagastab sisu tugeva ETag väärtuse (jutumärkides) või null, kui Redis pole kättesaadav.
+     * Kutsuda enne andmete laadimist, et vastusega ei läheks kaasa uuem tunnus kui andmed.
+     */
+    public String getETag(String cacheName, Object key) {
+        if (key == null) {
+            return null;
+        }
+        byte[] versionKey = SERIALIZER.serialize(versionKey(cacheName, key));
+        try {
+            String version = redisTemplate.execute((RedisCallback<String>) connection -> {
+                byte[] current = connection.stringCommands().get(versionKey);
+                if (current != null) {
+                    return SERIALIZER.deserialize(current);
+                }
+                byte[] created = SERIALIZER.serialize(newVersion());
+                Boolean set = connection.stringCommands().set(versionKey, created,
+                        Expiration.seconds(ttlSeconds), SetOption.ifAbsent());
+                if (Boolean.TRUE.equals(set)) {
+                    return SERIALIZER.deserialize(created);
+                }
+                // Paralleelne päring jõudis tunnuse enne luua
+                return SERIALIZER.deserialize(connection.stringCommands().get(versionKey));
+            });
+            return version != null ? "\"" + version + "\"" : null;
+        } catch (RuntimeException e) {
+            logger.warn("Error reading content version {}::{}: {}", cacheName, key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Muudab sisu versiooni kehtetuks. Aktiivse tehingu korral alles pärast selle kinnitamist,
+     * et uus tunnus ei tekiks enne, kui muudatus on teistele päringutele nähtav.
+     */
+    public void invalidate(String cacheName, Object key) {
+        if (key == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteVersion(cacheName, key);
+                }
+            });
+        } else {
+            deleteVersion(cacheName, key);
+        }
+    }
+
+    private void deleteVersion(String cacheName, Object key) {
+        try {
+            redisTemplate.delete(versionKey(cacheName, key));
+        } catch (RuntimeException e) {
+            // Tunnus aegub hiljemalt ttlSeconds pärast
+            logger.error("Error invalidating content version {}::{}: {}", cacheName, key, e.getMessage(), e);
+        }
+    }
+
+    private String versionKey(String cacheName, Object key) {
+        return VERSION_KEY_PREFIX + cacheName + ":" + key;
+    }
+
+    private String newVersion() {
+        byte[] bytes = new byte[12];
+        random.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+}
@@ -0,0 +1,136 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.NoteImage;
+import com.boardshoot.boardshoot.repository.NoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Viib vanad note_image tabelis olevad base64 data URL-id kohalikku failihoidlasse,
+ * et andmebaasi jääksid ainult lühikesed viited.
+ */
+@Service
+public class DataUrlMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataUrlMigrationService.class);
+    private static final String DATA_URL_PREFIX = "data:";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${boardshoot.blobstore.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (migrateOnStartup) {
+            migrateDataUrls();
+        }
+    }
+
+    /**
+     * Leiab kõik märkmed, mille piltide hulgas on data URL-e, ja viib need ükshaaval hoidlasse.
+     * Iga märge töödeldakse eraldi tehingus, seega katkestatud migratsiooni võib ohutult uuesti käivitada.
+     * @return Migreeritud piltide arv
+     */
+    public int migrateDataUrls() {
+        List<Long> noteIds;
+        try {
+            // Loeme ainult märkmete ID-d, mitte pilte endid
+            noteIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT note_id FROM note_image WHERE url LIKE 'data:%'", Long.class);
+        } catch (DataAccessException e) {
+            logger.warn("Skipping data URL migration: {}", e.getMessage());
+            return 0;
+        }
+
+        if (noteIds.isEmpty()) {
+            logger.info("No data URL images to migrate");
+            return 0;
+        }
+
+        logger.info("Migrating data URL images of {} notes to the local blob store", noteIds.size());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int migrated = 0;
+        for (Long noteId : noteIds) {
+            try {
+                Integer count = transactionTemplate.execute(status -> migrateNote(noteId));
+                migrated += count != null ? count : 0;
+            } catch (Exception e) {
+                logger.error("Error migrating data URL images of note {}: {}", noteId, e.getMessage(), e);
+            }
+        }
+        logger.info("Migrated {} data URL images to the local blob store", migrated);
+        return migrated;
+    }
+
+    private int migrateNote(Long noteId) {
+        Optional<Note> noteOpt = noteRepository.findById(noteId);
+        if (!noteOpt.isPresent()) {
+            return 0;
+        }
+
+        Note note = noteOpt.get();
+        int migrated = 0;
+        for (NoteImage image : note.getImages()) {
+            String imageUrl = image.getUrl();
+            if (imageUrl == null || !imageUrl.startsWith(DATA_URL_PREFIX)) {
+                continue;
+            }
+            byte[] imageData = decodeDataUrl(imageUrl);
+            if (imageData == null) {
+                logger.warn("Unsupported data URL in note {}, leaving it in place", noteId);
+                continue;
+            }
+            String hash = localBlobStore.store(imageData);
+            // Asendame sama pildi URL-i, et pildi ID ja järjekord säiliksid
+            image.setUrl(localBlobStore.urlFor(hash));
+            migrated++;
+        }
+
+        if (migrated > 0) {
+            noteRepository.save(note);
+            entityCacheService.evictNote(note);
+            logger.info("Migrated {} data URL images of note {}", migrated, noteId);
+        }
+        return migrated;
+    }
+
+    private byte[] decodeDataUrl(String dataUrl) {
+        int comma = dataUrl.indexOf(',');
+        if (comma < 0 || !dataUrl.substring(0, comma).endsWith(";base64")) {
+            return null;
+        }
+        try {
+            return Base64.getDecoder().decode(dataUrl.substring(comma + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.Folder;
+import com.boardshoot.boardshoot.model.Note;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Kaustade ja märkmete lugemise vahemälu ühes kohas: lugemine läbi vahemälu ja täpne kustutamine muudatuste korral.
+ * Kui Redis pole kättesaadav, loetakse andmed otse andmebaasist.
+ */
+@Service
+public class EntityCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCacheService.class);
+
+    // Kasutaja kaustade nimekiri kasutaja ID järgi
+    public static final String FOLDERS = "folders";
+    // Üksik märge märkme ID järgi
+    public static final String NOTES = "notes";
+    // Kausta märkmete nimekiri kausta ID järgi
+    public static final String FOLDER_NOTES = "folderNotes";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ContentVersionService contentVersionService;
+
+    public List<Folder> getFolders(Long userId, Supplier<List<Folder>> loader) {
+        return getOrLoad(FOLDERS, userId, loader);
+    }
+
+    public Note getNote(Long noteId, Supplier<Note> loader) {
+        return getOrLoad(NOTES, noteId, loader);
+    }
+
+    public List<Note> getFolderNotes(Long folderId, Supplier<List<Note>> loader) {
+        return getOrLoad(FOLDER_NOTES, folderId, loader);
+    }
+
+    /**
+     * Kustutab märkme ja selle kausta märkmete nimekirja
+     */
+    public void evictNote(Note note) {
+        evict(NOTES, note.getId());
+        if (note.getFolder() != null) {
+            evict(FOLDER_NOTES, note.getFolder().getId());
+        }
+    }
+
+    public void evictFolderNotes(Long folderId) {
+        evict(FOLDER_NOTES, folderId);
+    }
+
+    /**
+     * Kustutab kausta märkmete nimekirja ja antud märkmed (märkmete hulgitoimingute järel)
+     */
+    public void evictNotes(Long folderId, Collection<Long> noteIds) {
+        evict(FOLDER_NOTES, folderId);
+        for (Long noteId : noteIds) {
+            evict(NOTES, noteId);
+        }
+    }
+
+    public void evictFolders(Long userId) {
+        evict(FOLDERS, userId);
+    }
+
+    /**
+     * Kustutab kausta, selle märkmete nimekirja ja kõik selle märkmed
+     */
+    public void evictFolder(Folder folder, List<Long> noteIds) {
+        if (folder.getUser() != null) {
+            evict(FOLDERS, folder.getUser().getId());
+        }
+        evict(FOLDER_NOTES, folder.getId());
+        for (Long noteId : noteIds) {
+            evict(NOTES, noteId);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getOrLoad(String cacheName, Object key, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return loader.get();
+        }
+        try {
+            Cache.ValueWrapper cached = cache.get(key);
+            if (cached != null && cached.get() != null) {
+                logger.debug("Cache hit {}::{}", cacheName, key);
+                return (T) cached.get();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Error reading cache {}::{}, loading from database: {}", cacheName, key, e.getMessage());
+            return loader.get();
+        }
+
+        T value = loader.get();
+        if (value != null) {
+            try {
+                cache.put(key, value);
+            } catch (RuntimeException e) {
+                logger.warn("Error writing cache {}::{}: {}", cacheName, key, e.getMessage());
+            }
+        }
+        return value;
+    }
+
+    private void evict(String cacheName, Object key) {
+        if (key == null) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            try {
+                cache.evict(key);
+            } catch (RuntimeException e) {
+                // Kirje aegub hiljemalt vahemälu eluea lõpus
+                logger.error("Error evicting cache {}::{}: {}", cacheName, key, e.getMessage(), e);
+            }
+        }
+        // Versioon muudetakse kehtetuks pärast vahemälu kirjet (ka tehingu järel samas järjekorras),
+        // et uue ETag-iga ei saaks kaasa vahemälust loetud vana sisu
+        contentVersionService.invalidate(cacheName, key);
+    }
+}
@@ -3,12 +3,17 @@ package com.boardshoot.boardshoot.service;
 import com.boardshoot.boardshoot.model.Folder;
 import com.boardshoot.boardshoot.model.User;
 import com.boardshoot.boardshoot.repository.FolderRepository;
+import com.boardshoot.boardshoot.repository.NoteRepository;
 import com.boardshoot.boardshoot.repository.UserRepository;
 import com.boardshoot.boardshoot.security.UserDetailsImpl;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,6 +21,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(value = "boardshoot.service", description = "Service method execution time")
 public class FolderService {
     
     private static final Logger logger = LoggerFactory.getLogger(FolderService.class);
@@ -26,6 +32,21 @@ public class FolderService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private NoteRepository noteRepository;
+    
+    @Autowired
+    private EntityCacheService entityCacheService;
+    
+    @Autowired
+    private ContentVersionService contentVersionService;
+    
+    @Autowired
+    private StorageDeletionService storageDeletionService;
+    
+    @Autowired
+    private NoteAutosaveService noteAutosaveService;
+    
     // Testimisloogika - kasutame fikseeritud kasutaja ID-d ainult kui autentimine puudub
     private static final Long TEST_USER_ID = 1L;
     
@@ -33,20 +54,27 @@ public class FolderService {
         try {
             Long userId = getCurrentUserId();
             logger.info("Fetching folders for user {}", userId);
-            return folderRepository.findByUserId(userId);
+            return entityCacheService.getFolders(userId, () -> folderRepository.findByUserId(userId));
         } catch (Exception e) {
             logger.error("Error in getCurrentUserFolders", e);
             throw e;
         }
     }
     
+    /**
+     * Tagastab praeguse kasutaja kaustade nimekirja ETag väärtuse või null, kui versiooni pole võimalik lugeda
+     */
+    public String getCurrentUserFoldersETag() {
+        return contentVersionService.getETag(EntityCacheService.FOLDERS, getCurrentUserId());
+    }
+    
     /**
      * Tagastab kaustad konkreetse kasutaja ID järgi - testimiseks
      */
     public List<Folder> getUserFolders(Long userId) {
         try {
             logger.info("Fetching folders for user ID {}", userId);
-            return folderRepository.findByUserId(userId);
+            return entityCacheService.getFolders(userId, () -> folderRepository.findByUserId(userId));
         } catch (Exception e) {
             logger.error("Error in getUserFolders", e);
             throw e;
@@ -90,6 +118,7 @@ public class FolderService {
             folder.setUser(user);
             
             folder = folderRepository.save(folder);
+            entityCacheService.evictFolders(userId);
             logger.info("Created folder with ID: {} for user ID: {}", folder.getId(), userId);
             
             return folder;
@@ -101,9 +130,12 @@ public class FolderService {
     
     /**
      * Kustutab kausta ja kõik sellega seotud märkmed.
+     * Märkmeid mällu ei laadita: read kustutatakse mõne hulgilausega (pildid, märkmed koos tekstidega, kaust)
+     * ja piltide failid lisatakse storage'i kustutamisjärjekorda.
      * @param folderId Kausta ID, mida soovitakse kustutada
      * @return true, kui kustutamine õnnestus
      */
+    @Transactional
     public boolean deleteFolder(Long folderId) {
         try {
             Long userId = getCurrentUserId();
@@ -116,9 +148,24 @@ public class FolderService {
                 throw new RuntimeException("Folder not found or does not belong to you");
             }
             
-            // Kustutame kausta (koos märkmetega tänu CascadeType.ALL ja orphanRemoval=true)
-            folderRepository.delete(folderOpt.get());
-            logger.info("Successfully deleted folder {} with all its notes", folderId);
+            Folder folder = folderOpt.get();
+            // Märkmete ID-d on vaja ainult vahemälu tühjendamiseks
+            List<Long> noteIds = noteRepository.findIdsByFolderId(folderId);
+            int queued = storageDeletionService.enqueueFolderImages(folderId);
+            
+            // Pildid enne märkmeid ja märkmed enne kausta, et välisvõtmed ei takistaks kustutamist
+            noteRepository.deleteImagesByFolderId(folderId);
+            int deletedNotes = noteRepository.deleteByFolderId(folderId);
+            folderRepository.deleteFolderById(folderId);
+            entityCacheService.evictFolder(folder, noteIds);
+            // Märkmete puhverdatud muudatustest loobutakse alles siis, kui kustutamine on kinnitatud
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    noteAutosaveService.discardFolder(folderId);
+                }
+            });
+            logger.info("Successfully deleted folder {} with {} notes, {} storage objects queued for deletion", folderId, deletedNotes, queued);
             
             return true;
         } catch (Exception e) {
@@ -0,0 +1,168 @@
+package com.boardshoot.boardshoot.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.relational.QualifiedName;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Olemite võtmejadade hooldus.
+ * Enne jadade kasutuselevõttu loodud ridadel on IDENTITY võtmed, seega seatakse käivitamisel iga jada
+ * tabeli suurimast võtmest kaugemale. Kontroll on korduval käivitamisel ohutu: juba ees olevat jada ei muudeta.
+ * Andmebaasides, kus jadasid pole (MySQL), kasutab Hibernate jada asemel tabelit ja seda uuendatakse samamoodi.
+ */
+@Service
+public class IdSequenceService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceService.class);
+
+    // Hibernate'i jadatabeli väärtusveeru vaikenimi
+    private static final String TABLE_VALUE_COLUMN = "next_val";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${boardshoot.migrations.align-id-sequences-on-startup:true}")
+    private boolean alignOnStartup;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (alignOnStartup) {
+            alignAll();
+        }
+    }
+
+    /**
+     * Seab kõigi jadaga olemite jadad nende tabelite suurimast võtmest kaugemale
+     * @return Ümber seatud jadade arv
+     */
+    public int alignAll() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        List<EntityPersister> persisters = new ArrayList<>();
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persisters::add);
+
+        int aligned = 0;
+        for (EntityPersister persister : persisters) {
+            if (align(sessionFactory, persister)) {
+                aligned++;
+            }
+        }
+        return aligned;
+    }
+
+    /**
+     * Seab olemi jada tabeli suurimast võtmest kaugemale (nt pärast ridade lisamist otse SQL-iga)
+     * @return true, kui jada seati ümber
+     */
+    public boolean align(Class<?> entityClass) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        return align(sessionFactory, sessionFactory.getMappingMetamodel().getEntityDescriptor(entityClass));
+    }
+
+    /**
+     * Võtab olemi jadast uued võtmed ridade lisamiseks otse SQL-iga, Hibernate'ist mööda minnes.
+     * Iga jada päring annab terve ploki võtmeid, seega on päringuid count / allocationSize.
+     */
+    public List<Long> allocateIds(Class<?> entityClass, int count) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        DatabaseStructure structure = databaseStructure(sessionFactory.getMappingMetamodel().getEntityDescriptor(entityClass));
+        if (structure == null) {
+            throw new IllegalArgumentException(entityClass.getSimpleName() + " does not use a sequence for its ids");
+        }
+
+        int increment = structure.getIncrementSize();
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            // Jada väärtus on ploki suurim võti (Hibernate'i "pooled" optimeerija); värske jada esimene väärtus on 1
+            long hi = nextValue(sessionFactory, structure);
+            for (long id = Math.max(1, hi - increment + 1); id <= hi && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private boolean align(SessionFactoryImplementor sessionFactory, EntityPersister persister) {
+        DatabaseStructure structure = databaseStructure(persister);
+        if (structure == null || !(persister instanceof AbstractEntityPersister entityPersister)) {
+            return false;
+        }
+
+        String table = entityPersister.getTableName();
+        String sequence = render(sessionFactory, structure.getPhysicalName());
+        try {
+            Long max = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(" + entityPersister.getIdentifierColumnNames()[0] + "), 0) FROM " + table, Long.class);
+            if (max == null || max == 0) {
+                return false;
+            }
+
+            int increment = structure.getIncrementSize();
+            // Esimene võti, mille järgmine plokk annaks, peab olema suurem kui tabeli suurim võti
+            long restartValue = max + increment + 1;
+            if (structure.isPhysicalSequence()) {
+                long next = nextValue(sessionFactory, structure);
+                if (next - increment + 1 > max) {
+                    return false;
+                }
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restartValue);
+            } else {
+                int updated = jdbcTemplate.update(
+                    "UPDATE " + sequence + " SET " + TABLE_VALUE_COLUMN + " = ? WHERE " + TABLE_VALUE_COLUMN + " < ?",
+                    restartValue, restartValue);
+                if (updated == 0) {
+                    return false;
+                }
+            }
+            logger.info("Moved id sequence {} past existing {} rows (max id {})", sequence, table, max);
+            return true;
+        } catch (DataAccessException e) {
+            logger.warn("Could not align id sequence {} of table {}: {}", sequence, table, e.getMessage());
+            return false;
+        }
+    }
+
+    private long nextValue(SessionFactoryImplementor sessionFactory, DatabaseStructure structure) {
+        String name = render(sessionFactory, structure.getPhysicalName());
+        if (structure.isPhysicalSequence()) {
+            Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+            Long value = jdbcTemplate.queryForObject(dialect.getSequenceSupport().getSequenceNextValString(name), Long.class);
+            return value != null ? value : 0;
+        }
+        // Jadatabelis hoitakse järgmist väärtust; uuendus lukustab rea kuni tehingu lõpuni
+        int increment = structure.getIncrementSize();
+        jdbcTemplate.update("UPDATE " + name + " SET " + TABLE_VALUE_COLUMN + " = " + TABLE_VALUE_COLUMN + " + ?", increment);
+        Long value = jdbcTemplate.queryForObject("SELECT " + TABLE_VALUE_COLUMN + " FROM " + name, Long.class);
+        return value != null ? value - increment : 0;
+    }
+
+    private static DatabaseStructure databaseStructure(EntityPersister persister) {
+        if (persister.getGenerator() instanceof SequenceStyleGenerator generator) {
+            return generator.getDatabaseStructure();
+        }
+        return null;
+    }
+
+    private static String render(SessionFactoryImplementor sessionFactory, QualifiedName name) {
+        return sessionFactory.getJdbcServices().getJdbcEnvironment().getQualifiedObjectNameFormatter()
+            .format(name, sessionFactory.getJdbcServices().getDialect());
+    }
+}
@@ -0,0 +1,258 @@
+package com.boardshoot.boardshoot.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loob üles laaditud piltidest väiksemad variandid (pisipilt ja eelvaade).
+ * Töötlus toimub protsessorituumade arvuga piiratud lõimekogumis.
+ */
+@Service
+public class ImageProcessingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageProcessingService.class);
+
+    /**
+     * Pildi suurusvariandid; max on pikema külje maksimaalne pikkus pikslites
+     */
+    public enum ImageVariant {
+        THUMBNAIL(256, "thumb"),
+        PREVIEW(1024, "preview");
+
+        private final int max;
+        private final String suffix;
+
+        ImageVariant(int max, String suffix) {
+            this.max = max;
+            this.suffix = suffix;
+        }
+
+        public int getMax() {
+            return max;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+    }
+
+    // 0 tähendab protsessorituumade arvu
+    @Value("${boardshoot.images.processing-threads:0}")
+    private int processingThreads;
+
+    @Value("${boardshoot.images.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    private ThreadPoolExecutor processingPool;
+
+    @PostConstruct
+    public void start() {
+        int threads = processingThreads > 0 ? processingThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        processingPool = new ThreadPoolExecutor(
+            threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * 16),
+            runnable -> {
+                Thread thread = new Thread(runnable, "image-processing-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // Täis järjekorra korral teeb töö ära kutsuja lõim - see piirab koormust loomulikult
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        logger.info("Image processing pool started with {} threads", threads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        processingPool.shutdown();
+    }
+
+    /**
+     * Loob variandid baitmaatriksina antud pildist taustalõimes
+     */
+    public CompletableFuture<Map<ImageVariant, byte[]>> createVariantsAsync(byte[] imageData) {
+        return CompletableFuture.supplyAsync(() -> createVariants(() -> ImageIO.createImageInputStream(new ByteArrayInputStream(imageData))),
+            processingPool);
+    }
+
+    /**
+     * Loob variandid failis olevast pildist taustalõimes
+     */
+    public CompletableFuture<Map<ImageVariant, byte[]>> createVariantsAsync(Path imageFile) {
+        return CompletableFuture.supplyAsync(() -> createVariants(() -> ImageIO.createImageInputStream(imageFile.toFile())),
+            processingPool);
+    }
+
+    @FunctionalInterface
+    interface ImageSource {
+        ImageInputStream open() throws IOException;
+    }
+
+    /**
+     * Tagastab ainult need variandid, mis on originaalist väiksemad.
+     * Kui pildivormingut ei toeta ImageIO (nt HEIC), tagastatakse tühi tulemus.
+     */
+    private Map<ImageVariant, byte[]> createVariants(ImageSource source) {
+        Map<ImageVariant, byte[]> variants = new EnumMap<>(ImageVariant.class);
+        long start = System.nanoTime();
+        try {
+            int longestSide = longestSide(source);
+            if (longestSide < 0) {
+                logger.warn("Unsupported image format, no variants created");
+                return variants;
+            }
+
+            // Dekodeerime pildi ühe korra suurima vajaliku variandi jaoks
+            int largestTarget = 0;
+            for (ImageVariant variant : ImageVariant.values()) {
+                if (longestSide > variant.getMax()) {
+                    largestTarget = Math.max(largestTarget, variant.getMax());
+                }
+            }
+            if (largestTarget == 0) {
+                // Originaal on juba pisipildist väiksem - variante pole vaja
+                return variants;
+            }
+
+            BufferedImage decoded = decode(source, longestSide, largestTarget);
+            for (ImageVariant variant : ImageVariant.values()) {
+                if (longestSide > variant.getMax()) {
+                    variants.put(variant, encodeJpeg(scale(decoded, variant.getMax())));
+                }
+            }
+            logger.debug("Created {} image variants in {} ms", variants.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error creating image variants: {}", e.getMessage(), e);
+            variants.clear();
+        }
+        return variants;
+    }
+
+    /**
+     * Loeb pildi päisest pikema külje pikkuse; -1, kui vormingut ei toetata
+     */
+    private int longestSide(ImageSource source) throws IOException {
+        try (ImageInputStream in = source.open()) {
+            ImageReader reader = readerFor(in);
+            if (reader == null) {
+                return -1;
+            }
+            try {
+                reader.setInput(in, true, true);
+                return Math.max(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Dekodeerib pildi alamdiskreetimisega, et mällu ei loetaks täissuuruses bitmap'i.
+     * Dekodeeritud pilt on vähemalt kaks korda sihtsuurusest suurem, et skaleerimine jääks kvaliteetseks.
+     */
+    BufferedImage decode(ImageSource source, int longestSide, int max) throws IOException {
+        try (ImageInputStream in = source.open()) {
+            ImageReader reader = readerFor(in);
+            if (reader == null) {
+                throw new IOException("No image reader available");
+            }
+            try {
+                reader.setInput(in, true, true);
+                int subsampling = Math.max(1, longestSide / (max * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private ImageReader readerFor(ImageInputStream in) {
+        if (in == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        return readers.hasNext() ? readers.next() : null;
+    }
+
+    /**
+     * Vähendab pilti järk-järgult poole kaupa ja viimase sammuna täpselt sihtsuuruseni,
+     * et bilineaarne interpolatsioon ei tekitaks suurel vähendamisel moonutusi
+     */
+    private BufferedImage scale(BufferedImage image, int max) {
+        double ratio = Math.min(1.0, (double) max / Math.max(image.getWidth(), image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = resize(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private BufferedImage resize(BufferedImage image, int width, int height) {
+        // JPEG ei toeta läbipaistvust, seega joonistame valgele taustale
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
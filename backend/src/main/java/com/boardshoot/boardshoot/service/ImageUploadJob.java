@@ -0,0 +1,122 @@
+package com.boardshoot.boardshoot.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Asünkroonse pildi üleslaadimise töö olek
+ */
+public class ImageUploadJob {
+
+    public enum Status {
+        PENDING,
+        UPLOADING,
+        RETRYING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final Long noteId;
+    private final Instant createdAt;
+    @JsonIgnore
+    private final Path stagedFile;
+    @JsonIgnore
+    private final MediaType contentType;
+    @JsonIgnore
+    private final long contentLength;
+
+    private volatile Status status = Status.PENDING;
+    private volatile int attempts;
+    private volatile String imageUrl;
+    private volatile String error;
+    private volatile Instant updatedAt;
+
+    public ImageUploadJob(String id, Long noteId, Path stagedFile, long contentLength, MediaType contentType) {
+        this.id = id;
+        this.noteId = noteId;
+        this.stagedFile = stagedFile;
+        this.contentLength = contentLength;
+        this.contentType = contentType;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Path getStagedFile() {
+        return stagedFile;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public MediaType getContentType() {
+        return contentType;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void startAttempt() {
+        attempts++;
+        update(Status.UPLOADING);
+    }
+
+    void retrying(String error) {
+        this.error = error;
+        update(Status.RETRYING);
+    }
+
+    void completed(String imageUrl) {
+        this.imageUrl = imageUrl;
+        this.error = null;
+        update(Status.COMPLETED);
+    }
+
+    void failed(String error) {
+        this.error = error;
+        update(Status.FAILED);
+    }
+
+    private void update(Status status) {
+        this.status = status;
+        this.updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,248 @@
+package com.boardshoot.boardshoot.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asünkroonne piltide üleslaadimine: pilt salvestatakse kohalikku ooteala kausta,
+ * piiratud suurusega töötajate kogum laadib selle salvestusse ja lisab URL-i märkmele.
+ * Ebaõnnestunud katseid korratakse kasvava ooteajaga.
+ */
+@Service
+public class ImageUploadJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageUploadJobService.class);
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${boardshoot.upload.staging-dir:${java.io.tmpdir}/boardshoot-staging}")
+    private String stagingDir;
+
+    @Value("${boardshoot.upload.workers:4}")
+    private int workers;
+
+    @Value("${boardshoot.upload.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${boardshoot.upload.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${boardshoot.upload.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${boardshoot.upload.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    // Kui kaua lõpetatud töö olekut pärimiseks alles hoitakse
+    @Value("${boardshoot.upload.job-retention-ms:3600000}")
+    private long jobRetentionMs;
+
+    private final Map<String, ImageUploadJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor workerPool;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger workerCount = new AtomicInteger();
+        workerPool = new ThreadPoolExecutor(
+            workers, workers, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "image-upload-" + workerCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-upload-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::purgeFinishedJobs, 1, 1, TimeUnit.MINUTES);
+        Gauge.builder("boardshoot.upload.queue.size", workerPool, pool -> pool.getQueue().size())
+            .description("Image upload jobs waiting for a worker")
+            .register(meterRegistry);
+        Gauge.builder("boardshoot.upload.jobs.active", workerPool, ThreadPoolExecutor::getActiveCount)
+            .description("Image upload jobs currently being processed")
+            .register(meterRegistry);
+        logger.info("Image upload pipeline started with {} workers and queue capacity {}", workers, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        workerPool.shutdown();
+    }
+
+    /**
+     * Salvestab pildi ooteala kausta ja järjestab üleslaadimise töö.
+     * @return Loodud töö
+     * @throws RejectedExecutionException kui järjekord on täis
+     */
+    public ImageUploadJob submit(Long noteId, InputStream imageStream, long contentLength, MediaType contentType) {
+        // Kontrollime enne pildi vastuvõtmist, et märge on olemas
+        noteService.getNote(noteId);
+
+        if (workerPool.getQueue().remainingCapacity() == 0) {
+            logger.warn("Image upload queue is full, rejecting upload for note {}", noteId);
+            throw new RejectedExecutionException("Image upload queue is full");
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        Path stagedFile = stage(jobId, imageStream);
+        long stagedSize = contentLength;
+        try {
+            stagedSize = Files.size(stagedFile);
+        } catch (IOException e) {
+            logger.warn("Could not read staged file size for job {}: {}", jobId, e.getMessage());
+        }
+
+        ImageUploadJob job = new ImageUploadJob(jobId, noteId, stagedFile, stagedSize, contentType);
+        jobs.put(jobId, job);
+        try {
+            workerPool.execute(() -> process(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            deleteStagedFile(job);
+            throw e;
+        }
+        logger.info("Queued image upload job {} for note {} ({} bytes)", jobId, noteId, stagedSize);
+        return job;
+    }
+
+    public Optional<ImageUploadJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private Path stage(String jobId, InputStream imageStream) {
+        try {
+            Path dir = Paths.get(stagingDir);
+            Files.createDirectories(dir);
+            Path stagedFile = dir.resolve(jobId + ".upload");
+            Files.copy(imageStream, stagedFile, StandardCopyOption.REPLACE_EXISTING);
+            return stagedFile;
+        } catch (IOException e) {
+            logger.error("Error staging image for job {}: {}", jobId, e.getMessage(), e);
+            throw new UncheckedIOException("Could not stage image", e);
+        }
+    }
+
+    private void process(ImageUploadJob job) {
+        job.startAttempt();
+        logger.info("Uploading image for job {} (attempt {}/{})", job.getId(), job.getAttempts(), maxAttempts);
+
+        StoredImage image;
+        try {
+            image = storageService.storeImage(job.getStagedFile(), job.getContentLength(), job.getContentType(), job.getNoteId());
+        } catch (Exception e) {
+            handleUploadFailure(job, e);
+            return;
+        }
+        attach(job, image);
+    }
+
+    private void handleUploadFailure(ImageUploadJob job, Exception e) {
+        if (job.getAttempts() < maxAttempts) {
+            long delay = backoffDelay(job.getAttempts());
+            logger.warn("Upload attempt {} for job {} failed: {}. Retrying in {} ms",
+                job.getAttempts(), job.getId(), e.getMessage(), delay);
+            job.retrying(e.getMessage());
+            meterRegistry.counter("boardshoot.upload.jobs", "status", "retried").increment();
+            scheduler.schedule(() -> resubmit(job), delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        // Korduskatsed said otsa - nagu sünkroonses teekonnas, salvestame pildi kohalikku hoidlasse
+        logger.error("Upload for job {} failed after {} attempts, falling back to local blob store", job.getId(), job.getAttempts());
+        try (InputStream in = Files.newInputStream(job.getStagedFile())) {
+            attach(job, new StoredImage(localBlobStore.urlFor(localBlobStore.store(in)), null, null));
+        } catch (Exception fallbackError) {
+            logger.error("Local blob store fallback failed for job {}: {}", job.getId(), fallbackError.getMessage(), fallbackError);
+            job.failed(fallbackError.getMessage());
+            meterRegistry.counter("boardshoot.upload.jobs", "status", "failed").increment();
+            deleteStagedFile(job);
+        }
+    }
+
+    private void resubmit(ImageUploadJob job) {
+        try {
+            workerPool.execute(() -> process(job));
+        } catch (RejectedExecutionException e) {
+            // Järjekord on täis - proovime hiljem uuesti, katset ei loeta
+            scheduler.schedule(() -> resubmit(job), initialBackoffMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void attach(ImageUploadJob job, StoredImage image) {
+        try {
+            noteService.attachImage(job.getNoteId(), image);
+            job.completed(image.getOriginalUrl());
+            meterRegistry.counter("boardshoot.upload.jobs", "status", "completed").increment();
+            logger.info("Image upload job {} completed: {}", job.getId(), image.getOriginalUrl());
+        } catch (Exception e) {
+            // Märge võib olla vahepeal kustutatud - seda ei ole mõtet korrata
+            logger.error("Could not attach image to note {} for job {}: {}", job.getNoteId(), job.getId(), e.getMessage(), e);
+            job.failed(e.getMessage());
+            meterRegistry.counter("boardshoot.upload.jobs", "status", "failed").increment();
+        } finally {
+            deleteStagedFile(job);
+        }
+    }
+
+    long backoffDelay(int attempt) {
+        long delay = initialBackoffMs << Math.min(attempt - 1, 20);
+        return Math.min(delay, maxBackoffMs);
+    }
+
+    private void deleteStagedFile(ImageUploadJob job) {
+        try {
+            Files.deleteIfExists(job.getStagedFile());
+        } catch (IOException e) {
+            logger.warn("Could not delete staged file {}: {}", job.getStagedFile(), e.getMessage());
+        }
+    }
+
+    void purgeFinishedJobs() {
+        Instant cutoff = Instant.now().minusMillis(jobRetentionMs);
+        jobs.values().removeIf(job -> job.isFinished() && job.getUpdatedAt().isBefore(cutoff));
+    }
+}
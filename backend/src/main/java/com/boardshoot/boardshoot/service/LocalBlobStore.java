@@ -0,0 +1,193 @@
+package com.boardshoot.boardshoot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Kohalik sisupõhine failihoidla piltidele, mida ei õnnestunud Supabase'i üles laadida.
+ * Iga fail salvestatakse kettale SHA-256 räsi järgi, andmebaasi jääb ainult lühike URL.
+ * <p>
+ * Pildi või märkme kustutamisel faile siit ei kustutata: sama sisuga fail võib kuuluda mitmele
+ * märkmele ja baasaadress võib olla pärast salvestamist muutunud, seega ei saa URL-i järgi
+ * ohutult otsustada, et failile enam ei viidata. Kasutamata failide koristamine vajab
+ * eraldi viidete kontrolliga puhastust.
+ */
+@Service
+public class LocalBlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalBlobStore.class);
+
+    public static final String BLOB_PATH = "/api/blobs/";
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${boardshoot.blobstore.dir:${java.io.tmpdir}/boardshoot-blobs}")
+    private String blobDir;
+
+    // Avalik baasaadress (nt https://api.example.com); tühja väärtuse korral salvestatakse suhteline URL
+    @Value("${boardshoot.blobstore.base-url:}")
+    private String baseUrl;
+
+    /**
+     * Salvestab baitmaatriksi hoidlasse ja tagastab selle räsi
+     */
+    public String store(byte[] data) {
+        try (InputStream in = new ByteArrayInputStream(data)) {
+            return store(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Salvestab voo sisu hoidlasse ja tagastab selle räsi.
+     * Voog kirjutatakse esmalt ajutisse faili, räsi arvutatakse kirjutamise käigus.
+     */
+    public String store(InputStream in) throws IOException {
+        Path root = root();
+        Files.createDirectories(root);
+        Path tempFile = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tempFile), digest)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathFor(hash);
+            if (Files.exists(target)) {
+                logger.debug("Blob {} already stored", hash);
+                return hash;
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Sama sisu salvestati samal ajal teise päringu poolt
+                logger.debug("Blob {} stored concurrently", hash);
+            }
+            logger.info("Stored blob {} ({} bytes)", hash, Files.size(target));
+            return hash;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Tagastab blobi faili, kui see on olemas
+     */
+    public Optional<Path> find(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathFor(hash);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Kustutab blobi hoidlast
+     */
+    public boolean delete(String hash) {
+        try {
+            Optional<Path> path = find(hash);
+            return path.isPresent() && Files.deleteIfExists(path.get());
+        } catch (IOException e) {
+            logger.error("Error deleting blob {}: {}", hash, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Tagastab URL-i, mille kaudu blobi saab alla laadida
+     */
+    public String urlFor(String hash) {
+        return baseUrl + BLOB_PATH + hash;
+    }
+
+    /**
+     * Kontrollib, kas URL viitab kohalikule hoidlale
+     */
+    public boolean isBlobUrl(String url) {
+        return hashFromUrl(url) != null;
+    }
+
+    /**
+     * Tagastab URL-ist blobi räsi või null, kui tegemist pole hoidla URL-iga
+     */
+    public String hashFromUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        int index = url.indexOf(BLOB_PATH);
+        if (index < 0 || !url.startsWith(baseUrl)) {
+            return null;
+        }
+        String hash = url.substring(index + BLOB_PATH.length());
+        return HASH_PATTERN.matcher(hash).matches() ? hash : null;
+    }
+
+    /**
+     * Tuvastab pildi tüübi faili esimeste baitide järgi
+     */
+    public MediaType detectContentType(Path path) throws IOException {
+        byte[] header = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(path)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        if (read >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return MediaType.IMAGE_PNG;
+        }
+        if (read >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F') {
+            return MediaType.IMAGE_GIF;
+        }
+        if (read >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return MediaType.parseMediaType("image/webp");
+        }
+        if (read >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8) {
+            return MediaType.IMAGE_JPEG;
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    private Path root() {
+        return Paths.get(blobDir);
+    }
+
+    // Jaotame failid kahetäheliste alamkaustade vahel, et ükski kaust ei kasvaks liiga suureks
+    private Path pathFor(String hash) {
+        return root().resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.Note;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Märkmete teksti automaatsalvestuse puhver (write-behind): muudatused rakendatakse mälus olevale
+ * tekstile ja kirjutatakse andmebaasi alles siis, kui kasutaja on hetke vaikinud või puhver on
+ * olnud liiga kaua kirjutamata. Nii asendab üks kirjutus kümneid järjestikuseid salvestusi.
+ * Puhver on sõlmepõhine; märkme lugemine tühjendab selle märkme puhvri enne vastamist.
+ * Puhver kirjutatakse versiooniga, millele see tugineb. Kui märget on vahepeal mujal muudetud,
+ * ühendatakse puhver uue sisuga tekstide kaupa; kui sama teksti on muudetud mõlemal pool,
+ * antakse konfliktist teada järgmisel automaatsalvestusel.
+ */
+@Service
+public class NoteAutosaveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteAutosaveService.class);
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Kui tihti kontrollitakse, kas mõni puhver on kirjutamiseks valmis
+    @Value("${boardshoot.autosave.check-interval-ms:1000}")
+    private long checkIntervalMs = 1000;
+
+    // Kirjutame, kui märget pole nii kaua muudetud
+    @Value("${boardshoot.autosave.idle-ms:5000}")
+    private long idleMs = 5000;
+
+    // Pideva muutmise korral kirjutame vähemalt nii tihti
+    @Value("${boardshoot.autosave.max-delay-ms:30000}")
+    private long maxDelayMs = 30000;
+
+    // Mitu ebaõnnestunud kirjutust järjest, enne kui uued automaatsalvestused tagasi lükatakse.
+    // Puhvrit ei loobuta, kirjutamist proovitakse edasi.
+    @Value("${boardshoot.autosave.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    // Esimese korduskatse viivitus; iga järgmine katse ootab kaks korda kauem
+    @Value("${boardshoot.autosave.retry-delay-ms:5000}")
+    private long retryDelayMs = 5000;
+
+    // Kui kaua mäletatakse automaatsalvestuse kirjutatud versioone kliendi PATCH-i jaoks
+    @Value("${boardshoot.autosave.version-history-ms:3600000}")
+    private long versionHistoryMs = 3600000;
+
+    private final Map<Long, PendingText> pending = new ConcurrentHashMap<>();
+
+    // Märkme ID -> automaatsalvestuse kirjutused (versioon enne kirjutust -> versioon pärast)
+    private Cache<Long, Map<Long, Long>> autosaveWrites;
+
+    private ScheduledExecutorService scheduler;
+    private Counter editsReceived;
+    private Counter flushesWritten;
+
+    @PostConstruct
+    public void start() {
+        autosaveWrites = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(versionHistoryMs))
+            .maximumSize(10000)
+            .build();
+        editsReceived = Counter.builder("boardshoot.autosave.edits")
+            .description("Autosave requests buffered")
+            .register(meterRegistry);
+        flushesWritten = Counter.builder("boardshoot.autosave.flushes")
+            .description("Buffered autosaves written to the database")
+            .register(meterRegistry);
+        Gauge.builder("boardshoot.autosave.pending", pending, Map::size)
+            .description("Notes with buffered autosave state")
+            .register(meterRegistry);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "note-autosave-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushDue, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Note autosave buffer started: idle {} ms, max delay {} ms", idleMs, maxDelayMs);
+    }
+
+    /**
+     * Rakenduse sulgemisel kirjutatakse kõik puhverdatud muudatused andmebaasi
+     */
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        flushAll();
+    }
+
+    /**
+     * Rakendab muudatused märkme puhverdatud tekstile. Esimene muudatus laadib märkme praeguse teksti.
+     * Muudatused rakenduvad kas kõik või mitte ükski.
+     * @return Märkme puhverdatud tekstid pärast muudatusi ja versioon, millele need tuginevad
+     * @throws IllegalArgumentException kui muudatus ei sobi tekstiga
+     * @throws AutosaveFailedException kui varasemaid muudatusi ei saanud kirjutada; muudatusi ei rakendata
+     */
+    public AutosaveState applyEdits(Long noteId, List<NoteTextEdit> edits) {
+        while (true) {
+            PendingText entry = pending.get(noteId);
+            if (entry == null) {
+                PendingText loaded = load(noteId);
+                entry = pending.putIfAbsent(noteId, loaded);
+                if (entry == null) {
+                    entry = loaded;
+                }
+            }
+            synchronized (entry) {
+                // Puhver kirjutati vahepeal andmebaasi ja eemaldati, alustame uuega
+                if (entry.closed) {
+                    continue;
+                }
+                checkWritable(noteId, entry);
+                List<String> updated = new ArrayList<>(entry.texts);
+                for (NoteTextEdit edit : edits) {
+                    apply(updated, edit);
+                }
+                long now = System.currentTimeMillis();
+                if (!entry.dirty) {
+                    entry.dirty = true;
+                    entry.firstEditAt = now;
+                }
+                entry.lastEditAt = now;
+                entry.texts = updated;
+                editsReceived.increment();
+                return new AutosaveState(new ArrayList<>(updated), entry.version);
+            }
+        }
+    }
+
+    /**
+     * Kirjutab märkme puhverdatud muudatused kohe andmebaasi (nt kasutaja lahkus redaktorist)
+     */
+    public void flushNote(Long noteId) {
+        PendingText entry = pending.get(noteId);
+        if (entry != null) {
+            flush(noteId, entry);
+        }
+    }
+
+    /**
+     * Kirjutab märkme puhverdatud muudatused kohe andmebaasi ja annab teada, kui see ei õnnestunud
+     * @throws AutosaveFailedException kui muudatusi ei saanud kirjutada
+     */
+    public void flushNoteOrThrow(Long noteId) {
+        PendingText entry = pending.get(noteId);
+        if (entry == null) {
+            return;
+        }
+        flush(noteId, entry);
+        synchronized (entry) {
+            if (!entry.closed && (entry.conflict || entry.failures > 0)) {
+                checkWritable(noteId, entry);
+                throw new AutosaveFailedException("Buffered edits could not be saved: " + entry.lastError,
+                    new ArrayList<>(entry.texts), false);
+            }
+        }
+    }
+
+    /**
+     * Tagastab versiooni, milleni märge on kliendi nähtud versioonist jõudnud ainult automaatsalvestuse
+     * kirjutustega. Nii ei saa klient oma versiooniga PATCH-il konflikti enda puhverdatud muudatuste tõttu,
+     * kuid mõne muu päringu muudatus annab endiselt konflikti.
+     */
+    public Long resolveVersion(Long noteId, Long clientVersion) {
+        Map<Long, Long> writes = autosaveWrites.getIfPresent(noteId);
+        if (clientVersion == null || writes == null) {
+            return clientVersion;
+        }
+        Long version = clientVersion;
+        for (int i = 0; i < writes.size(); i++) {
+            Long next = writes.get(version);
+            if (next == null) {
+                break;
+            }
+            version = next;
+        }
+        return version;
+    }
+
+    /**
+     * Loobub märkme puhverdatud muudatustest (nt märge kustutatakse)
+     */
+    public void discard(Long noteId) {
+        PendingText entry = pending.get(noteId);
+        if (entry != null) {
+            synchronized (entry) {
+                close(noteId, entry);
+            }
+        }
+    }
+
+    /**
+     * Kirjutab kausta kõigi märkmete puhverdatud muudatused andmebaasi
+     */
+    public void flushFolder(Long folderId) {
+        for (Map.Entry<Long, PendingText> entry : pending.entrySet()) {
+            if (Objects.equals(entry.getValue().folderId, folderId)) {
+                flush(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Loobub kausta kõigi märkmete puhverdatud muudatustest (nt kaust kustutatakse)
+     */
+    public void discardFolder(Long folderId) {
+        for (Map.Entry<Long, PendingText> entry : pending.entrySet()) {
+            if (Objects.equals(entry.getValue().folderId, folderId)) {
+                synchronized (entry.getValue()) {
+                    close(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    public void flushAll() {
+        for (Map.Entry<Long, PendingText> entry : pending.entrySet()) {
+            flush(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Kirjutab puhvrid, mida pole idleMs jooksul muudetud või mis on olnud kirjutamata üle maxDelayMs
+     */
+    void flushDue() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, PendingText> entry : pending.entrySet()) {
+            PendingText text = entry.getValue();
+            boolean due;
+            synchronized (text) {
+                due = text.dirty && !text.conflict && now >= text.nextAttemptAt
+                    && (now - text.lastEditAt >= idleMs || now - text.firstEditAt >= maxDelayMs);
+            }
+            if (due) {
+                flush(entry.getKey(), text);
+            }
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private PendingText load(Long noteId) {
+        // Vahemälus olev märge võib olla vananenud, puhvri alus peab vastama andmebaasi versioonile
+        Note note = noteService.getNoteFromDatabase(noteId);
+        Long folderId = note.getFolder() != null ? note.getFolder().getId() : null;
+        return new PendingText(folderId, new ArrayList<>(note.getTexts()), note.getVersion());
+    }
+
+    /**
+     * Annab teada puhvrist, mida ei saanud kirjutada. Ühendamata konfliktiga puhver loobutakse,
+     * sest klient saab tekstid vastusest ja laadib märkme uuesti.
+     */
+    private void checkWritable(Long noteId, PendingText entry) {
+        if (entry.conflict) {
+            close(noteId, entry);
+            throw new AutosaveFailedException("Note was modified by another request and buffered edits could not be merged",
+                new ArrayList<>(entry.texts), true);
+        }
+        if (entry.failures >= maxAttempts) {
+            throw new AutosaveFailedException("Buffered edits could not be saved: " + entry.lastError,
+                new ArrayList<>(entry.texts), false);
+        }
+    }
+
+    private void flush(Long noteId, PendingText entry) {
+        // Sama märkme kirjutused ei tohi kattuda, muidu võiks puhver sulguda enne eelmise kirjutuse lõppu
+        synchronized (entry.flushLock) {
+            // Pärast ühendamist teiste muudatustega proovitakse kohe uuesti
+            if (write(noteId, entry)) {
+                write(noteId, entry);
+            }
+        }
+    }
+
+    /**
+     * @return true, kui puhver ühendati vahepeal tehtud muudatustega ja tuleb uuesti kirjutada
+     */
+    private boolean write(Long noteId, PendingText entry) {
+        List<String> snapshot;
+        Long version;
+        synchronized (entry) {
+            if (entry.closed || entry.conflict) {
+                return false;
+            }
+            if (!entry.dirty) {
+                close(noteId, entry);
+                return false;
+            }
+            snapshot = new ArrayList<>(entry.texts);
+            version = entry.version;
+            entry.dirty = false;
+        }
+
+        try {
+            Note saved = noteService.patchNote(noteId, version, null, snapshot);
+            recordWrite(noteId, version, saved.getVersion());
+            flushesWritten.increment();
+            logger.debug("Flushed autosave of note {} to version {}", noteId, saved.getVersion());
+            synchronized (entry) {
+                entry.base = snapshot;
+                entry.version = saved.getVersion();
+                entry.failures = 0;
+                entry.lastError = null;
+                entry.nextAttemptAt = 0;
+                // Kirjutuse ajal saabunud muudatused jäävad järgmisse kirjutusse
+                if (!entry.dirty) {
+                    close(noteId, entry);
+                }
+            }
+            return false;
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return rebase(noteId, entry);
+        } catch (Exception e) {
+            recordFailure(noteId, entry, e);
+            return false;
+        }
+    }
+
+    /**
+     * Märget muudeti pärast puhvri laadimist mujal: ühendame puhvri märkme uue sisuga
+     */
+    private boolean rebase(Long noteId, PendingText entry) {
+        Note current;
+        try {
+            current = noteService.getNoteFromDatabase(noteId);
+        } catch (Exception e) {
+            recordFailure(noteId, entry, e);
+            return false;
+        }
+        List<String> theirs = new ArrayList<>(current.getTexts());
+        synchronized (entry) {
+            if (entry.closed) {
+                return false;
+            }
+            List<String> merged = merge(entry.base, entry.texts, theirs);
+            if (merged == null) {
+                logger.warn("Autosave of note {} conflicts with version {}, keeping edits until the client is told", noteId, current.getVersion());
+                entry.conflict = true;
+                entry.dirty = false;
+                return false;
+            }
+            logger.info("Rebased autosave of note {} onto version {}", noteId, current.getVersion());
+            entry.base = theirs;
+            entry.version = current.getVersion();
+            entry.texts = merged;
+            entry.dirty = !merged.equals(theirs);
+            return entry.dirty;
+        }
+    }
+
+    private void recordFailure(Long noteId, PendingText entry, Exception e) {
+        boolean exists = true;
+        try {
+            exists = noteService.noteExists(noteId);
+        } catch (Exception ignored) {
+            // Andmebaas ei vasta, eeldame et märge on alles
+        }
+        synchronized (entry) {
+            if (!exists) {
+                logger.warn("Note {} no longer exists, dropping its autosave", noteId);
+                close(noteId, entry);
+                return;
+            }
+            entry.failures++;
+            entry.lastError = e.getMessage();
+            entry.dirty = true;
+            // Eksponentsiaalne ootus, et andmebaasi katkestuse ajal kirjutust pidevalt ei korrataks
+            entry.nextAttemptAt = System.currentTimeMillis() + (retryDelayMs << Math.min(entry.failures - 1, 6));
+            if (entry.failures >= maxAttempts) {
+                logger.error("Autosave of note {} failed {} times, keeping edits and retrying: {}", noteId, entry.failures, e.getMessage(), e);
+            } else {
+                logger.warn("Error flushing autosave of note {}, will retry: {}", noteId, e.getMessage());
+            }
+        }
+    }
+
+    private void recordWrite(Long noteId, Long fromVersion, Long toVersion) {
+        if (fromVersion == null || toVersion == null || fromVersion.equals(toVersion)) {
+            return;
+        }
+        autosaveWrites.get(noteId, id -> new ConcurrentHashMap<>()).put(fromVersion, toVersion);
+    }
+
+    /**
+     * Kolmepoolne ühendamine tekstide kaupa: puhvri alus, puhver ja märkme praegune sisu.
+     * @return Ühendatud tekstid või null, kui sama teksti on muudetud mõlemal pool
+     */
+    static List<String> merge(List<String> base, List<String> ours, List<String> theirs) {
+        if (ours.equals(base) || ours.equals(theirs)) {
+            return new ArrayList<>(theirs);
+        }
+        if (theirs.equals(base)) {
+            return new ArrayList<>(ours);
+        }
+        // Tekstide lisamist või eemaldamist mõlemal pool ei ühendata
+        if (ours.size() != base.size() || theirs.size() != base.size()) {
+            return null;
+        }
+        List<String> merged = new ArrayList<>(base.size());
+        for (int i = 0; i < base.size(); i++) {
+            String b = base.get(i);
+            String o = ours.get(i);
+            String t = theirs.get(i);
+            if (Objects.equals(o, b)) {
+                merged.add(t);
+            } else if (Objects.equals(t, b) || Objects.equals(t, o)) {
+                merged.add(o);
+            } else {
+                return null;
+            }
+        }
+        return merged;
+    }
+
+    private void close(Long noteId, PendingText entry) {
+        entry.closed = true;
+        pending.remove(noteId, entry);
+    }
+
+    private static void apply(List<String> texts, NoteTextEdit edit) {
+        int index = edit.getIndex();
+        if (index < 0 || index > texts.size()) {
+            throw new IllegalArgumentException("Text index out of range: " + index);
+        }
+
+        if (edit.getText() != null) {
+            if (index == texts.size()) {
+                texts.add(edit.getText());
+            } else {
+                texts.set(index, edit.getText());
+            }
+            return;
+        }
+
+        if (edit.getOffset() == null || index == texts.size()) {
+            throw new IllegalArgumentException("Edit needs either text or an offset into an existing text");
+        }
+        String current = texts.get(index) != null ? texts.get(index) : "";
+        int offset = edit.getOffset();
+        int deleteCount = edit.getDeleteCount();
+        if (offset < 0 || offset > current.length() || deleteCount < 0 || deleteCount > current.length() - offset) {
+            throw new IllegalArgumentException("Edit range out of bounds for text " + index);
+        }
+        String insert = edit.getInsert() != null ? edit.getInsert() : "";
+        texts.set(index, current.substring(0, offset) + insert + current.substring(offset + deleteCount));
+    }
+
+    private static final class PendingText {
+        private final Long folderId;
+        private final Object flushLock = new Object();
+        // Tekstid ja versioon andmebaasis, millele puhver tugineb
+        private List<String> base;
+        private Long version;
+        private List<String> texts;
+        private long firstEditAt;
+        private long lastEditAt;
+        private long nextAttemptAt;
+        private boolean dirty;
+        private boolean closed;
+        private boolean conflict;
+        private int failures;
+        private String lastError;
+
+        private PendingText(Long folderId, List<String> texts, Long version) {
+            this.folderId = folderId;
+            this.base = new ArrayList<>(texts);
+            this.texts = texts;
+            this.version = version;
+        }
+    }
+}
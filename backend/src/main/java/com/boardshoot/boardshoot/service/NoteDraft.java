@@ -0,0 +1,33 @@
+package com.boardshoot.boardshoot.service;
+
+/**
+ * Loodava märkme andmed märkmete hulgiloomisel
+ */
+public class NoteDraft {
+
+    private String title;
+    private String text;
+
+    public NoteDraft() {}
+
+    public NoteDraft(String title, String text) {
+        this.title = title;
+        this.text = text;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+}
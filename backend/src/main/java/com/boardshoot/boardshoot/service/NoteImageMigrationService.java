@@ -0,0 +1,130 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.NoteImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tõstab vanad note_images (URL-id) ja note_image_variants (pisipildid ja eelvaated) read
+ * note_image tabelisse, kus igal pildil on oma ID ja järjekorranumber.
+ * Käivitub enne, kui rakendus päringuid vastu võtab, ja enne data URL-ide migratsiooni.
+ */
+@Service
+public class NoteImageMigrationService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteImageMigrationService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private IdSequenceService idSequenceService;
+
+    @Value("${boardshoot.migrations.note-images-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (migrateOnStartup) {
+            migrateLegacyImages();
+        }
+    }
+
+    /**
+     * Tõstab vanad pildiread märkme kaupa ümber ja kustutab need vanadest tabelitest.
+     * Iga märge töödeldakse eraldi tehingus, seega katkestatud migratsiooni võib ohutult korrata.
+     * @return Ümber tõstetud piltide arv
+     */
+    public int migrateLegacyImages() {
+        List<Long> noteIds;
+        try {
+            noteIds = jdbcTemplate.queryForList("SELECT DISTINCT note_id FROM note_images", Long.class);
+        } catch (DataAccessException e) {
+            // Uues andmebaasis vana tabelit polegi
+            logger.debug("Skipping legacy note image migration: {}", e.getMessage());
+            return 0;
+        }
+
+        if (noteIds.isEmpty()) {
+            return 0;
+        }
+
+        boolean hasVariants = tableExists("note_image_variants");
+        // Uute ridade võtmed tulevad jadast, seega peab jada olema juba olemasolevatest ridadest ees
+        idSequenceService.align(NoteImage.class);
+        logger.info("Moving legacy images of {} notes to the note_image table", noteIds.size());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int migrated = 0;
+        for (Long noteId : noteIds) {
+            try {
+                Integer count = transactionTemplate.execute(status -> migrateNote(noteId, hasVariants));
+                migrated += count != null ? count : 0;
+            } catch (Exception e) {
+                logger.error("Error moving legacy images of note {}: {}", noteId, e.getMessage(), e);
+            }
+        }
+        logger.info("Moved {} legacy note images", migrated);
+        return migrated;
+    }
+
+    private int migrateNote(Long noteId, boolean hasVariants) {
+        // Vanal tabelil järjekorraveergu polnud, seega säilib lisamise järjekord
+        List<String> urls = jdbcTemplate.queryForList(
+            "SELECT image_url FROM note_images WHERE note_id = ?", String.class, noteId);
+
+        Map<String, String[]> variants = new HashMap<>();
+        if (hasVariants) {
+            jdbcTemplate.query(
+                "SELECT image_url, thumbnail_url, preview_url FROM note_image_variants WHERE note_id = ?",
+                rs -> {
+                    variants.put(rs.getString(1), new String[] {rs.getString(2), rs.getString(3)});
+                },
+                noteId);
+        }
+
+        Integer next = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(MAX(position) + 1, 0) FROM note_image WHERE note_id = ?", Integer.class, noteId);
+        int start = next != null ? next : 0;
+
+        List<Long> ids = idSequenceService.allocateIds(NoteImage.class, urls.size());
+        List<Object[]> rows = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i);
+            String[] variant = variants.get(url);
+            rows.add(new Object[] {ids.get(i), noteId, url, variant != null ? variant[0] : null, variant != null ? variant[1] : null, start + i});
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO note_image (id, note_id, url, thumbnail_url, preview_url, position) VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+        jdbcTemplate.update("DELETE FROM note_images WHERE note_id = ?", noteId);
+        if (hasVariants) {
+            jdbcTemplate.update("DELETE FROM note_image_variants WHERE note_id = ?", noteId);
+        }
+        return urls.size();
+    }
+
+    private boolean tableExists(String table) {
+        try {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE 1 = 0", Integer.class);
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+}
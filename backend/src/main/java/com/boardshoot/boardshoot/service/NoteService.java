@@ -2,23 +2,40 @@ package com.boardshoot.boardshoot.service;
 
 import com.boardshoot.boardshoot.model.Folder;
 import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.NoteImage;
 import com.boardshoot.boardshoot.model.User;
 import com.boardshoot.boardshoot.repository.FolderRepository;
 import com.boardshoot.boardshoot.repository.NoteRepository;
 import com.boardshoot.boardshoot.repository.UserRepository;
 import com.boardshoot.boardshoot.security.UserDetailsImpl;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ArrayList;
+import java.util.Objects;
 
 @Service
+@Timed(value = "boardshoot.service", description = "Service method execution time")
 public class NoteService {
     
     private static final Logger logger = LoggerFactory.getLogger(NoteService.class);
@@ -35,9 +52,27 @@ public class NoteService {
     @Autowired
     private StorageService storageService;
     
+    @Autowired
+    private StorageDeletionService storageDeletionService;
+    
+    @Autowired
+    private EntityCacheService entityCacheService;
+    
     // Testimisloogika - kasutame fikseeritud kasutaja ID-d
     private static final Long TEST_USER_ID = 1L;
     
+    // Hulgitoimingu suurim lubatud märkmete arv ühes päringus
+    @Value("${boardshoot.bulk.max-notes:1000}")
+    private int maxBulkNotes = 1000;
+    
+    // IN-loendi suurim pikkus ühes hulgikustutuse või -teisalduse lauses
+    private static final int BULK_CHUNK_SIZE = 500;
+    
+    // Lühivaate teksti maksimaalne pikkus ja lehekülje maksimaalne suurus
+    private static final int TEXT_PREVIEW_LENGTH = 200;
+    private static final int MAX_SUMMARY_PAGE_SIZE = 200;
+    
+    @Transactional(readOnly = true)
     public List<Note> getNotesForFolder(Long folderId) {
         try {
             logger.info("Fetching notes for folder {}", folderId);
@@ -49,13 +84,81 @@ public class NoteService {
             }
             
             // Testimiseks kasutame otseteed
-            return noteRepository.findByFolderId(folderId);
+            return entityCacheService.getFolderNotes(folderId, () -> {
+                List<Note> notes = noteRepository.findWithTextsByFolderId(folderId);
+                notes.forEach(this::initializeCollections);
+                return notes;
+            });
         } catch (Exception e) {
             logger.error("Error in getNotesForFolder", e);
             throw e;
         }
     }
     
+    /**
+     * Tagastab kausta märkmete lühivaated lehekülgede kaupa.
+     * Lehekülg loetakse märkme ID järgi (keyset), seega sügavad leheküljed on sama kiired kui esimene.
+     * Päringute arv on fikseeritud ega sõltu märkmete arvust lehel.
+     * @param folderId Kausta ID
+     * @param afterId Viimane eelmisel lehel olnud märkme ID või null esimese lehe jaoks
+     * @param limit Märkmete arv lehel
+     * @return Lehekülg lühivaateid koos järgmise lehe kursoriga
+     */
+    @Transactional(readOnly = true)
+    public NoteSummaryPage getNoteSummaries(Long folderId, Long afterId, int limit) {
+        try {
+            logger.info("Fetching note summaries for folder {} after {} (limit {})", folderId, afterId, limit);
+            if (!folderRepository.existsById(folderId)) {
+                logger.error("Folder not found: {}", folderId);
+                throw new RuntimeException("Folder not found");
+            }
+            
+            int pageSize = Math.max(1, Math.min(limit, MAX_SUMMARY_PAGE_SIZE));
+            // Küsime ühe rea rohkem, et teada saada, kas järgmine leht on olemas
+            List<Object[]> rows = noteRepository.findSummaryPage(folderId, afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+            boolean hasMore = rows.size() > pageSize;
+            if (hasMore) {
+                rows = rows.subList(0, pageSize);
+            }
+            if (rows.isEmpty()) {
+                return new NoteSummaryPage(List.of(), null);
+            }
+            
+            List<Long> noteIds = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                noteIds.add((Long) row[0]);
+            }
+            
+            Map<Long, String> textPreviews = new HashMap<>();
+            for (Object[] row : noteRepository.findTextPreviews(noteIds, TEXT_PREVIEW_LENGTH)) {
+                textPreviews.put((Long) row[0], (String) row[1]);
+            }
+            
+            Map<Long, Integer> imageCounts = new HashMap<>();
+            Map<Long, String> thumbnails = new HashMap<>();
+            for (Object[] row : noteRepository.findImageSummaries(noteIds)) {
+                Long noteId = (Long) row[0];
+                imageCounts.merge(noteId, 1, Integer::sum);
+                // Variantideta (vanemate) piltide puhul kasutame pisipildina originaali
+                thumbnails.putIfAbsent(noteId, row[2] != null ? (String) row[2] : (String) row[1]);
+            }
+            
+            List<NoteSummary> summaries = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Long noteId = (Long) row[0];
+                summaries.add(new NoteSummary(noteId, (String) row[1], textPreviews.get(noteId),
+                        imageCounts.getOrDefault(noteId, 0), thumbnails.get(noteId)));
+            }
+            
+            Long nextCursor = hasMore ? noteIds.get(noteIds.size() - 1) : null;
+            logger.info("Retrieved {} note summaries for folder {}", summaries.size(), folderId);
+            return new NoteSummaryPage(summaries, nextCursor);
+        } catch (Exception e) {
+            logger.error("Error in getNoteSummaries", e);
+            throw e;
+        }
+    }
+    
     public Note createNote(Long folderId, String title, String text) {
         try {
             Long userId = getCurrentUserId();
@@ -93,6 +196,7 @@ public class NoteService {
             }
             
             note = noteRepository.save(note);
+            entityCacheService.evictFolderNotes(folderId);
             logger.info("Created note with ID: {}", note.getId());
             
             return note;
@@ -102,21 +206,47 @@ public class NoteService {
         }
     }
     
+    @Transactional(readOnly = true)
     public Note getNote(Long noteId) {
         try {
             logger.info("Fetching note with ID {}", noteId);
+            return entityCacheService.getNote(noteId, () -> {
+                Optional<Note> noteOpt = noteRepository.findById(noteId);
+                if (!noteOpt.isPresent()) {
+                    logger.error("Note not found: {}", noteId);
+                    throw new RuntimeException("Note not found");
+                }
+                return initializeCollections(noteOpt.get());
+            });
+        } catch (Exception e) {
+            logger.error("Error in getNote", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Loeb märkme otse andmebaasist vahemälust mööda, nt kui märkme versioon peab vastama
+     * andmebaasi omale (automaatsalvestuse puhvri alus)
+     */
+    @Transactional(readOnly = true)
+    public Note getNoteFromDatabase(Long noteId) {
+        try {
             Optional<Note> noteOpt = noteRepository.findById(noteId);
             if (!noteOpt.isPresent()) {
                 logger.error("Note not found: {}", noteId);
                 throw new RuntimeException("Note not found");
             }
-            return noteOpt.get();
+            return initializeCollections(noteOpt.get());
         } catch (Exception e) {
-            logger.error("Error in getNote", e);
+            logger.error("Error in getNoteFromDatabase", e);
             throw e;
         }
     }
     
+    public boolean noteExists(Long noteId) {
+        return noteRepository.existsById(noteId);
+    }
+    
     /**
      * Uuendab olemasoleva märkme sisu.
      * @param noteId Märkme ID, mida uuendatakse
@@ -152,12 +282,12 @@ public class NoteService {
             
             // Asendame olemasoleva teksti, kui uus tekst on olemas
             if (text != null) {
-                // Kuna Note klassis on tekstid loeteluna, siis asendame kõik varasemad tekstid ühe uuega
-                note.setTexts(new ArrayList<>());
-                note.addText(text);
+                // Kogumit ei asendata uuega, et muutmata ridu ei kirjutataks uuesti
+                replaceTexts(note, List.of(text));
             }
             
             note = noteRepository.save(note);
+            entityCacheService.evictNote(note);
             logger.info("Updated note with ID: {}", note.getId());
             
             return note;
@@ -168,10 +298,56 @@ public class NoteService {
     }
     
     /**
-     * Kustutab märkme antud ID põhjal.
+     * Osaline uuendus: muudab ainult antud välju ja neid tekstiridu, mis tegelikult erinevad.
+     * @param noteId Märkme ID, mida uuendatakse
+     * @param expectedVersion Versioon, millele muudatus tugineb (null, kui ei kontrollita)
+     * @param title Uus pealkiri (null, kui ei muudeta)
+     * @param texts Märkme tekstid tervikuna (null, kui ei muudeta)
+     * @return Uuendatud märge koos uue versiooniga
+     * @throws ObjectOptimisticLockingFailureException kui märget on vahepeal muudetud
+     */
+    @Transactional
+    public Note patchNote(Long noteId, Long expectedVersion, String title, List<String> texts) {
+        try {
+            logger.info("Patching note with ID {} at version {}", noteId, expectedVersion);
+            
+            Optional<Note> noteOpt = noteRepository.findById(noteId);
+            if (!noteOpt.isPresent()) {
+                logger.error("Note not found: {}", noteId);
+                throw new RuntimeException("Note not found");
+            }
+            
+            Note note = noteOpt.get();
+            if (expectedVersion != null && !expectedVersion.equals(note.getVersion())) {
+                logger.warn("Version conflict on note {}: expected {}, current {}", noteId, expectedVersion, note.getVersion());
+                throw new ObjectOptimisticLockingFailureException(Note.class, noteId);
+            }
+            
+            if (title != null && !title.equals(note.getTitle())) {
+                note.setTitle(title);
+            }
+            if (texts != null) {
+                replaceTexts(note, texts);
+            }
+            
+            // Kohene flush annab vastusesse uue versiooni ja toob konflikti välja siin, mitte tehingu lõpus
+            note = noteRepository.saveAndFlush(note);
+            entityCacheService.evictNote(note);
+            logger.info("Patched note with ID: {} to version {}", note.getId(), note.getVersion());
+            
+            return note;
+        } catch (Exception e) {
+            logger.error("Error in patchNote", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Kustutab märkme antud ID põhjal. Märkme piltide failid lisatakse storage'i kustutamisjärjekorda.
      * @param noteId Märkme ID, mida soovitakse kustutada
      * @return true, kui kustutamine õnnestus
      */
+    @Transactional
     public boolean deleteNote(Long noteId) {
         try {
             Long userId = getCurrentUserId();
@@ -191,7 +367,9 @@ public class NoteService {
             //     throw new RuntimeException("Not authorized to delete this note");
             // }
             
+            storageDeletionService.enqueueNoteImages(List.of(noteId));
             noteRepository.delete(note);
+            entityCacheService.evictNote(note);
             logger.info("Successfully deleted note with ID: {}", noteId);
             
             return true;
@@ -201,6 +379,143 @@ public class NoteService {
         }
     }
     
+    /**
+     * Loob kausta mitu märget ühe tehinguga. Kausta omanikku kontrollitakse üks kord ning
+     * märkmete ja tekstide read kirjutatakse JDBC partiidena (hibernate.jdbc.batch_size).
+     * @param folderId Kausta ID
+     * @param drafts Loodavate märkmete andmed
+     * @return Loodud märkmed samas järjekorras
+     */
+    @Transactional
+    public List<Note> createNotes(Long folderId, List<NoteDraft> drafts) {
+        try {
+            checkBulkSize(drafts);
+            Long userId = getCurrentUserId();
+            logger.info("Creating {} notes in folder {} for user {}", drafts.size(), folderId, userId);
+            
+            Folder folder = findOwnedFolder(userId, folderId);
+            // Kausta omanik on sama kasutaja, seega kasutajat eraldi ei laadita
+            User user = folder.getUser();
+            
+            List<Note> notes = new ArrayList<>(drafts.size());
+            for (NoteDraft draft : drafts) {
+                Note note = new Note();
+                note.setTitle(draft.getTitle());
+                note.setFolder(folder);
+                note.setUser(user);
+                if (draft.getText() != null && !draft.getText().isEmpty()) {
+                    note.addText(draft.getText());
+                }
+                notes.add(note);
+            }
+            
+            notes = noteRepository.saveAll(notes);
+            entityCacheService.evictFolderNotes(folderId);
+            logger.info("Created {} notes in folder {}", notes.size(), folderId);
+            
+            return notes;
+        } catch (Exception e) {
+            logger.error("Error in createNotes for folder: {}", folderId, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Teisaldab märkmed teise kausta. Mõlema kausta omanikku kontrollitakse üks kord ja
+     * märkmed teisaldatakse ühe UPDATE lausega, neid mällu laadimata.
+     * @param folderId Kaust, kus märkmed praegu on
+     * @param noteIds Teisaldatavad märkmed; teistesse kaustadesse kuuluvaid ID-sid eiratakse
+     * @param targetFolderId Sihtkaust
+     * @return Teisaldatud märkmete arv
+     */
+    @Transactional
+    public int moveNotes(Long folderId, List<Long> noteIds, Long targetFolderId) {
+        try {
+            checkBulkSize(noteIds);
+            Long userId = getCurrentUserId();
+            logger.info("Moving {} notes from folder {} to folder {} for user {}", noteIds.size(), folderId, targetFolderId, userId);
+            
+            findOwnedFolder(userId, folderId);
+            Folder target = findOwnedFolder(userId, targetFolderId);
+            if (folderId.equals(targetFolderId)) {
+                return 0;
+            }
+            
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(noteIds));
+            int moved = 0;
+            for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+                moved += noteRepository.moveToFolder(folderId, ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())), target);
+            }
+            
+            entityCacheService.evictNotes(folderId, ids);
+            entityCacheService.evictFolderNotes(targetFolderId);
+            logger.info("Moved {} notes from folder {} to folder {}", moved, folderId, targetFolderId);
+            
+            return moved;
+        } catch (Exception e) {
+            logger.error("Error in moveNotes from folder: {} to folder: {}", folderId, targetFolderId, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Kustutab kausta märkmed koos tekstide ja piltidega. Kausta omanikku kontrollitakse üks kord ja
+     * iga tabeli read kustutatakse ühe lausega, märkmeid mällu laadimata.
+     * @param folderId Kausta ID
+     * @param noteIds Kustutatavad märkmed; teistesse kaustadesse kuuluvaid ID-sid eiratakse
+     * @return Tegelikult kustutatud märkmete ID-d
+     */
+    @Transactional
+    public List<Long> deleteNotes(Long folderId, List<Long> noteIds) {
+        try {
+            checkBulkSize(noteIds);
+            Long userId = getCurrentUserId();
+            logger.info("Deleting {} notes from folder {} for user {}", noteIds.size(), folderId, userId);
+            
+            findOwnedFolder(userId, folderId);
+            
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(noteIds));
+            List<Long> deleted = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+                List<Long> owned = noteRepository.findIdsByFolderIdAndIdIn(folderId, ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())));
+                if (owned.isEmpty()) {
+                    continue;
+                }
+                // Pildid enne märkmeid, et välisvõti ei takistaks kustutamist
+                storageDeletionService.enqueueNoteImages(owned);
+                noteRepository.deleteImagesByNoteIds(owned);
+                noteRepository.deleteByIds(owned);
+                deleted.addAll(owned);
+            }
+            
+            entityCacheService.evictNotes(folderId, ids);
+            logger.info("Deleted {} notes from folder {}", deleted.size(), folderId);
+            
+            return deleted;
+        } catch (Exception e) {
+            logger.error("Error in deleteNotes for folder: {}", folderId, e);
+            throw e;
+        }
+    }
+    
+    private void checkBulkSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one note is required");
+        }
+        if (items.size() > maxBulkNotes) {
+            throw new IllegalArgumentException("At most " + maxBulkNotes + " notes per request");
+        }
+    }
+    
+    private Folder findOwnedFolder(Long userId, Long folderId) {
+        Optional<Folder> folderOpt = folderRepository.findByUserIdAndId(userId, folderId);
+        if (!folderOpt.isPresent()) {
+            logger.error("Folder not found or does not belong to user: folderId={}, userId={}", folderId, userId);
+            throw new RuntimeException("Folder not found or does not belong to you");
+        }
+        return folderOpt.get();
+    }
+    
     /**
      * Meetod praeguse autenditud kasutaja ID saamiseks.
      * Kui kasutaja on autenditud, tagastab kasutaja ID.
@@ -264,14 +579,15 @@ public class NoteService {
             
             Note note = noteOpt.get();
             
-            // Laadime pildi Supabase Storage'isse ja saame tagasi URL-i
-            String imageUrl = storageService.uploadImage(imageData, noteId);
-            logger.info("Image uploaded to storage, URL: {}", imageUrl);
+            // Laadime pildi ja selle väiksemad variandid Supabase Storage'isse
+            StoredImage image = storageService.storeImage(imageData, noteId);
+            logger.info("Image uploaded to storage, URL: {}", image.getOriginalUrl());
             
-            // Lisame pildi URL-i märkmele
-            note.addImageUrl(imageUrl);
+            // Lisame pildi URL-i ja variandid märkmele
+            note.addImage(image.getOriginalUrl(), image.toVariants());
             
             note = noteRepository.save(note);
+            entityCacheService.evictNote(note);
             logger.info("Added image to note with ID: {}", note.getId());
             
             return note;
@@ -281,6 +597,95 @@ public class NoteService {
         }
     }
     
+    /**
+     * Lisab olemasolevale märkmele pildi, mis loetakse voona ja laaditakse otse salvestusse.
+     * @param noteId Märkme ID, millele pilt lisatakse
+     * @param imageStream Pildi andmevoog
+     * @param contentLength Pildi suurus baitides või -1, kui see pole teada
+     * @param contentType Pildi MIME tüüp
+     * @return Uuendatud märge
+     */
+    public Note addImageToNote(Long noteId, InputStream imageStream, long contentLength, MediaType contentType) {
+        try {
+            logger.info("Adding streamed image to note with ID {}", noteId);
+            
+            Optional<Note> noteOpt = noteRepository.findById(noteId);
+            if (!noteOpt.isPresent()) {
+                logger.error("Note not found: {}", noteId);
+                throw new RuntimeException("Note not found");
+            }
+            
+            Note note = noteOpt.get();
+            
+            // Voogedastame pildi salvestusse ilma seda tervikuna mällu lugemata
+            StoredImage image = storageService.storeImage(imageStream, contentLength, contentType, noteId);
+            logger.info("Image streamed to storage, URL: {}", image.getOriginalUrl());
+            
+            note.addImage(image.getOriginalUrl(), image.toVariants());
+            
+            note = noteRepository.save(note);
+            entityCacheService.evictNote(note);
+            logger.info("Added streamed image to note with ID: {}", note.getId());
+            
+            return note;
+        } catch (Exception e) {
+            logger.error("Error in addImageToNote (stream)", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Lisab juba salvestatud pildi märkmele (kasutatakse asünkroonse üleslaadimise lõpus).
+     * @param noteId Märkme ID
+     * @param image Salvestatud pildi ja selle variantide URL-id
+     * @return Uuendatud märge
+     */
+    @Transactional
+    public Note attachImage(Long noteId, StoredImage image) {
+        Optional<Note> noteOpt = noteRepository.findById(noteId);
+        if (!noteOpt.isPresent()) {
+            logger.error("Note not found: {}", noteId);
+            throw new RuntimeException("Note not found");
+        }
+        
+        Note note = noteOpt.get();
+        note.addImage(image.getOriginalUrl(), image.toVariants());
+        note = noteRepository.save(note);
+        entityCacheService.evictNote(note);
+        logger.info("Attached image to note with ID: {}", noteId);
+        
+        return note;
+    }
+    
+    /**
+     * Viib märkme tekstid vastavusse uue loeteluga nii, et andmebaasis muutuvad ainult erinevad read:
+     * muutunud positsioonid uuendatakse, uued lisatakse lõppu ja üleliigsed eemaldatakse lõpust.
+     */
+    private void replaceTexts(Note note, List<String> newTexts) {
+        List<String> texts = note.getTexts();
+        int common = Math.min(texts.size(), newTexts.size());
+        for (int i = 0; i < common; i++) {
+            if (!Objects.equals(texts.get(i), newTexts.get(i))) {
+                texts.set(i, newTexts.get(i));
+            }
+        }
+        for (int i = common; i < newTexts.size(); i++) {
+            texts.add(newTexts.get(i));
+        }
+        while (texts.size() > newTexts.size()) {
+            texts.remove(texts.size() - 1);
+        }
+    }
+    
+    /**
+     * Laadib märkme kogumid, et märget saaks vahemällu kirjutada ka pärast sessiooni sulgemist
+     */
+    private Note initializeCollections(Note note) {
+        Hibernate.initialize(note.getTexts());
+        Hibernate.initialize(note.getImages());
+        return note;
+    }
+    
     /**
      * Abimeetod, mis lühendab pikki URL-ide logimiseks
      */
@@ -305,110 +710,203 @@ public class NoteService {
     }
     
     /**
-     * Kustutab pildi märkmest URL-i põhjal
+     * Kustutab pildi märkmest URL-i põhjal (vanemate klientide jaoks, uued kasutavad pildi ID-d)
      * @param noteId Märkme ID
      * @param imageUrl Pildi URL, mida soovitakse kustutada
      * @return true, kui kustutamine õnnestus
      */
+    @Transactional
     public boolean deleteImageFromNote(Long noteId, String imageUrl) {
         try {
             logger.info("Deleting image from note {}", noteId);
             logger.debug("Image URL to delete: {}", truncateUrl(imageUrl));
             
-            // Leiame märkme
-            Optional<Note> noteOpt = noteRepository.findById(noteId);
-            if (!noteOpt.isPresent()) {
-                logger.error("Note not found: {}", noteId);
-                throw new RuntimeException("Note not found");
-            }
-            
-            Note note = noteOpt.get();
+            Note note = findNote(noteId);
             
             // Kontrollime, kas pilt on märkme piltide nimekirjas
-            List<String> imageUrls = note.getImageUrls();
-            if (imageUrls == null || !imageUrls.contains(imageUrl)) {
+            NoteImage image = null;
+            for (NoteImage candidate : note.getImages()) {
+                if (candidate.getUrl().equals(imageUrl)) {
+                    image = candidate;
+                    break;
+                }
+            }
+            if (image == null) {
                 logger.error("Image URL not found in note: {}", noteId);
                 return false;
             }
             
-            // Kui tegemist on base64 pildiga, siis lihtsalt eemaldame selle märkme piltide nimekirjast
-            // Kui tegemist on Supabase Storage pildiga, siis kustutame selle ka Supabase'ist
-            if (imageUrl.startsWith("http") && storageService != null) {
-                try {
-                    // Võtame pildi nime URL-ist
-                    String imageName = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
-                    // Kustutame pildi Supabase'ist
-                    storageService.deleteImage(imageName);
-                    logger.info("Deleted image from storage: {}", imageName);
-                } catch (Exception e) {
-                    logger.error("Failed to delete image from storage: {}", e.getMessage(), e);
-                    // Jätkame siiski, et eemaldada pilt märkmest
-                }
-            }
+            removeImage(note, image);
+            return true;
+        } catch (Exception e) {
+            logger.error("Error deleting image from note: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Kustutab pildi märkmest pildi ID põhjal
+     * @param noteId Märkme ID
+     * @param imageId Pildi ID
+     * @return true, kui kustutamine õnnestus, false, kui märkmel sellist pilti pole
+     */
+    @Transactional
+    public boolean deleteImageById(Long noteId, Long imageId) {
+        try {
+            logger.info("Deleting image {} from note {}", imageId, noteId);
             
-            // Eemaldame pildi märkme piltide nimekirjast
-            imageUrls.remove(imageUrl);
+            Note note = findNote(noteId);
             
-            // Salvestame muudetud märkme
-            note = noteRepository.save(note);
-            logger.info("Image successfully deleted from note {}", noteId);
+            NoteImage image = null;
+            for (NoteImage candidate : note.getImages()) {
+                if (candidate.getId().equals(imageId)) {
+                    image = candidate;
+                    break;
+                }
+            }
+            if (image == null) {
+                logger.error("Image {} not found in note: {}", imageId, noteId);
+                return false;
+            }
             
+            removeImage(note, image);
             return true;
         } catch (Exception e) {
-            logger.error("Error deleting image from note: {}", e.getMessage(), e);
+            logger.error("Error deleting image {} from note: {}", imageId, e.getMessage(), e);
             throw e;
         }
     }
     
     /**
-     * Muudab piltide järjekorda märkmes
+     * Eemaldab pildi ja lisab selle failid kustutamisjärjekorda samas tehingus
+     */
+    private void removeImage(Note note, NoteImage image) {
+        // Ülejäänud piltide järjekorranumbreid ei muudeta, seega kustutamine on üks rida
+        note.getImages().remove(image);
+        
+        // Supabase Storage'i failid (originaal, pisipilt ja eelvaade) kustutatakse taustal.
+        // Base64 ja kohaliku hoidla pilte ei kustutata (sama sisuga blob võib kuuluda ka teistele märkmetele).
+        storageDeletionService.enqueueUrls(Arrays.asList(image.getUrl(), image.getThumbnailUrl(), image.getPreviewUrl()));
+        
+        // Kohene flush toob samaaegse muudatuse konflikti välja siin, mitte tehingu lõpus
+        note = noteRepository.saveAndFlush(note);
+        entityCacheService.evictNote(note);
+        logger.info("Image successfully deleted from note {}", note.getId());
+    }
+    
+    /**
+     * Muudab piltide järjekorda märkmes URL-ide järgi (vanemate klientide jaoks)
      * @param noteId Märkme ID
      * @param newImageOrder Uus piltide järjekord (URL-ide nimekiri)
      * @return Uuendatud märge
      */
+    @Transactional
     public Note reorderImages(Long noteId, List<String> newImageOrder) {
         try {
             logger.info("Reordering {} images for note {}", 
                     newImageOrder != null ? newImageOrder.size() : 0, 
                     noteId);
             
-            // Leiame märkme
-            Optional<Note> noteOpt = noteRepository.findById(noteId);
-            if (!noteOpt.isPresent()) {
-                logger.error("Note not found: {}", noteId);
-                throw new RuntimeException("Note not found");
-            }
-            
-            Note note = noteOpt.get();
-            
-            // Kontrollime, et uues järjekorras oleks kõik märkme pildid
-            List<String> currentImageUrls = note.getImageUrls();
-            if (currentImageUrls == null || currentImageUrls.size() != newImageOrder.size()) {
+            Note note = findNote(noteId);
+            List<NoteImage> images = note.getImages();
+            if (newImageOrder == null || images.size() != newImageOrder.size()) {
                 logger.error("New image order does not match current images count. Current: {}, New: {}", 
-                        currentImageUrls != null ? currentImageUrls.size() : 0, 
-                        newImageOrder.size());
+                        images.size(), newImageOrder != null ? newImageOrder.size() : 0);
                 throw new RuntimeException("Invalid image order list");
             }
             
-            // Kontrollime, et kõik pildid oleksid olemas
-            for (String imageUrl : currentImageUrls) {
-                if (!newImageOrder.contains(imageUrl)) {
-                    logger.error("Image URL not found in new order: {}", truncateUrl(imageUrl));
+            // Sama URL võib märkmes korduda, seega hoiame iga URL-i kohta pilte järjekorras
+            Map<String, ArrayDeque<NoteImage>> imagesByUrl = new HashMap<>(images.size() * 2);
+            for (NoteImage image : images) {
+                imagesByUrl.computeIfAbsent(image.getUrl(), url -> new ArrayDeque<>()).add(image);
+            }
+            List<NoteImage> ordered = new ArrayList<>(images.size());
+            for (String imageUrl : newImageOrder) {
+                ArrayDeque<NoteImage> matches = imagesByUrl.get(imageUrl);
+                if (matches == null || matches.isEmpty()) {
+                    logger.error("Image URL not found in note: {}", truncateUrl(imageUrl));
                     throw new RuntimeException("Invalid image order: missing images");
                 }
+                ordered.add(matches.poll());
             }
             
-            // Seame uue järjekorra
-            note.setImageUrls(newImageOrder);
+            return applyImageOrder(note, ordered);
+        } catch (Exception e) {
+            logger.error("Error reordering images: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Muudab piltide järjekorda märkmes piltide ID-de järgi
+     * @param noteId Märkme ID
+     * @param imageIds Kõigi märkme piltide ID-d uues järjekorras
+     * @return Uuendatud märge
+     */
+    @Transactional
+    public Note reorderImagesById(Long noteId, List<Long> imageIds) {
+        try {
+            logger.info("Reordering {} images by id for note {}", imageIds != null ? imageIds.size() : 0, noteId);
+            
+            Note note = findNote(noteId);
+            List<NoteImage> images = note.getImages();
+            if (imageIds == null || images.size() != imageIds.size()) {
+                logger.error("New image order does not match current images count. Current: {}, New: {}", 
+                        images.size(), imageIds != null ? imageIds.size() : 0);
+                throw new RuntimeException("Invalid image order list");
+            }
             
-            // Salvestame muudetud märkme
-            note = noteRepository.save(note);
-            logger.info("Images successfully reordered for note {}", noteId);
+            Map<Long, NoteImage> imagesById = new HashMap<>(images.size() * 2);
+            for (NoteImage image : images) {
+                imagesById.put(image.getId(), image);
+            }
+            List<NoteImage> ordered = new ArrayList<>(images.size());
+            for (Long imageId : imageIds) {
+                // Eemaldamine tabelist tuvastab ka korduvad ID-d
+                NoteImage image = imagesById.remove(imageId);
+                if (image == null) {
+                    logger.error("Image {} not found in note {} or listed twice", imageId, noteId);
+                    throw new RuntimeException("Invalid image order: unknown or duplicate image id " + imageId);
+                }
+                ordered.add(image);
+            }
             
-            return note;
+            return applyImageOrder(note, ordered);
         } catch (Exception e) {
-            logger.error("Error reordering images: {}", e.getMessage(), e);
+            logger.error("Error reordering images by id: {}", e.getMessage(), e);
             throw e;
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Nummerdab pildid uues järjekorras; andmebaasis uuendatakse ainult nende piltide rida, mille number muutus
+     */
+    private Note applyImageOrder(Note note, List<NoteImage> ordered) {
+        for (int i = 0; i < ordered.size(); i++) {
+            NoteImage image = ordered.get(i);
+            if (image.getPosition() != i) {
+                image.setPosition(i);
+            }
+        }
+        note.getImages().sort(Comparator.comparingInt(NoteImage::getPosition));
+        
+        // Kohene flush annab vastusesse uue versiooni ja toob konflikti välja siin, mitte tehingu lõpus
+        note = noteRepository.saveAndFlush(note);
+        entityCacheService.evictNote(note);
+        logger.info("Images successfully reordered for note {}", note.getId());
+        
+        return note;
+    }
+    
+    /**
+     * Laadib ja lukustab märkme piltide muutmiseks ning tõstab selle versiooni
+     */
+    private Note findNote(Long noteId) {
+        Optional<Note> noteOpt = noteRepository.findForImageUpdateById(noteId);
+        if (!noteOpt.isPresent()) {
+            logger.error("Note not found: {}", noteId);
+            throw new RuntimeException("Note not found");
+        }
+        return noteOpt.get();
+    }
+}
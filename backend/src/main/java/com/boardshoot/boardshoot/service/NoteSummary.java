@@ -0,0 +1,41 @@
+package com.boardshoot.boardshoot.service;
+
+/**
+ * Märkme lühivaade nimekirja jaoks: ainult pealkiri, teksti algus, piltide arv ja esimese pildi pisipilt
+ */
+public class NoteSummary {
+
+    private final Long id;
+    private final String title;
+    private final String textPreview;
+    private final int imageCount;
+    private final String thumbnailUrl;
+
+    public NoteSummary(Long id, String title, String textPreview, int imageCount, String thumbnailUrl) {
+        this.id = id;
+        this.title = title;
+        this.textPreview = textPreview;
+        this.imageCount = imageCount;
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getTextPreview() {
+        return textPreview;
+    }
+
+    public int getImageCount() {
+        return imageCount;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+}
@@ -0,0 +1,29 @@
+package com.boardshoot.boardshoot.service;
+
+import java.util.List;
+
+/**
+ * Üks lehekülg märkmete lühivaateid. nextCursor on viimase märkme ID, millest järgmist lehte jätkata.
+ */
+public class NoteSummaryPage {
+
+    private final List<NoteSummary> items;
+    private final Long nextCursor;
+
+    public NoteSummaryPage(List<NoteSummary> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<NoteSummary> getItems() {
+        return items;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
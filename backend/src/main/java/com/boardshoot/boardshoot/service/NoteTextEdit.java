@@ -0,0 +1,73 @@
+package com.boardshoot.boardshoot.service;
+
+/**
+ * Üks automaatsalvestuse muudatus märkme tekstis.
+ * Kui "text" on antud, asendatakse terve tekstirida (rea lisamiseks index = tekstide arv).
+ * Muul juhul kustutatakse reast alates kohast "offset" "deleteCount" märki ja lisatakse "insert".
+ */
+public class NoteTextEdit {
+
+    private int index;
+    private String text;
+    private Integer offset;
+    private int deleteCount;
+    private String insert;
+
+    public NoteTextEdit() {}
+
+    public static NoteTextEdit replace(int index, String text) {
+        NoteTextEdit edit = new NoteTextEdit();
+        edit.setIndex(index);
+        edit.setText(text);
+        return edit;
+    }
+
+    public static NoteTextEdit splice(int index, int offset, int deleteCount, String insert) {
+        NoteTextEdit edit = new NoteTextEdit();
+        edit.setIndex(index);
+        edit.setOffset(offset);
+        edit.setDeleteCount(deleteCount);
+        edit.setInsert(insert);
+        return edit;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public Integer getOffset() {
+        return offset;
+    }
+
+    public void setOffset(Integer offset) {
+        this.offset = offset;
+    }
+
+    public int getDeleteCount() {
+        return deleteCount;
+    }
+
+    public void setDeleteCount(int deleteCount) {
+        this.deleteCount = deleteCount;
+    }
+
+    public String getInsert() {
+        return insert;
+    }
+
+    public void setInsert(String insert) {
+        this.insert = insert;
+    }
+}
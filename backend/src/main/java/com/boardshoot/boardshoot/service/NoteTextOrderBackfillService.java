@@ -0,0 +1,94 @@
+package com.boardshoot.boardshoot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Annab järjekorranumbri note_texts ridadele, mis loodi enne text_order veeru lisamist.
+ * Ilma selleta ei saaks Hibernate neid märkmeid laadida.
+ * Käivitub pärast kõigi beanide (ka skeemi uuendava EntityManagerFactory) loomist,
+ * kuid enne, kui rakendus päringuid vastu võtab.
+ */
+@Service
+public class NoteTextOrderBackfillService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteTextOrderBackfillService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${boardshoot.migrations.text-order-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (backfillOnStartup) {
+            backfillTextOrder();
+        }
+    }
+
+    /**
+     * Nummerdab järjekorrata tekstid märkme kaupa, jättes juba nummerdatud read puutumata.
+     * Iga märge töödeldakse eraldi tehingus, seega katkestatud täitmist võib ohutult korrata.
+     * @return Nummerdatud tekstiridade arv
+     */
+    public int backfillTextOrder() {
+        List<Long> noteIds;
+        try {
+            noteIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT note_id FROM note_texts WHERE text_order IS NULL", Long.class);
+        } catch (DataAccessException e) {
+            logger.warn("Skipping note text order backfill: {}", e.getMessage());
+            return 0;
+        }
+
+        if (noteIds.isEmpty()) {
+            return 0;
+        }
+
+        logger.info("Backfilling text order of {} notes", noteIds.size());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int backfilled = 0;
+        for (Long noteId : noteIds) {
+            try {
+                Integer count = transactionTemplate.execute(status -> backfillNote(noteId));
+                backfilled += count != null ? count : 0;
+            } catch (Exception e) {
+                logger.error("Error backfilling text order of note {}: {}", noteId, e.getMessage(), e);
+            }
+        }
+        logger.info("Backfilled text order of {} note texts", backfilled);
+        return backfilled;
+    }
+
+    private int backfillNote(Long noteId) {
+        // Ridadel puudub oma võti, seega kirjutame järjekorrata read järjekorraga uuesti
+        List<String> texts = jdbcTemplate.queryForList(
+            "SELECT text FROM note_texts WHERE note_id = ? AND text_order IS NULL", String.class, noteId);
+        Integer next = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(MAX(text_order) + 1, 0) FROM note_texts WHERE note_id = ?", Integer.class, noteId);
+        int start = next != null ? next : 0;
+
+        jdbcTemplate.update("DELETE FROM note_texts WHERE note_id = ? AND text_order IS NULL", noteId);
+        List<Object[]> rows = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            rows.add(new Object[] {noteId, texts.get(i), start + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO note_texts (note_id, text, text_order) VALUES (?, ?, ?)", rows);
+        return texts.size();
+    }
+}
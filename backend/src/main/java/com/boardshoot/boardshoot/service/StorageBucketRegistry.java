@@ -0,0 +1,82 @@
+package com.boardshoot.boardshoot.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Protsessiülene register bucketitest, mille olemasolu on juba kontrollitud.
+ * Peab ka arvestust, mitu kontrollpäringut on tehtud ja mitu registri tõttu ära jäänud.
+ */
+@Component
+public class StorageBucketRegistry implements MeterBinder {
+
+    private final Set<String> knownBuckets = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong checksPerformed = new AtomicLong();
+    private final AtomicLong checksSkipped = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public boolean isKnown(String bucketName) {
+        return knownBuckets.contains(bucketName);
+    }
+
+    public void markKnown(String bucketName) {
+        knownBuckets.add(bucketName);
+    }
+
+    /**
+     * Unustab bucketi, nt kui üleslaadimine vastas "Bucket not found"
+     */
+    public void invalidate(String bucketName) {
+        if (knownBuckets.remove(bucketName)) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    public void recordCheck() {
+        checksPerformed.incrementAndGet();
+    }
+
+    public void recordSkippedCheck() {
+        checksSkipped.incrementAndGet();
+    }
+
+    /**
+     * Tehtud kontrollpäringute arv Storage API vastu
+     */
+    public long getChecksPerformed() {
+        return checksPerformed.get();
+    }
+
+    /**
+     * Kontrollpäringute arv, mis jäid registri tõttu tegemata
+     */
+    public long getChecksSkipped() {
+        return checksSkipped.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("boardshoot.storage.bucket.checks", checksPerformed, AtomicLong::get)
+            .description("Bucket existence checks sent to Supabase Storage")
+            .tag("result", "performed")
+            .register(registry);
+        FunctionCounter.builder("boardshoot.storage.bucket.checks", checksSkipped, AtomicLong::get)
+            .description("Bucket existence checks sent to Supabase Storage")
+            .tag("result", "skipped")
+            .register(registry);
+        FunctionCounter.builder("boardshoot.storage.bucket.invalidations", invalidations, AtomicLong::get)
+            .description("Buckets forgotten after a Bucket not found response")
+            .register(registry);
+    }
+}
@@ -0,0 +1,275 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.StorageDeletion;
+import com.boardshoot.boardshoot.repository.NoteRepository;
+import com.boardshoot.boardshoot.repository.StorageDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage'i objektide kustutamise järjekord. Andmebaasi read kustutatakse kohe ja nende pildid lisatakse
+ * samas tehingus storage_deletion tabelisse; taustatöö kustutab objektid Supabase'ist partiidena.
+ * Nii ei oota kasutaja Supabase'i järel ning ebaõnnestunud kustutamist proovitakse hiljem uuesti.
+ * Mitu sõlme võivad sama rea korraga kätte saada, kuid objekti korduv kustutamine on ohutu.
+ */
+@Service
+public class StorageDeletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageDeletionService.class);
+
+    // Mitu pilti loetakse ja järjekorda lisatakse korraga
+    static final int ENQUEUE_PAGE_SIZE = 500;
+
+    @Autowired
+    private StorageDeletionRepository storageDeletionRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    @Autowired
+    private IdSequenceService idSequenceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Kui tihti kontrollitakse, kas järjekorras on kustutamiseks valmis objekte
+    @Value("${boardshoot.storage.deletion.interval-ms:10000}")
+    private long intervalMs = 10000;
+
+    // Mitu objekti kustutatakse ühe Supabase'i päringuga
+    @Value("${boardshoot.storage.deletion.batch-size:100}")
+    private int batchSize = 100;
+
+    // Mitu partiid ühe käivitusega kõige rohkem kustutatakse, et suur järjekord Supabase'i üle ei koormaks
+    @Value("${boardshoot.storage.deletion.max-batches-per-run:10}")
+    private int maxBatchesPerRun = 10;
+
+    // Mitu ebaõnnestunud katset, enne kui objektist loobutakse
+    @Value("${boardshoot.storage.deletion.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    // Esimese korduskatse viivitus; iga järgmine katse ootab kaks korda kauem
+    @Value("${boardshoot.storage.deletion.retry-delay-ms:30000}")
+    private long retryDelayMs = 30000;
+
+    private ScheduledExecutorService scheduler;
+    private Counter objectsEnqueued;
+    private Counter objectsDeleted;
+    private Counter objectsDropped;
+
+    @PostConstruct
+    public void start() {
+        objectsEnqueued = Counter.builder("boardshoot.storage.deletions.enqueued")
+            .description("Storage objects queued for deletion")
+            .register(meterRegistry);
+        objectsDeleted = Counter.builder("boardshoot.storage.deletions.deleted")
+            .description("Queued storage objects deleted from the bucket")
+            .register(meterRegistry);
+        objectsDropped = Counter.builder("boardshoot.storage.deletions.dropped")
+            .description("Queued storage objects given up after repeated failures")
+            .register(meterRegistry);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-deletion-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::processQueue, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Storage deletion worker started: interval {} ms, batch size {}", intervalMs, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Lisab kausta kõigi märkmete pildid (koos pisipiltide ja eelvaadetega) kustutamisjärjekorda.
+     * Pildid loetakse lehtede kaupa, seega mälukasutus ei sõltu piltide arvust.
+     * Tuleb kutsuda samas tehingus enne piltide ridade kustutamist.
+     * @return Järjekorda lisatud objektide arv
+     */
+    public int enqueueFolderImages(Long folderId) {
+        int enqueued = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Object[]> page = noteRepository.findImageUrlPage(folderId, afterId, Limit.of(ENQUEUE_PAGE_SIZE));
+            if (page.isEmpty()) {
+                break;
+            }
+            List<String> urls = new ArrayList<>(page.size() * 3);
+            for (Object[] row : page) {
+                urls.add((String) row[1]);
+                urls.add((String) row[2]);
+                urls.add((String) row[3]);
+            }
+            enqueued += enqueueUrls(urls);
+            afterId = (Long) page.get(page.size() - 1)[0];
+            if (page.size() < ENQUEUE_PAGE_SIZE) {
+                break;
+            }
+        }
+        return enqueued;
+    }
+
+    /**
+     * Lisab märkmete kõigi piltide failid kustutamisjärjekorda.
+     * Tuleb kutsuda samas tehingus enne piltide ridade kustutamist.
+     * @return Järjekorda lisatud objektide arv
+     */
+    public int enqueueNoteImages(Collection<Long> noteIds) {
+        if (noteIds.isEmpty()) {
+            return 0;
+        }
+        List<String> urls = new ArrayList<>();
+        for (Object[] row : noteRepository.findImageUrlsByNoteIds(noteIds)) {
+            urls.add((String) row[0]);
+            urls.add((String) row[1]);
+            urls.add((String) row[2]);
+        }
+        return enqueueUrls(urls);
+    }
+
+    /**
+     * Lisab Supabase Storage'i piltide URL-id kustutamisjärjekorda.
+     * Kohaliku hoidla ja data URL-idega pilte ei lisata, sest neid ei hoita bucketis.
+     * @return Järjekorda lisatud objektide arv
+     */
+    public int enqueueUrls(Collection<String> urls) {
+        Set<String> objectNames = new LinkedHashSet<>();
+        for (String url : urls) {
+            String objectName = objectNameOf(url);
+            if (objectName != null) {
+                objectNames.add(objectName);
+            }
+        }
+        return enqueueObjectNames(objectNames);
+    }
+
+    /**
+     * Lisab bucketi objektid nime järgi kustutamisjärjekorda
+     * @return Järjekorda lisatud objektide arv
+     */
+    public int enqueueObjectNames(Collection<String> objectNames) {
+        if (objectNames.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = idSequenceService.allocateIds(StorageDeletion.class, objectNames.size());
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(objectNames.size());
+        int i = 0;
+        for (String objectName : objectNames) {
+            rows.add(new Object[] {ids.get(i++), objectName, 0, now, now});
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO storage_deletion (id, object_name, attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?)", rows);
+        objectsEnqueued.increment(rows.size());
+        logger.info("Queued {} storage objects for deletion", rows.size());
+        return rows.size();
+    }
+
+    /**
+     * Tagastab pildi objekti nime bucketis või null, kui pilt pole Supabase Storage'is
+     */
+    public String objectNameOf(String url) {
+        if (url == null || !url.startsWith("http") || localBlobStore.isBlobUrl(url)) {
+            return null;
+        }
+        String objectName = url.substring(url.lastIndexOf("/") + 1);
+        return objectName.isEmpty() ? null : objectName;
+    }
+
+    /**
+     * Kustutab järjekorrast kõik kustutamiseks valmis objektid partiidena
+     * @return Kustutatud objektide arv
+     */
+    public int processQueue() {
+        int deleted = 0;
+        try {
+            for (int batches = 0; batches < maxBatchesPerRun; batches++) {
+                List<StorageDeletion> batch = storageDeletionRepository.findByNextAttemptAtLessThanEqualOrderById(
+                    Instant.now(), Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                if (!deleteBatch(batch)) {
+                    // Supabase ei vasta, ülejäänud partiid jäävad järgmisesse käivitusse
+                    break;
+                }
+                deleted += batch.size();
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error processing storage deletion queue: {}", e.getMessage(), e);
+        }
+        return deleted;
+    }
+
+    private boolean deleteBatch(List<StorageDeletion> batch) {
+        List<String> objectNames = new ArrayList<>(batch.size());
+        for (StorageDeletion deletion : batch) {
+            objectNames.add(deletion.getObjectName());
+        }
+
+        if (storageService.deleteImages(objectNames)) {
+            storageDeletionRepository.deleteAllInBatch(batch);
+            objectsDeleted.increment(batch.size());
+            return true;
+        }
+
+        List<StorageDeletion> retry = new ArrayList<>(batch.size());
+        List<StorageDeletion> dropped = new ArrayList<>();
+        Instant now = Instant.now();
+        for (StorageDeletion deletion : batch) {
+            int attempts = deletion.getAttempts() + 1;
+            if (attempts >= maxAttempts) {
+                dropped.add(deletion);
+                continue;
+            }
+            deletion.setAttempts(attempts);
+            // Eksponentsiaalne ootus, et Supabase'i katkestuse ajal järjekorda pidevalt ei korrataks
+            deletion.setNextAttemptAt(now.plusMillis(retryDelayMs << Math.min(attempts - 1, 20)));
+            retry.add(deletion);
+        }
+        storageDeletionRepository.saveAll(retry);
+        if (!dropped.isEmpty()) {
+            logger.error("Giving up on deleting {} storage objects after {} attempts, first: {}",
+                dropped.size(), maxAttempts, dropped.get(0).getObjectName());
+            storageDeletionRepository.deleteAllInBatch(dropped);
+            objectsDropped.increment(dropped.size());
+        }
+        logger.warn("Deleting {} storage objects failed, will retry", retry.size());
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+package com.boardshoot.boardshoot.service;
+
+import java.time.Instant;
+
+/**
+ * Supabase Storage'i bucketi objekt nimekirjast
+ */
+public class StorageObject {
+
+    private final String name;
+    private final Instant createdAt;
+
+    public StorageObject(String name, Instant createdAt) {
+        this.name = name;
+        this.createdAt = createdAt;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Objekti loomise aeg või null, kui Supabase seda ei tagastanud
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
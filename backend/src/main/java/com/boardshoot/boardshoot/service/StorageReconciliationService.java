@@ -0,0 +1,190 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.repository.NoteRepository;
+import com.boardshoot.boardshoot.repository.StorageDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Otsib bucketist pilte, millele ükski märge enam ei viita (nt kustutati enne kustutamisjärjekorda
+ * või järjekorda lisamine ebaõnnestus), ja lisab need kustutamisjärjekorda.
+ * Bucketi nimekiri loetakse lehtede kaupa. Pildi nimes on märkme ID, seega iga lehe kohta piisab
+ * ühest päringust nende märkmete piltide kohta ja kogu viidatud URL-ide hulka mällu ei loeta.
+ * Arvesse lähevad ainult selle rakenduse nimega ja piisavalt vanad objektid, et pooleli olevaid
+ * üleslaadimisi (fail on juba bucketis, rida veel salvestamata) mitte kustutada.
+ */
+@Service
+public class StorageReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageReconciliationService.class);
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private StorageDeletionService storageDeletionService;
+
+    @Autowired
+    private StorageDeletionRepository storageDeletionRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${boardshoot.storage.reconcile.enabled:true}")
+    private boolean enabled = true;
+
+    // Esimene kontroll pärast käivitamist, et see ei langeks kokku käivitusaegsete migratsioonidega
+    @Value("${boardshoot.storage.reconcile.initial-delay-ms:600000}")
+    private long initialDelayMs = 600000;
+
+    @Value("${boardshoot.storage.reconcile.interval-ms:21600000}")
+    private long intervalMs = 21600000;
+
+    // Mitu objekti bucketi nimekirjast korraga loetakse
+    @Value("${boardshoot.storage.reconcile.page-size:1000}")
+    private int pageSize = 1000;
+
+    // Nooremaid objekte ei puudutata, sest nende märkme rida võib olla veel salvestamata
+    @Value("${boardshoot.storage.reconcile.min-age-ms:86400000}")
+    private long minAgeMs = 86400000;
+
+    // Ühe kontrolliga lisatakse järjekorda kõige rohkem nii palju objekte; ülejäänud leiab järgmine kontroll
+    @Value("${boardshoot.storage.reconcile.max-orphans-per-run:10000}")
+    private int maxOrphansPerRun = 10000;
+
+    private ScheduledExecutorService scheduler;
+    private Counter objectsScanned;
+    private Counter orphansFound;
+
+    @PostConstruct
+    public void start() {
+        objectsScanned = Counter.builder("boardshoot.storage.reconcile.scanned")
+            .description("Bucket objects checked against note images")
+            .register(meterRegistry);
+        orphansFound = Counter.builder("boardshoot.storage.reconcile.orphans")
+            .description("Unreferenced bucket objects queued for deletion")
+            .register(meterRegistry);
+        if (!enabled) {
+            logger.info("Storage reconciliation is disabled");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconcileSafely, initialDelayMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Storage reconciliation scheduled every {} ms", intervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Käib bucketi läbi ja lisab viitamata objektid kustutamisjärjekorda.
+     * Kustutamine ise toimub järjekorra kaudu piiratud kiirusega.
+     * @return Järjekorda lisatud objektide arv
+     */
+    public int reconcile() {
+        Instant cutoff = Instant.now().minusMillis(minAgeMs);
+        int offset = 0;
+        int scanned = 0;
+        int queued = 0;
+        while (queued < maxOrphansPerRun) {
+            List<StorageObject> page = storageService.listObjects(pageSize, offset);
+            if (page.isEmpty()) {
+                break;
+            }
+            scanned += page.size();
+            objectsScanned.increment(page.size());
+
+            List<String> orphans = findOrphans(page, cutoff);
+            if (orphans.size() > maxOrphansPerRun - queued) {
+                orphans = orphans.subList(0, maxOrphansPerRun - queued);
+            }
+            int added = storageDeletionService.enqueueObjectNames(orphans);
+            queued += added;
+            orphansFound.increment(added);
+
+            // Järjekorra töötaja võib vahepeal objekte kustutada ja nimekiri nihkub; vahele jäänud objektid leiab järgmine kontroll
+            offset += page.size();
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+        logger.info("Storage reconciliation checked {} objects, queued {} unreferenced objects for deletion", scanned, queued);
+        return queued;
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            logger.error("Error reconciling storage objects: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<String> findOrphans(List<StorageObject> page, Instant cutoff) {
+        Map<Long, List<String>> candidatesByNote = new LinkedHashMap<>();
+        for (StorageObject object : page) {
+            Long noteId = StorageService.noteIdOf(object.getName());
+            if (noteId == null || object.getCreatedAt() == null || object.getCreatedAt().isAfter(cutoff)) {
+                continue;
+            }
+            candidatesByNote.computeIfAbsent(noteId, id -> new ArrayList<>()).add(object.getName());
+        }
+        if (candidatesByNote.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> referenced = new HashSet<>();
+        for (Object[] row : noteRepository.findImageUrlsByNoteIds(candidatesByNote.keySet())) {
+            for (Object url : row) {
+                String objectName = storageDeletionService.objectNameOf((String) url);
+                if (objectName != null) {
+                    referenced.add(objectName);
+                }
+            }
+        }
+
+        List<String> orphans = new ArrayList<>();
+        for (List<String> names : candidatesByNote.values()) {
+            for (String name : names) {
+                if (!referenced.contains(name)) {
+                    orphans.add(name);
+                }
+            }
+        }
+        if (orphans.isEmpty()) {
+            return orphans;
+        }
+        // Juba järjekorras olevaid objekte uuesti ei lisata
+        orphans.removeAll(new HashSet<>(storageDeletionRepository.findQueuedObjectNames(orphans)));
+        return orphans;
+    }
+}
@@ -1,47 +1,152 @@
 package com.boardshoot.boardshoot.service;
 
 import com.boardshoot.boardshoot.config.SupabaseStorageConfig;
+import com.boardshoot.boardshoot.service.ImageProcessingService.ImageVariant;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Base64;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class StorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(StorageService.class);
 
+    // Voogedastusel kopeeritakse pilti korraga maksimaalselt nii palju baite
+    private static final int STREAM_CHUNK_SIZE = 64 * 1024;
+
+    // Mõõdikute nimed
+    private static final String STORAGE_REQUEST_TIMER = "boardshoot.storage.requests";
+    private static final String UPLOAD_BYTES_SUMMARY = "boardshoot.storage.upload.bytes";
+
+    // Üles laaditud piltide nimed algavad märkme ID-ga: note_<märkme ID>_<UUID>[_<variant>].<laiend>
+    private static final Pattern NOTE_OBJECT_NAME = Pattern.compile("^note_(\\d+)_");
+
     @Autowired
     private RestTemplate restTemplate;
 
     @Autowired
     private SupabaseStorageConfig supabaseConfig;
 
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    @Autowired
+    private StorageBucketRegistry bucketRegistry;
+
+    @Autowired
+    private ImageProcessingService imageProcessingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Variantide üleslaadimise lõimed: variandid laaditakse üles samal ajal originaali ja teineteisega
+    @Value("${boardshoot.storage.variant-upload-threads:8}")
+    private int variantUploadThreads = 8;
+
+    private ThreadPoolExecutor variantUploadPool;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        variantUploadPool = new ThreadPoolExecutor(
+            variantUploadThreads, variantUploadThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(variantUploadThreads * 16),
+            runnable -> {
+                Thread thread = new Thread(runnable, "image-variant-upload-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // Täis järjekorra korral laadib variandi üles lõim, mis selle lõi
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        variantUploadPool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (variantUploadPool != null) {
+            variantUploadPool.shutdown();
+        }
+    }
+
+    /**
+     * Kontrollib bucketi olemasolu üks kord rakenduse käivitumisel, mitte iga üleslaadimise eel
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyBucketOnStartup() {
+        logger.info("Verifying storage bucket '{}' on startup", supabaseConfig.getBucketName());
+        ensureBucket();
+    }
+
     /**
-     * Abimeetod, mis lühendab pikki URL-ide ja andmete logimiseks
+     * Tagab, et bucket on olemas. Kui register juba teab bucketit, päringut ei tehta.
      */
-    private String truncateData(String data, String prefix) {
-        if (data == null) {
-            return "null";
+    private void ensureBucket() {
+        String bucketName = supabaseConfig.getBucketName();
+        if (bucketRegistry.isKnown(bucketName)) {
+            bucketRegistry.recordSkippedCheck();
+            return;
         }
-        
-        if (data.length() <= 50) {
-            return data;
+        synchronized (bucketRegistry) {
+            if (bucketRegistry.isKnown(bucketName)) {
+                bucketRegistry.recordSkippedCheck();
+                return;
+            }
+            bucketRegistry.recordCheck();
+            if (checkAndCreateBucket()) {
+                bucketRegistry.markKnown(bucketName);
+            }
         }
-        
-        return String.format("%s...%s [%d bytes]", 
-                prefix != null ? prefix : data.substring(0, 20), 
-                data.substring(data.length() - 5), 
-                data.length());
+        logger.info("Bucket checks performed: {}, skipped: {}",
+            bucketRegistry.getChecksPerformed(), bucketRegistry.getChecksSkipped());
+    }
+
+    /**
+     * Supabase vastab puuduva bucketi korral kas 404 või 400 koos "Bucket not found" veaga
+     */
+    private boolean isBucketNotFound(HttpStatusCodeException e) {
+        String body = e.getResponseBodyAsString();
+        return e.getStatusCode().value() == 404 || (body != null && body.contains("Bucket not found"));
     }
 
     /**
-     * Salvestab pildi data URL formaadis, et vältida Supabase API-ga seotud probleeme
+     * Laadib pildi Supabase Storage'isse; kui see ebaõnnestub, salvestab pildi kohalikku hoidlasse
      */
     public String uploadImage(byte[] imageData, Long noteId) {
         try {
@@ -57,63 +162,381 @@ public class StorageService {
                 return uploadUrl;
             }
             
-            // Varuvariandina kasutame base64 data URL
-            logger.info("Falling back to data URL method for image storage");
-            
-            // Teisendame binaar-pildi base64 kujule
-            String base64Image = Base64.getEncoder().encodeToString(imageData);
-            logger.debug("Base64 encoded data size: {} bytes", base64Image.length());
-            
-            // Tagastame data URL, mida saab otse HTML img tag-is kasutada
-            String dataUrl = "data:image/jpeg;base64," + base64Image;
-            logger.info("Successfully converted image to data URL (length: {})", dataUrl.length());
+            // Varuvariandina salvestame pildi kohalikku hoidlasse, et andmebaasi jääks ainult lühike viide
+            logger.info("Falling back to local blob store for image storage");
+            String hash = localBlobStore.store(imageData);
+            String blobUrl = localBlobStore.urlFor(hash);
+            logger.info("Stored image in local blob store: {}", blobUrl);
             
-            return dataUrl;
+            return blobUrl;
         } catch (Exception e) {
             logger.error("Error processing image for note {}: {}", noteId, e.getMessage(), e);
             throw new RuntimeException("Failed to process image: " + e.getMessage());
         }
     }
     
+    /**
+     * Laadib pildi voona otse Supabase Storage'isse, hoidmata kogu pilti mälus.
+     * Voog loetakse piiratud suurusega tükkidena, seega mälukasutus ei sõltu pildi suurusest.
+     * Kuna voogu ei saa uuesti lugeda, siis data URL varuvarianti siin ei kasutata.
+     * @param imageStream Pildi andmevoog
+     * @param contentLength Pildi suurus baitides või -1, kui see pole teada
+     * @param contentType Pildi MIME tüüp (võib olla null)
+     * @param noteId Märkme ID, millele pilt kuulub
+     * @return Üles laaditud pildi avalik URL
+     */
+    public String uploadImage(InputStream imageStream, long contentLength, MediaType contentType, Long noteId) {
+        MediaType imageType = resolveImageType(contentType);
+        String fileName = "note_" + noteId + "_" + UUID.randomUUID().toString() + "." + fileExtension(imageType);
+        logger.info("Streaming image upload for note {} with filename: {}", noteId, fileName);
+        logger.debug("Declared image size: {} bytes", contentLength);
+
+        try {
+            ensureBucket();
+
+            String uploadUrl = supabaseConfig.getStorageUrl() + "/object/" + supabaseConfig.getBucketName() + "/" + fileName;
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            HttpStatusCode status = null;
+            try {
+                status = restTemplate.execute(
+                    uploadUrl,
+                    HttpMethod.POST,
+                    request -> writeStreamingBody(request, imageStream, contentLength, imageType),
+                    response -> response.getStatusCode()
+                );
+            } finally {
+                recordStorageCall(sample, "upload_stream", status);
+            }
+
+            if (status == null || !status.is2xxSuccessful()) {
+                logger.error("Streaming upload to Supabase Storage failed with status: {}", status);
+                throw new RuntimeException("Storage upload failed with status " + status);
+            }
+
+            String publicUrl = supabaseConfig.getSupabaseUrl() + "/storage/v1/object/public/" +
+                             supabaseConfig.getBucketName() + "/" + fileName;
+            logger.info("Successfully streamed image to Supabase Storage: {}", publicUrl);
+            return publicUrl;
+        } catch (HttpStatusCodeException e) {
+            // Voogu ei saa korrata, kuid järgmine üleslaadimine kontrollib bucketit uuesti
+            if (isBucketNotFound(e)) {
+                logger.warn("Bucket '{}' not found during streaming upload", supabaseConfig.getBucketName());
+                bucketRegistry.invalidate(supabaseConfig.getBucketName());
+            }
+            logger.error("Error streaming image for note {}: {}", noteId, e.getMessage(), e);
+            throw new RuntimeException("Failed to upload image: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            logger.error("Error streaming image for note {}: {}", noteId, e.getMessage(), e);
+            throw new RuntimeException("Failed to upload image: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Salvestab pildi koos pisipildi ja eelvaatega.
+     * Variandid luuakse töötluskogumis ja laaditakse üles samal ajal, kui originaali üles laaditakse.
+     */
+    public StoredImage storeImage(byte[] imageData, Long noteId) {
+        CompletableFuture<Map<ImageVariant, byte[]>> variants = imageProcessingService.createVariantsAsync(imageData);
+        CompletableFuture<Map<ImageVariant, String>> variantUrls = uploadVariantsAsync(variants, noteId);
+        String originalUrl;
+        try {
+            originalUrl = uploadImage(imageData, noteId);
+        } catch (RuntimeException e) {
+            variants.cancel(false);
+            throw e;
+        }
+        return withVariants(originalUrl, variantUrls, noteId);
+    }
+
+    /**
+     * Voogedastab pildi salvestusse ja kirjutab selle samal ajal ajutisse faili,
+     * millest pärast üleslaadimist luuakse variandid. Mällu pilti tervikuna ei loeta.
+     */
+    public StoredImage storeImage(InputStream imageStream, long contentLength, MediaType contentType, Long noteId) {
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile("boardshoot-image-", ".tmp");
+            String originalUrl;
+            try (OutputStream copy = Files.newOutputStream(tempFile);
+                 InputStream tee = new TeeInputStream(imageStream, copy)) {
+                originalUrl = uploadImage(tee, contentLength, contentType, noteId);
+            }
+            // Voogu loetakse üleslaadimise ajal, seega variandid saab luua alles pärast seda
+            return withVariants(originalUrl, uploadVariantsAsync(imageProcessingService.createVariantsAsync(tempFile), noteId), noteId);
+        } catch (IOException e) {
+            logger.error("Error buffering streamed image for note {}: {}", noteId, e.getMessage(), e);
+            throw new UncheckedIOException("Failed to upload image", e);
+        } finally {
+            deleteTempFile(tempFile);
+        }
+    }
+
+    /**
+     * Salvestab kettal juba olemas oleva pildi (nt asünkroonse üleslaadimise ooteala fail) koos variantidega
+     */
+    public StoredImage storeImage(Path imageFile, long contentLength, MediaType contentType, Long noteId) {
+        CompletableFuture<Map<ImageVariant, byte[]>> variants = imageProcessingService.createVariantsAsync(imageFile);
+        CompletableFuture<Map<ImageVariant, String>> variantUrls = uploadVariantsAsync(variants, noteId);
+        String originalUrl;
+        try (InputStream in = Files.newInputStream(imageFile)) {
+            originalUrl = uploadImage(in, contentLength, contentType, noteId);
+        } catch (IOException e) {
+            variants.cancel(false);
+            logger.error("Error reading image file {} for note {}: {}", imageFile, noteId, e.getMessage(), e);
+            throw new UncheckedIOException("Failed to upload image", e);
+        } catch (RuntimeException e) {
+            variants.cancel(false);
+            throw e;
+        }
+        return withVariants(originalUrl, variantUrls, noteId);
+    }
+
+    /**
+     * Laadib iga loodud variandi üles eraldi lõimes kohe, kui variandid on valmis.
+     * Ühe variandi tõrge ei takista teise salvestamist.
+     */
+    private CompletableFuture<Map<ImageVariant, String>> uploadVariantsAsync(
+            CompletableFuture<Map<ImageVariant, byte[]>> variants, Long noteId) {
+        return variants.thenCompose(created -> {
+            Map<ImageVariant, CompletableFuture<String>> uploads = new EnumMap<>(ImageVariant.class);
+            for (Map.Entry<ImageVariant, byte[]> variant : created.entrySet()) {
+                uploads.put(variant.getKey(), CompletableFuture
+                    .supplyAsync(() -> uploadVariant(variant.getValue(), noteId, variant.getKey()), variantUploadPool)
+                    .exceptionally(e -> {
+                        logger.error("Error storing {} variant for note {}: {}", variant.getKey().getSuffix(), noteId, e.getMessage(), e);
+                        return null;
+                    }));
+            }
+            return CompletableFuture.allOf(uploads.values().toArray(new CompletableFuture[0]))
+                .thenApply(done -> {
+                    Map<ImageVariant, String> urls = new EnumMap<>(ImageVariant.class);
+                    uploads.forEach((variant, upload) -> urls.put(variant, upload.join()));
+                    return urls;
+                });
+        });
+    }
+
+    /**
+     * Ootab variantide üleslaadimise ära. Variandi tõrge ei takista originaali salvestamist.
+     */
+    private StoredImage withVariants(String originalUrl, CompletableFuture<Map<ImageVariant, String>> variantUploads, Long noteId) {
+        Map<ImageVariant, String> variantUrls = new EnumMap<>(ImageVariant.class);
+        try {
+            variantUrls.putAll(variantUploads.join());
+        } catch (Exception e) {
+            logger.error("Error storing image variants for note {}: {}", noteId, e.getMessage(), e);
+        }
+        return new StoredImage(originalUrl, variantUrls.get(ImageVariant.THUMBNAIL), variantUrls.get(ImageVariant.PREVIEW));
+    }
+
+    private String uploadVariant(byte[] imageData, Long noteId, ImageVariant variant) {
+        String fileName = "note_" + noteId + "_" + UUID.randomUUID().toString() + "_" + variant.getSuffix() + ".jpg";
+        String uploadUrl = uploadToSupabaseStorage(imageData, fileName);
+        if (uploadUrl != null) {
+            logger.info("Uploaded {} variant ({} bytes) for note {}", variant.getSuffix(), imageData.length, noteId);
+            return uploadUrl;
+        }
+        return localBlobStore.urlFor(localBlobStore.store(imageData));
+    }
+
+    private void deleteTempFile(Path tempFile) {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            logger.warn("Could not delete temporary image file {}: {}", tempFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Sisendvoog, mis kirjutab kõik loetud baidid ka teise väljundvoogu
+     */
+    private static class TeeInputStream extends FilterInputStream {
+
+        private final OutputStream copy;
+
+        TeeInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                copy.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Vahelejäetud baidid peavad samuti koopiasse jõudma
+            byte[] buffer = new byte[(int) Math.min(n, STREAM_CHUNK_SIZE)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * Salvestab Supabase'i päringu kestuse. Olek puudub, kui päring lõppes erindiga (nt aegumine).
+     */
+    private void recordStorageCall(Timer.Sample sample, String operation, HttpStatusCode status) {
+        String outcome = status == null ? "error" : status.is2xxSuccessful() ? "success" : "failure";
+        sample.stop(Timer.builder(STORAGE_REQUEST_TIMER)
+            .description("Latency of Supabase Storage API calls")
+            .tag("operation", operation)
+            .tag("outcome", outcome)
+            .register(meterRegistry));
+    }
+
+    private void recordUploadBytes(String mode, long bytes) {
+        DistributionSummary.builder(UPLOAD_BYTES_SUMMARY)
+            .description("Size of images uploaded to Supabase Storage")
+            .baseUnit("bytes")
+            .tag("mode", mode)
+            .register(meterRegistry)
+            .record(bytes);
+    }
+
+    /**
+     * Seab päringu päised ja kirjutab pildi voo päringu kehasse.
+     * Voogedastust toetavate klientide puhul kirjutatakse keha alles päringu saatmisel.
+     */
+    private void writeStreamingBody(ClientHttpRequest request, InputStream imageStream,
+                                    long contentLength, MediaType imageType) throws IOException {
+        HttpHeaders headers = request.getHeaders();
+        headers.set("apikey", supabaseConfig.getSupabaseServiceKey());
+        headers.set("Authorization", "Bearer " + supabaseConfig.getSupabaseServiceKey());
+        headers.setContentType(imageType);
+        if (contentLength >= 0) {
+            headers.setContentLength(contentLength);
+        }
+
+        if (request instanceof StreamingHttpOutputMessage streamingRequest) {
+            streamingRequest.setBody(outputStream -> copyInChunks(imageStream, outputStream));
+        } else {
+            copyInChunks(imageStream, request.getBody());
+        }
+    }
+
+    /**
+     * Kopeerib voo sisu piiratud suurusega puhvri kaudu
+     */
+    private long copyInChunks(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[STREAM_CHUNK_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        out.flush();
+        recordUploadBytes("stream", total);
+        logger.debug("Streamed {} bytes to storage", total);
+        return total;
+    }
+
+    /**
+     * Tagastab pildi tüübi; kui tüüp puudub või pole pilt, eeldame JPEG-i
+     */
+    private MediaType resolveImageType(MediaType contentType) {
+        if (contentType != null && "image".equals(contentType.getType()) && !contentType.isWildcardSubtype()) {
+            return contentType;
+        }
+        return MediaType.IMAGE_JPEG;
+    }
+
+    private String fileExtension(MediaType imageType) {
+        switch (imageType.getSubtype()) {
+            case "png":
+                return "png";
+            case "gif":
+                return "gif";
+            case "webp":
+                return "webp";
+            default:
+                return "jpg";
+        }
+    }
+
     /**
      * Laadib pildi üles kasutades Supabase Storage S3-kompatiibelset API-d
      */
     private String uploadToSupabaseStorage(byte[] imageData, String fileName) {
         try {
-            // Kontrollime ja loome vajadusel bucketi
-            checkAndCreateBucket();
-            
-            // Supabase S3 ühilduv endpoint
-            String uploadUrl = "https://ctbfkxypwclmeugswemb.supabase.co/storage/v1/object/" + supabaseConfig.getBucketName() + "/" + fileName;
-            logger.debug("Uploading image to Supabase Storage S3 endpoint: {}", uploadUrl);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("apikey", supabaseConfig.getSupabaseServiceKey());
-            headers.set("Authorization", "Bearer " + supabaseConfig.getSupabaseServiceKey());
-            headers.setContentType(MediaType.IMAGE_JPEG);
-            
-            HttpEntity<byte[]> requestEntity = new HttpEntity<>(imageData, headers);
-            
-            ResponseEntity<String> response = restTemplate.exchange(
+            ensureBucket();
+            
+            try {
+                return postImage(imageData, fileName);
+            } catch (HttpStatusCodeException e) {
+                if (!isBucketNotFound(e)) {
+                    throw e;
+                }
+                // Bucket on vahepeal kadunud - kontrollime uuesti ja proovime veel korra
+                logger.warn("Bucket '{}' not found during upload, re-checking", supabaseConfig.getBucketName());
+                bucketRegistry.invalidate(supabaseConfig.getBucketName());
+                ensureBucket();
+                return postImage(imageData, fileName);
+            }
+        } catch (Exception e) {
+            logger.error("Error uploading image to Supabase Storage: {}", e.getMessage(), e);
+            return null; // Varuvariant käivitub
+        }
+    }
+
+    private String postImage(byte[] imageData, String fileName) {
+        // Supabase S3 ühilduv endpoint
+        String uploadUrl = supabaseConfig.getStorageUrl() + "/object/" + supabaseConfig.getBucketName() + "/" + fileName;
+        logger.debug("Uploading image to Supabase Storage S3 endpoint: {}", uploadUrl);
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("apikey", supabaseConfig.getSupabaseServiceKey());
+        headers.set("Authorization", "Bearer " + supabaseConfig.getSupabaseServiceKey());
+        headers.setContentType(MediaType.IMAGE_JPEG);
+        
+        HttpEntity<byte[]> requestEntity = new HttpEntity<>(imageData, headers);
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ResponseEntity<String> response = null;
+        try {
+            response = restTemplate.exchange(
                 uploadUrl,
                 HttpMethod.POST,
                 requestEntity,
                 String.class
             );
-            
-            if (response.getStatusCode().is2xxSuccessful()) {
-                // Tagastame avaliku URL-i
-                String publicUrl = supabaseConfig.getSupabaseUrl() + "/storage/v1/object/public/" + 
-                                 supabaseConfig.getBucketName() + "/" + fileName;
-                logger.info("Successfully uploaded image to Supabase Storage: {}", publicUrl);
-                return publicUrl;
-            } else {
-                logger.error("Failed to upload image to Supabase Storage: {}", response.getBody());
-                return null;
-            }
-        } catch (Exception e) {
-            logger.error("Error uploading image to Supabase Storage: {}", e.getMessage(), e);
-            return null; // Varuvariant käivitub
+        } finally {
+            recordStorageCall(sample, "upload", response != null ? response.getStatusCode() : null);
+        }
+        
+        if (response.getStatusCode().is2xxSuccessful()) {
+            recordUploadBytes("buffered", imageData.length);
+            // Tagastame avaliku URL-i
+            String publicUrl = supabaseConfig.getSupabaseUrl() + "/storage/v1/object/public/" + 
+                             supabaseConfig.getBucketName() + "/" + fileName;
+            logger.info("Successfully uploaded image to Supabase Storage: {}", publicUrl);
+            return publicUrl;
+        } else {
+            logger.error("Failed to upload image to Supabase Storage: {}", response.getBody());
+            return null;
         }
     }
 
@@ -167,8 +590,9 @@ public class StorageService {
 
     /**
      * Kontrollib, kas bucket eksisteerib, kui mitte, siis loob selle
+     * @return true, kui bucket on olemas või loodi edukalt
      */
-    private void checkAndCreateBucket() {
+    private boolean checkAndCreateBucket() {
         try {
             // URL bucketi kontrollimiseks
             String bucketUrl = String.format("%s/bucket/%s", 
@@ -182,17 +606,23 @@ public class StorageService {
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
             
             // Proovime bucketi infot pärida
-            ResponseEntity<String> response = restTemplate.exchange(
-                bucketUrl, 
-                HttpMethod.GET, 
-                requestEntity, 
-                String.class
-            );
+            Timer.Sample sample = Timer.start(meterRegistry);
+            ResponseEntity<String> response = null;
+            try {
+                response = restTemplate.exchange(
+                    bucketUrl, 
+                    HttpMethod.GET, 
+                    requestEntity, 
+                    String.class
+                );
+            } finally {
+                recordStorageCall(sample, "bucket_check", response != null ? response.getStatusCode() : null);
+            }
             
             // Kui bucket on olemas, siis logime selle
             if (response.getStatusCode().is2xxSuccessful()) {
                 logger.info("Bucket '{}' already exists", supabaseConfig.getBucketName());
-                return;
+                return true;
             }
         } catch (Exception e) {
             logger.warn("Bucket '{}' check failed: {}", supabaseConfig.getBucketName(), e.getMessage());
@@ -213,21 +643,29 @@ public class StorageService {
             
             HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.exchange(
-                createBucketUrl, 
-                HttpMethod.POST, 
-                requestEntity, 
-                String.class
-            );
+            Timer.Sample sample = Timer.start(meterRegistry);
+            ResponseEntity<String> response = null;
+            try {
+                response = restTemplate.exchange(
+                    createBucketUrl, 
+                    HttpMethod.POST, 
+                    requestEntity, 
+                    String.class
+                );
+            } finally {
+                recordStorageCall(sample, "bucket_create", response != null ? response.getStatusCode() : null);
+            }
             
             if (response.getStatusCode().is2xxSuccessful()) {
                 logger.info("Successfully created bucket '{}'", supabaseConfig.getBucketName());
+                return true;
             } else {
                 logger.error("Failed to create bucket: {}", response.getBody());
             }
         } catch (Exception e) {
             logger.error("Error creating bucket: {}", e.getMessage());
         }
+        return false;
     }
 
     /**
@@ -248,17 +686,23 @@ public class StorageService {
             logger.debug("Delete URL: {}", deleteUrl);
             
             HttpHeaders headers = new HttpHeaders();
-            headers.set("apikey", truncateData(supabaseConfig.getSupabaseServiceKey(), "apikey-"));
-            headers.set("Authorization", "Bearer " + truncateData(supabaseConfig.getSupabaseServiceKey(), "token-"));
+            headers.set("apikey", supabaseConfig.getSupabaseServiceKey());
+            headers.set("Authorization", "Bearer " + supabaseConfig.getSupabaseServiceKey());
             
             HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
             
-            ResponseEntity<String> response = restTemplate.exchange(
-                deleteUrl,
-                HttpMethod.DELETE,
-                requestEntity,
-                String.class
-            );
+            Timer.Sample sample = Timer.start(meterRegistry);
+            ResponseEntity<String> response = null;
+            try {
+                response = restTemplate.exchange(
+                    deleteUrl,
+                    HttpMethod.DELETE,
+                    requestEntity,
+                    String.class
+                );
+            } finally {
+                recordStorageCall(sample, "delete", response != null ? response.getStatusCode() : null);
+            }
             
             if (response.getStatusCode().is2xxSuccessful()) {
                 logger.info("Successfully deleted image from Supabase Storage: {}", fileName);
@@ -272,4 +716,129 @@ public class StorageService {
             return false;
         }
     }
+
+    /**
+     * Kustutab mitu objekti Supabase Storage'ist ühe päringuga
+     * @param fileNames Objektide nimed bucketis
+     * @return true, kui kustutamine õnnestus (puuduvaid objekte ei loeta veaks)
+     */
+    public boolean deleteImages(List<String> fileNames) {
+        if (fileNames == null || fileNames.isEmpty()) {
+            return true;
+        }
+        try {
+            logger.info("Deleting {} images from Supabase Storage", fileNames.size());
+            
+            String deleteUrl = String.format("%s/storage/v1/object/%s",
+                supabaseConfig.getSupabaseUrl(),
+                supabaseConfig.getBucketName());
+            
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("apikey", supabaseConfig.getSupabaseServiceKey());
+            headers.set("Authorization", "Bearer " + supabaseConfig.getSupabaseServiceKey());
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            
+            HttpEntity<Map<String, List<String>>> requestEntity = new HttpEntity<>(Map.of("prefixes", fileNames), headers);
+            
+            Timer.Sample sample = Timer.start(meterRegistry);
+            ResponseEntity<String> response = null;
+            try {
+                response = restTemplate.exchange(
+                    deleteUrl,
+                    HttpMethod.DELETE,
+                    requestEntity,
+                    String.class
+                );
+            } finally {
+                recordStorageCall(sample, "delete_batch", response != null ? response.getStatusCode() : null);
+            }
+            
+            if (response.getStatusCode().is2xxSuccessful()) {
+                logger.info("Successfully deleted {} images from Supabase Storage", fileNames.size());
+                return true;
+            } else {
+                logger.error("Failed to delete images from Supabase Storage: {}", response.getBody());
+                return false;
+            }
+        } catch (Exception e) {
+            logger.error("Error deleting images from Supabase Storage: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Loeb bucketi juurkausta objektide nimekirja lehekülje nime järgi sorditult
+     * @param limit Lehekülje suurus
+     * @param offset Mitu objekti jäetakse vahele
+     * @return Lehekülje objektid; alamkaustu ei tagastata
+     */
+    public List<StorageObject> listObjects(int limit, int offset) {
+        String listUrl = String.format("%s/storage/v1/object/list/%s",
+            supabaseConfig.getSupabaseUrl(),
+            supabaseConfig.getBucketName());
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("apikey", supabaseConfig.getSupabaseServiceKey());
+        headers.set("Authorization", "Bearer " + supabaseConfig.getSupabaseServiceKey());
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        
+        Map<String, Object> body = Map.of(
+            "prefix", "",
+            "limit", limit,
+            "offset", offset,
+            "sortBy", Map.of("column", "name", "order", "asc"));
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ResponseEntity<List<Map<String, Object>>> response = null;
+        try {
+            response = restTemplate.exchange(
+                listUrl,
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                new ParameterizedTypeReference<List<Map<String, Object>>>() {}
+            );
+        } finally {
+            recordStorageCall(sample, "list", response != null ? response.getStatusCode() : null);
+        }
+        
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new RuntimeException("Failed to list storage objects: " + response.getStatusCode());
+        }
+        
+        List<StorageObject> objects = new ArrayList<>(response.getBody().size());
+        for (Map<String, Object> item : response.getBody()) {
+            // Alamkaustadel ID-d pole
+            if (item.get("id") == null || item.get("name") == null) {
+                continue;
+            }
+            objects.add(new StorageObject((String) item.get("name"), parseTimestamp(item.get("created_at"))));
+        }
+        return objects;
+    }
+
+    /**
+     * Tagastab märkme ID, millele pilt üles laaditi, või null, kui nimi pole selle rakenduse loodud
+     */
+    public static Long noteIdOf(String objectName) {
+        Matcher matcher = NOTE_OBJECT_NAME.matcher(objectName);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Instant parseTimestamp(Object value) {
+        if (!(value instanceof String text)) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(text).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
 } 
\ No newline at end of file
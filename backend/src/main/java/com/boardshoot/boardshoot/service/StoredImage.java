@@ -0,0 +1,36 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.ImageVariants;
+
+/**
+ * Salvestatud pildi originaali ja variantide URL-id
+ */
+public class StoredImage {
+
+    private final String originalUrl;
+    private final String thumbnailUrl;
+    private final String previewUrl;
+
+    public StoredImage(String originalUrl, String thumbnailUrl, String previewUrl) {
+        this.originalUrl = originalUrl;
+        // Kui varianti ei loodud (pilt oli väike või vormingut ei toetata), kasutame originaali
+        this.thumbnailUrl = thumbnailUrl != null ? thumbnailUrl : originalUrl;
+        this.previewUrl = previewUrl != null ? previewUrl : originalUrl;
+    }
+
+    public String getOriginalUrl() {
+        return originalUrl;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public String getPreviewUrl() {
+        return previewUrl;
+    }
+
+    public ImageVariants toVariants() {
+        return new ImageVariants(thumbnailUrl, previewUrl);
+    }
+}
@@ -1,81 +1,214 @@
 package com.boardshoot.boardshoot.service;
 
 import com.boardshoot.boardshoot.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Kahetasemeline kasutajate vahemälu: protsessisisene Caffeine (L1) Redis'e (L2) ees.
+ * Kasutaja muutmisel teavitatakse teisi sõlmi Redis'e pub/sub kanali kaudu, et need L1 kirje kustutaksid.
+ */
 @Service
 public class UserCacheService {
     
     private static final Logger logger = LoggerFactory.getLogger(UserCacheService.class);
     private static final String USER_CACHE_KEY_PREFIX = "user:";
+    // Binaarsel kujul kirjetel on eraldi eesliide, et vormingu vahetamisel ei tekiks WRONGTYPE vigu
+    private static final String BINARY_USER_CACHE_KEY_PREFIX = "userb:";
+    private static final StringRedisSerializer KEY_SERIALIZER = StringRedisSerializer.UTF_8;
     private static final long USER_CACHE_TTL = 60 * 60; // 1 tund
+
+    // Kanal, mille kaudu saadetakse muutunud kasutaja kasutajanimi
+    public static final String INVALIDATION_CHANNEL = "boardshoot:user-cache:invalidate";
     
+    // Tehingutoeta template - vahemälu kirjutamine ei sõltu andmebaasi tehingust
     @Autowired
+    @Qualifier("cacheRedisTemplate")
     private RedisTemplate<String, Object> redisTemplate;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${boardshoot.cache.user.local-size:10000}")
+    private long localCacheSize = 10000;
+
+    // Lühike eluiga piirab aegunud andmete kestust, kui teavitus mõnele sõlmele ei jõua
+    @Value("${boardshoot.cache.user.local-ttl-seconds:60}")
+    private long localCacheTtlSeconds = 60;
+
+    // Redis'e kirje vorming: "hash" (väljad JSON-ina räsis) või "binary" (üks kompaktne väärtus)
+    @Value("${boardshoot.cache.user.format:hash}")
+    private String cacheFormat = "hash";
+
+    private final CompactUserSerializer binarySerializer = new CompactUserSerializer();
+
+    private Cache<String, Map<String, Object>> localCache;
+
+    // Loendurid luuakse üks kord, et kohaliku vahemälu tabamus ei peaks registrist loendurit otsima
+    private Counter localHits;
+    private Counter redisHits;
+    private Counter misses;
+    private Counter errors;
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(localCacheSize)
+                .expireAfterWrite(localCacheTtlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "user-local");
+        localHits = lookupCounter("hit", "local");
+        redisHits = lookupCounter("hit", "redis");
+        misses = lookupCounter("miss", "redis");
+        errors = lookupCounter("error", "redis");
+    }
+    
     /**
      * Salvestab kasutaja andmed vahemällu
      */
     public void cacheUser(User user) {
         try {
-            String cacheKey = USER_CACHE_KEY_PREFIX + user.getUsername();
             Map<String, Object> userDetails = mapUserToCache(user);
-            
-            // Salvestame kasutaja andmed Redis'esse
-            redisTemplate.opsForHash().putAll(cacheKey, userDetails);
-            redisTemplate.expire(cacheKey, USER_CACHE_TTL, TimeUnit.SECONDS);
+            if (isBinaryFormat()) {
+                writeBinary(user.getUsername(), userDetails);
+            } else {
+                writeHash(user.getUsername(), userDetails);
+            }
+            localCache.put(user.getUsername(), Collections.unmodifiableMap(userDetails));
             
             logger.info("User cached successfully: {}", user.getUsername());
         } catch (Exception e) {
             logger.error("Error caching user: {}", e.getMessage(), e);
         }
     }
+
+    private void writeHash(String username, Map<String, Object> userDetails) {
+        String cacheKey = USER_CACHE_KEY_PREFIX + username;
+        // Salvestame kasutaja andmed Redis'esse - räsi ja aegumine saadetakse ühe torustatud päringuna
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                ops.opsForHash().putAll(cacheKey, userDetails);
+                ops.expire(cacheKey, USER_CACHE_TTL, TimeUnit.SECONDS);
+                return null;
+            }
+        });
+    }
+
+    private void writeBinary(String username, Map<String, Object> userDetails) {
+        byte[] key = KEY_SERIALIZER.serialize(BINARY_USER_CACHE_KEY_PREFIX + username);
+        byte[] value = binarySerializer.serialize(userDetails);
+        // SET koos aegumisega on üks käsk
+        redisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.stringCommands().set(key, value, Expiration.seconds(USER_CACHE_TTL), SetOption.upsert()));
+    }
     
     /**
-     * Toob kasutaja andmed vahemälust
+     * Toob kasutaja andmed vahemälust: kõigepealt kohalikust mälust, seejärel Redis'est.
+     * Tagastatud Map on muutumatu.
      */
     public Map<String, Object> getCachedUser(String username) {
+        Map<String, Object> local = localCache.getIfPresent(username);
+        if (local != null) {
+            logger.debug("User found in local cache: {}", username);
+            localHits.increment();
+            return local;
+        }
+
         try {
-            String cacheKey = USER_CACHE_KEY_PREFIX + username;
-            Map<Object, Object> entries = redisTemplate.opsForHash().entries(cacheKey);
+            Map<String, Object> cached = isBinaryFormat() ? readBinary(username) : readHash(username);
             
-            if (entries != null && !entries.isEmpty()) {
-                logger.info("User found in cache: {}", username);
-                
-                // Konverteerime Redis vastuse sobivasse formaati
-                Map<String, Object> result = new HashMap<>();
-                entries.forEach((key, value) -> result.put(key.toString(), value));
-                return result;
+            if (cached != null) {
+                logger.debug("User found in Redis cache: {}", username);
+                redisHits.increment();
+                localCache.put(username, cached);
+                return cached;
             }
             
             logger.info("User not found in cache: {}", username);
+            misses.increment();
             return null;
         } catch (Exception e) {
             logger.error("Error getting user from cache: {}", e.getMessage(), e);
+            errors.increment();
             return null;
         }
     }
     
+    private Map<String, Object> readHash(String username) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(USER_CACHE_KEY_PREFIX + username);
+        if (entries == null || entries.isEmpty()) {
+            return null;
+        }
+        // Konverteerime Redis vastuse sobivasse formaati
+        Map<String, Object> result = new HashMap<>();
+        entries.forEach((key, value) -> result.put(key.toString(), value));
+        return Collections.unmodifiableMap(result);
+    }
+
+    private Map<String, Object> readBinary(String username) {
+        byte[] key = KEY_SERIALIZER.serialize(BINARY_USER_CACHE_KEY_PREFIX + username);
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+        return binarySerializer.deserialize(value);
+    }
+
+    private boolean isBinaryFormat() {
+        return "binary".equalsIgnoreCase(cacheFormat);
+    }
+
     /**
      * Kustutab kasutaja andmed vahemälust
      */
     public void invalidateUserCache(String username) {
+        localCache.invalidate(username);
         try {
-            String cacheKey = USER_CACHE_KEY_PREFIX + username;
-            redisTemplate.delete(cacheKey);
+            // Kustutame mõlemas vormingus kirje, et vormingu vahetamisel ei jääks vanu andmeid alles
+            redisTemplate.delete(List.of(USER_CACHE_KEY_PREFIX + username, BINARY_USER_CACHE_KEY_PREFIX + username));
+            // Teavitame teisi sõlmi, et need oma kohaliku kirje kustutaksid
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, username);
             logger.info("User cache invalidated: {}", username);
         } catch (Exception e) {
             logger.error("Error invalidating user cache: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * Kustutab kasutaja kohalikust vahemälust; kutsutakse välja teise sõlme teavituse peale
+     */
+    public void evictLocal(String username) {
+        localCache.invalidate(username);
+        logger.debug("Local user cache entry evicted: {}", username);
+    }
+    
+    private Counter lookupCounter(String result, String level) {
+        return meterRegistry.counter("boardshoot.cache.user.lookups", "result", result, "level", level);
+    }
     
     /**
      * Teisendab User objekti Map'iks, et salvestada Redis'esse
@@ -2,6 +2,7 @@ package com.boardshoot.boardshoot.service;
 
 import com.boardshoot.boardshoot.model.User;
 import com.boardshoot.boardshoot.repository.UserRepository;
+import com.boardshoot.boardshoot.security.TokenRevocationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +21,9 @@ public class UserCacheUpdateService {
     
     @Autowired
     private UserCacheService userCacheService;
+
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
     
     /**
      * Uuendab kasutaja andmeid nii andmebaasis kui ka vahemälus
@@ -30,6 +34,7 @@ public class UserCacheUpdateService {
         
         if (userOptional.isPresent()) {
             User existingUser = userOptional.get();
+            String previousUsername = existingUser.getUsername();
             
             // Uuendame ainult neid välju, mis pole null
             if (updatedUser.getUsername() != null) {
@@ -41,7 +46,8 @@ public class UserCacheUpdateService {
             }
             
             // Parool tuleb krüptida, kui see on olemas
-            if (updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty()) {
+            boolean passwordChanged = updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty();
+            if (passwordChanged) {
                 // Siin peaks olema paroolikrüpteerimine, aga see sõltub teie süsteemist
                 // existingUser.setPassword(passwordEncoder.encode(updatedUser.getPassword()));
                 existingUser.setPassword(updatedUser.getPassword());
@@ -50,9 +56,19 @@ public class UserCacheUpdateService {
             // Salvestame andmebaasi
             User savedUser = userRepository.save(existingUser);
             
-            // Uuendame vahemälu
+            // Uuendame vahemälu (ka vana kasutajanime all olev kirje, kui nimi muutus)
+            if (previousUsername != null && !previousUsername.equals(savedUser.getUsername())) {
+                userCacheService.invalidateUserCache(previousUsername);
+            }
             userCacheService.invalidateUserCache(savedUser.getUsername());
             userCacheService.cacheUser(savedUser);
+
+            // Tokenites sisu on nüüd vananenud; parooli muutmisel tühistatakse vanad tokenid
+            if (passwordChanged) {
+                tokenRevocationRegistry.revokeUser(savedUser.getId());
+            } else {
+                tokenRevocationRegistry.userChanged(savedUser);
+            }
             
             logger.info("User updated successfully in database and cache: {}", savedUser.getUsername());
             return savedUser;
@@ -77,6 +93,7 @@ public class UserCacheUpdateService {
             
             // Kustutame vahemälust
             userCacheService.invalidateUserCache(user.getUsername());
+            tokenRevocationRegistry.revokeUser(userId);
             
             logger.info("User deleted successfully from database and cache: {}", user.getUsername());
         } else {
@@ -4,6 +4,7 @@ import com.boardshoot.boardshoot.config.SecurityConfig;
 import com.boardshoot.boardshoot.model.User;
 import com.boardshoot.boardshoot.repository.UserRepository;
 import com.boardshoot.boardshoot.security.JwtUtils;
+import com.boardshoot.boardshoot.security.TokenRevocationRegistry;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
 import com.boardshoot.boardshoot.security.UserDetailsImpl; 
@@ -48,6 +49,9 @@ class AuthControllerTest {
     @MockBean
     private JwtUtils jwtUtils;
 
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
 
     @MockBean
     private UserDetailsService userDetailsService;
@@ -79,7 +83,7 @@ class AuthControllerTest {
             userToSave.setId(1L);
             return userToSave;
         });
-        when(jwtUtils.generateJwtToken(signUpRequest.getUsername())).thenReturn("dummy.jwt.token");
+        when(jwtUtils.generateJwtToken(any(User.class))).thenReturn("dummy.jwt.token");
 
 
         ResultActions result = mockMvc.perform(post("/auth/signup")
@@ -101,7 +105,7 @@ class AuthControllerTest {
         verify(userRepository).existsByEmail(signUpRequest.getEmail());
         verify(passwordEncoder).encode(signUpRequest.getPassword());
         verify(userRepository).save(any(User.class));
-        verify(jwtUtils).generateJwtToken(signUpRequest.getUsername());
+        verify(jwtUtils).generateJwtToken(any(User.class));
 
         verify(jwtUtils, never()).validateJwtToken(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
@@ -125,7 +129,7 @@ class AuthControllerTest {
         verify(userRepository, never()).existsByEmail(anyString());
         verify(passwordEncoder, never()).encode(anyString());
         verify(userRepository, never()).save(any(User.class));
-        verify(jwtUtils, never()).generateJwtToken(anyString());
+        verify(jwtUtils, never()).generateJwtToken(any(User.class));
         verify(jwtUtils, never()).validateJwtToken(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
@@ -149,7 +153,7 @@ class AuthControllerTest {
         verify(userRepository).existsByEmail(signUpRequest.getEmail());
         verify(passwordEncoder, never()).encode(anyString());
         verify(userRepository, never()).save(any(User.class));
-        verify(jwtUtils, never()).generateJwtToken(anyString());
+        verify(jwtUtils, never()).generateJwtToken(any(User.class));
         verify(jwtUtils, never()).validateJwtToken(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
@@ -161,7 +165,7 @@ class AuthControllerTest {
         User loginRequest = new User("testuser", "password123", null);
         when(userRepository.findByUsername(loginRequest.getUsername())).thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches(loginRequest.getPassword(), testUser.getPassword())).thenReturn(true);
-        when(jwtUtils.generateJwtToken(testUser.getUsername())).thenReturn("dummy.jwt.token");
+        when(jwtUtils.generateJwtToken(testUser)).thenReturn("dummy.jwt.token");
 
         ResultActions result = mockMvc.perform(post("/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -181,7 +185,7 @@ class AuthControllerTest {
 
         verify(userRepository).findByUsername(loginRequest.getUsername());
         verify(passwordEncoder).matches(loginRequest.getPassword(), testUser.getPassword());
-        verify(jwtUtils).generateJwtToken(testUser.getUsername());
+        verify(jwtUtils).generateJwtToken(testUser);
         verify(jwtUtils, never()).validateJwtToken(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
@@ -202,7 +206,7 @@ class AuthControllerTest {
 
         verify(userRepository).findByUsername(loginRequest.getUsername());
         verify(passwordEncoder, never()).matches(anyString(), anyString());
-        verify(jwtUtils, never()).generateJwtToken(anyString());
+        verify(jwtUtils, never()).generateJwtToken(any(User.class));
   
         verify(jwtUtils, never()).validateJwtToken(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
@@ -225,7 +229,7 @@ class AuthControllerTest {
 
         verify(userRepository).findByUsername(loginRequest.getUsername());
         verify(passwordEncoder).matches(loginRequest.getPassword(), testUser.getPassword());
-        verify(jwtUtils, never()).generateJwtToken(anyString());
+        verify(jwtUtils, never()).generateJwtToken(any(User.class));
         verify(jwtUtils, never()).validateJwtToken(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
@@ -0,0 +1,84 @@
+package com.boardshoot.boardshoot.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import com.boardshoot.boardshoot.service.LocalBlobStore;
+import com.boardshoot.boardshoot.security.CustomUserDetailsService;
+import com.boardshoot.boardshoot.security.JwtUtils;
+import com.boardshoot.boardshoot.security.TokenRevocationRegistry;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.hamcrest.Matchers.containsString;
+
+@WebMvcTest(BlobController.class)
+@WithMockUser
+class BlobControllerTest {
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        @Primary
+        public CustomUserDetailsService primaryMockUserDetailsService() {
+            return Mockito.mock(CustomUserDetailsService.class);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LocalBlobStore localBlobStore;
+
+    @MockBean
+    private JwtUtils jwtUtils;
+
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @MockBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @TempDir
+    Path tempDir;
+
+    private static final String HASH = "a".repeat(64);
+
+    @Test
+    void getBlob_shouldStreamStoredFile() throws Exception {
+        Path blob = Files.write(tempDir.resolve(HASH), "png bytes".getBytes());
+        when(localBlobStore.find(HASH)).thenReturn(Optional.of(blob));
+        when(localBlobStore.detectContentType(blob)).thenReturn(MediaType.IMAGE_PNG);
+
+        mockMvc.perform(get("/api/blobs/{hash}", HASH))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().bytes("png bytes".getBytes()))
+                .andExpect(header().string("ETag", "\"" + HASH + "\""))
+                .andExpect(header().string("Cache-Control", containsString("immutable")));
+    }
+
+    @Test
+    void getBlob_shouldReturnNotFound_whenBlobIsMissing() throws Exception {
+        when(localBlobStore.find(HASH)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/blobs/{hash}", HASH))
+                .andExpect(status().isNotFound());
+    }
+}
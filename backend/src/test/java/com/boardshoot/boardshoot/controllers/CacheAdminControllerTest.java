@@ -0,0 +1,106 @@
+package com.boardshoot.boardshoot.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import com.boardshoot.boardshoot.service.CacheInspectionService;
+import com.boardshoot.boardshoot.service.CachePrefixStats;
+import com.boardshoot.boardshoot.security.CustomUserDetailsService;
+import com.boardshoot.boardshoot.security.JwtUtils;
+import com.boardshoot.boardshoot.security.TokenRevocationRegistry;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.hamcrest.Matchers.is;
+
+@WebMvcTest(CacheAdminController.class)
+@WithMockUser
+class CacheAdminControllerTest {
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        @Primary
+        public CustomUserDetailsService primaryMockUserDetailsService() {
+            return Mockito.mock(CustomUserDetailsService.class);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CacheInspectionService cacheInspectionService;
+
+    @MockBean
+    private JwtUtils jwtUtils;
+
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @MockBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamKeys_shouldWriteOneJsonStringPerLine() throws Exception {
+        when(cacheInspectionService.scanKeys(eq("user:*"), eq(100), eq(50L), any())).thenAnswer(invocation -> {
+            Consumer<String> sink = invocation.getArgument(3);
+            sink.accept("user:alice");
+            sink.accept("user:bob");
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/cache-admin/keys")
+                        .param("pattern", "user:*")
+                        .param("count", "100")
+                        .param("limit", "50"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(content().string("\"user:alice\"\n\"user:bob\"\n"));
+    }
+
+    @Test
+    void getStats_shouldReturnStatsPerPrefix() throws Exception {
+        Map<String, CachePrefixStats> stats = new TreeMap<>();
+        stats.put("user:", new CachePrefixStats("user:"));
+        when(cacheInspectionService.inspect("*", 500, 10000L)).thenReturn(stats);
+
+        mockMvc.perform(get("/api/cache-admin/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pattern", is("*")))
+                .andExpect(jsonPath("$.scannedKeys", is(0)))
+                .andExpect(jsonPath("$.truncated", is(false)))
+                .andExpect(jsonPath("$.prefixes[0].prefix", is("user:")))
+                .andExpect(jsonPath("$.prefixes[0].ttlDistribution.none", is(0)));
+    }
+
+    @Test
+    void getStats_shouldReturnServerError_whenRedisFails() throws Exception {
+        when(cacheInspectionService.inspect(any(), anyInt(), anyLong())).thenThrow(new RuntimeException("Connection refused"));
+
+        mockMvc.perform(get("/api/cache-admin/stats"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+}
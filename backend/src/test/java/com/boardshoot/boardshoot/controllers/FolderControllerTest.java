@@ -15,9 +15,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.boardshoot.boardshoot.model.Folder;
 import com.boardshoot.boardshoot.model.User;
 import com.boardshoot.boardshoot.repository.UserRepository;
+import com.boardshoot.boardshoot.service.ContentVersionService;
 import com.boardshoot.boardshoot.service.FolderService;
 import com.boardshoot.boardshoot.security.CustomUserDetailsService; 
 import com.boardshoot.boardshoot.security.JwtUtils; 
+import com.boardshoot.boardshoot.security.TokenRevocationRegistry;
 
 import java.util.Arrays;
 import java.util.List;
@@ -59,9 +61,15 @@ class FolderControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private ContentVersionService contentVersionService;
+
     @MockBean
     private JwtUtils jwtUtils;
 
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @MockBean
     private CustomUserDetailsService customUserDetailsService;
 
@@ -96,6 +104,19 @@ class FolderControllerTest {
         verify(folderService).getCurrentUserFolders();
     }
 
+    @Test
+    void getAllFolders_shouldReturnNotModified_whenETagMatches() throws Exception {
+        when(folderService.getCurrentUserFoldersETag()).thenReturn("\"abc123\"");
+
+        mockMvc.perform(get("/api/folders")
+                        .header("If-None-Match", "\"abc123\"")
+                        .with(csrf()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc123\""));
+
+        verify(folderService, never()).getCurrentUserFolders();
+    }
+
     @Test
     void testEndpoint_shouldReturnOk() throws Exception {
         mockMvc.perform(get("/api/folders/test"))
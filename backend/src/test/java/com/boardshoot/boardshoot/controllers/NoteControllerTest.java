@@ -1,5 +1,6 @@
 package com.boardshoot.boardshoot.controllers;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.security.test.context.support.WithMockUser;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -17,18 +20,34 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.boardshoot.boardshoot.model.Folder;
 import com.boardshoot.boardshoot.model.Note;
 import com.boardshoot.boardshoot.model.User;
+import com.boardshoot.boardshoot.service.AutosaveFailedException;
+import com.boardshoot.boardshoot.service.AutosaveState;
+import com.boardshoot.boardshoot.service.ContentVersionService;
+import com.boardshoot.boardshoot.service.EntityCacheService;
+import com.boardshoot.boardshoot.service.ImageUploadJob;
+import com.boardshoot.boardshoot.service.ImageUploadJobService;
+import com.boardshoot.boardshoot.service.NoteAutosaveService;
 import com.boardshoot.boardshoot.service.NoteService;
+import com.boardshoot.boardshoot.service.NoteSummary;
+import com.boardshoot.boardshoot.service.NoteSummaryPage;
 import com.boardshoot.boardshoot.security.CustomUserDetailsService; 
 import com.boardshoot.boardshoot.security.JwtUtils; 
+import com.boardshoot.boardshoot.security.TokenRevocationRegistry;
 
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -60,12 +79,30 @@ class NoteControllerTest {
     @MockBean
     private NoteService noteService;
 
+    @MockBean
+    private ImageUploadJobService imageUploadJobService;
+
+    @MockBean
+    private ContentVersionService contentVersionService;
+
+    @MockBean
+    private NoteAutosaveService noteAutosaveService;
+
     @MockBean
     private JwtUtils jwtUtils;
 
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @MockBean
     private CustomUserDetailsService customUserDetailsService;
 
+    @BeforeEach
+    void setUp() {
+        // Automaatsalvestuse kirjutusi pole, kliendi versioon jääb samaks
+        when(noteAutosaveService.resolveVersion(any(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+    }
+
 
     private Note createTestNote(Long id, Long folderId, Long userId, String title, String text) {
         Note note = new Note();
@@ -78,7 +115,7 @@ class NoteControllerTest {
         if (text != null) {
             note.setTexts(new ArrayList<>(List.of(text)));
         }
-        note.setImageUrls(new ArrayList<>());
+        note.setImages(new ArrayList<>());
         return note;
     }
 
@@ -104,6 +141,73 @@ class NoteControllerTest {
         verify(noteService).getNotesForFolder(folderId);
     }
 
+    @Test
+    void getNotes_shouldReturnETag_whenVersionAvailable() throws Exception {
+        Long folderId = 1L;
+        when(contentVersionService.getETag(EntityCacheService.FOLDER_NOTES, folderId)).thenReturn("\"abc123\"");
+        when(noteService.getNotesForFolder(folderId)).thenReturn(List.of(createTestNote(10L, folderId, 1L, "Note 1", "Text 1")));
+
+        mockMvc.perform(get("/api/folders/{folderId}/notes", folderId)
+                        .header("If-None-Match", "\"old\"")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void getNotes_shouldReturnNotModified_whenETagMatches() throws Exception {
+        Long folderId = 1L;
+        when(contentVersionService.getETag(EntityCacheService.FOLDER_NOTES, folderId)).thenReturn("\"abc123\"");
+
+        mockMvc.perform(get("/api/folders/{folderId}/notes", folderId)
+                        .header("If-None-Match", "\"abc123\"")
+                        .with(csrf()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(content().string(""));
+
+        verify(noteService, never()).getNotesForFolder(anyLong());
+    }
+
+    @Test
+    void getNoteSummaries_shouldReturnPageWithCursor() throws Exception {
+        Long folderId = 1L;
+        NoteSummaryPage page = new NoteSummaryPage(List.of(
+                new NoteSummary(10L, "Note 1", "Text 1", 2, "https://example.com/thumb1.jpg"),
+                new NoteSummary(11L, "Note 2", null, 0, null)), 11L);
+
+        when(noteService.getNoteSummaries(folderId, 5L, 2)).thenReturn(page);
+
+        mockMvc.perform(get("/api/folders/{folderId}/notes/summary", folderId)
+                        .param("after", "5")
+                        .param("limit", "2")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is(10)))
+                .andExpect(jsonPath("$.items[0].imageCount", is(2)))
+                .andExpect(jsonPath("$.items[0].thumbnailUrl", is("https://example.com/thumb1.jpg")))
+                .andExpect(jsonPath("$.nextCursor", is(11)))
+                .andExpect(jsonPath("$.hasMore", is(true)));
+
+        verify(noteService).getNoteSummaries(folderId, 5L, 2);
+    }
+
+    @Test
+    void getNoteSummaries_shouldUseDefaultsForFirstPage() throws Exception {
+        Long folderId = 1L;
+        when(noteService.getNoteSummaries(folderId, null, 50)).thenReturn(new NoteSummaryPage(List.of(), null));
+
+        mockMvc.perform(get("/api/folders/{folderId}/notes/summary", folderId)
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+
+        verify(noteService).getNoteSummaries(folderId, null, 50);
+    }
+
     @Test
     void createNote_shouldReturnCreatedNote() throws Exception {
         Long folderId = 1L;
@@ -153,6 +257,20 @@ class NoteControllerTest {
         verify(noteService).getNote(noteId);
     }
 
+    @Test
+    void getNote_shouldReturnNotModified_whenETagMatches() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 20L;
+        when(contentVersionService.getETag(EntityCacheService.NOTES, noteId)).thenReturn("\"def456\"");
+
+        mockMvc.perform(get("/api/folders/{folderId}/notes/{noteId}", folderId, noteId)
+                        .header("If-None-Match", "\"def456\"")
+                        .with(csrf()))
+                .andExpect(status().isNotModified());
+
+        verify(noteService, never()).getNote(anyLong());
+    }
+
 
     @Test
     void updateNote_shouldReturnUpdatedNote() throws Exception {
@@ -181,6 +299,128 @@ class NoteControllerTest {
         verify(noteService).updateNote(eq(noteId), eq("Updated Title"), eq("Updated Text"));
     }
 
+    @Test
+    void patchNote_shouldPassVersionAndSingleText() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 30L;
+        Note patchedNote = createTestNote(noteId, folderId, 1L, "Title", "Edited");
+        patchedNote.setVersion(4L);
+
+        when(noteService.patchNote(eq(noteId), eq(3L), isNull(), eq(List.of("Edited")))).thenReturn(patchedNote);
+
+        mockMvc.perform(patch("/api/folders/{folderId}/notes/{noteId}", folderId, noteId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":3,\"text\":\"Edited\"}")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(4)))
+                .andExpect(jsonPath("$.texts[0]", is("Edited")));
+    }
+
+    @Test
+    void autosaveNote_shouldBufferEditsAndReturnAccepted() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 30L;
+        when(noteAutosaveService.applyEdits(eq(noteId), anyList())).thenReturn(new AutosaveState(List.of("Hello!"), 3L));
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/{noteId}/autosave", folderId, noteId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"edits\":[{\"index\":0,\"offset\":5,\"insert\":\"!\"}]}")
+                        .with(csrf()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.texts[0]", is("Hello!")))
+                .andExpect(jsonPath("$.version", is(3)));
+
+        verify(noteService, never()).updateNote(anyLong(), any(), any());
+    }
+
+    @Test
+    void autosaveNote_shouldReturnBadRequest_whenEditIsInvalid() throws Exception {
+        when(noteAutosaveService.applyEdits(eq(30L), anyList())).thenThrow(new IllegalArgumentException("Text index out of range: 4"));
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/{noteId}/autosave", 1L, 30L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"edits\":[{\"index\":4,\"text\":\"x\"}]}")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Text index out of range: 4")));
+    }
+
+    @Test
+    void autosaveNote_shouldReturnBufferedTexts_whenEarlierEditsCouldNotBeSaved() throws Exception {
+        when(noteAutosaveService.applyEdits(eq(30L), anyList()))
+            .thenThrow(new AutosaveFailedException("Buffered edits could not be saved: timeout", List.of("Kept"), false));
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/{noteId}/autosave", 1L, 30L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"edits\":[{\"index\":0,\"text\":\"x\"}]}")
+                        .with(csrf()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.texts[0]", is("Kept")));
+    }
+
+    @Test
+    void flushAutosave_shouldReturnConflictWithBufferedTexts() throws Exception {
+        doThrow(new AutosaveFailedException("Note was modified by another request", List.of("Mine"), true))
+            .when(noteAutosaveService).flushNoteOrThrow(30L);
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/{noteId}/autosave/flush", 1L, 30L)
+                        .with(csrf()))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.texts[0]", is("Mine")));
+    }
+
+    @Test
+    void patchNote_shouldNotConflictWithClientsOwnAutosave() throws Exception {
+        Note patchedNote = createTestNote(30L, 1L, 1L, "Title", "Edited");
+        patchedNote.setVersion(6L);
+        // Puhvri kirjutus tõstis versiooni 3 -> 5
+        when(noteAutosaveService.resolveVersion(30L, 3L)).thenReturn(5L);
+        when(noteService.patchNote(eq(30L), eq(5L), isNull(), eq(List.of("Edited")))).thenReturn(patchedNote);
+
+        mockMvc.perform(patch("/api/folders/{folderId}/notes/{noteId}", 1L, 30L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":3,\"text\":\"Edited\"}")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(6)));
+
+        var inOrder = inOrder(noteAutosaveService, noteService);
+        inOrder.verify(noteAutosaveService).flushNote(30L);
+        inOrder.verify(noteAutosaveService).resolveVersion(30L, 3L);
+        inOrder.verify(noteService).patchNote(eq(30L), eq(5L), isNull(), eq(List.of("Edited")));
+    }
+
+    @Test
+    void getNote_shouldFlushBufferedAutosaveFirst() throws Exception {
+        Long noteId = 20L;
+        when(noteService.getNote(noteId)).thenReturn(createTestNote(noteId, 1L, 1L, "Note", "Text"));
+
+        mockMvc.perform(get("/api/folders/{folderId}/notes/{noteId}", 1L, noteId)
+                        .with(csrf()))
+                .andExpect(status().isOk());
+
+        var inOrder = inOrder(noteAutosaveService, noteService);
+        inOrder.verify(noteAutosaveService).flushNote(noteId);
+        inOrder.verify(noteService).getNote(noteId);
+    }
+
+    @Test
+    void patchNote_shouldReturnConflict_whenVersionIsStale() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 30L;
+
+        when(noteService.patchNote(eq(noteId), eq(2L), eq("Title"), isNull()))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Note.class, noteId));
+
+        mockMvc.perform(patch("/api/folders/{folderId}/notes/{noteId}", folderId, noteId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":2,\"title\":\"Title\"}")
+                        .with(csrf()))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+
  
 
 
@@ -230,7 +470,7 @@ class NoteControllerTest {
 
        
         Note updatedNote = createTestNote(noteId, folderId, 1L, "Note with image", null);
-        updatedNote.addImageUrl("http://example.com/image.jpg");
+        updatedNote.addImage("http://example.com/image.jpg", null);
         when(noteService.addImageToNote(eq(noteId), eq(imageBytes))).thenReturn(updatedNote);
 
 
@@ -295,4 +535,263 @@ class NoteControllerTest {
 
         verify(noteService).addImageToNote(eq(noteId), eq(imageBytes));
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamImageToNote_shouldPassRawBodyAsStream() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 54L;
+        byte[] imageBytes = "raw image bytes".getBytes();
+
+        Note updatedNote = createTestNote(noteId, folderId, 1L, "Note with image", null);
+        when(noteService.addImageToNote(eq(noteId), any(InputStream.class), eq((long) imageBytes.length), eq(MediaType.IMAGE_PNG)))
+            .thenReturn(updatedNote);
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/{noteId}/images", folderId, noteId)
+                        .contentType(MediaType.IMAGE_PNG)
+                        .content(imageBytes)
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.message", is("Image added successfully")));
+
+        verify(noteService).addImageToNote(eq(noteId), any(InputStream.class), eq((long) imageBytes.length), eq(MediaType.IMAGE_PNG));
+        verify(noteService, never()).addImageToNote(anyLong(), any(byte[].class));
+    }
+
+    @Test
+    void streamImageToNote_shouldReturnBadRequest_whenBodyIsEmpty() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 55L;
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/{noteId}/images", folderId, noteId)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[0])
+                        .with(csrf()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success", is(false)))
+                .andExpect(jsonPath("$.message", is("Image is required")));
+
+        verify(noteService, never()).addImageToNote(anyLong(), any(InputStream.class), anyLong(), any());
+    }
+
+    @Test
+    void uploadImageToNote_shouldStreamMultipartPart() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 56L;
+        MockMultipartFile image = new MockMultipartFile("image", "photo.jpg", MediaType.IMAGE_JPEG_VALUE, "jpeg bytes".getBytes());
+
+        Note updatedNote = createTestNote(noteId, folderId, 1L, "Note with image", null);
+        when(noteService.addImageToNote(eq(noteId), any(InputStream.class), eq(image.getSize()), eq(MediaType.IMAGE_JPEG)))
+            .thenReturn(updatedNote);
+
+        mockMvc.perform(multipart("/api/folders/{folderId}/notes/{noteId}/images", folderId, noteId)
+                        .file(image)
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)));
+
+        verify(noteService).addImageToNote(eq(noteId), any(InputStream.class), eq(image.getSize()), eq(MediaType.IMAGE_JPEG));
+    }
+
+    @Test
+    void streamImageToNote_shouldHandleServiceError() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 57L;
+
+        when(noteService.addImageToNote(eq(noteId), any(InputStream.class), anyLong(), any()))
+            .thenThrow(new RuntimeException("Storage service unavailable"));
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/{noteId}/images", folderId, noteId)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("bytes".getBytes())
+                        .with(csrf()))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.success", is(false)))
+                .andExpect(jsonPath("$.message", is("Server error: Storage service unavailable")));
+    }
+
+    @Test
+    void addImageToNoteAsync_shouldReturnAcceptedWithJobId() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 60L;
+        byte[] imageBytes = "async image".getBytes();
+        ImageUploadJob job = new ImageUploadJob("job-1", noteId, Path.of("job-1.upload"), imageBytes.length, MediaType.IMAGE_JPEG);
+
+        when(imageUploadJobService.submit(eq(noteId), any(InputStream.class), eq((long) imageBytes.length), eq(MediaType.IMAGE_JPEG)))
+            .thenReturn(job);
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/{noteId}/images/async", folderId, noteId)
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .content(imageBytes)
+                        .with(csrf()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.jobId", is("job-1")))
+                .andExpect(jsonPath("$.status", is("PENDING")))
+                .andExpect(jsonPath("$.statusUrl", is("/api/folders/1/notes/60/images/jobs/job-1")));
+
+        verify(noteService, never()).addImageToNote(anyLong(), any(InputStream.class), anyLong(), any());
+    }
+
+    @Test
+    void addImageToNoteAsync_shouldReturnServiceUnavailable_whenQueueIsFull() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 61L;
+
+        when(imageUploadJobService.submit(eq(noteId), any(InputStream.class), anyLong(), any()))
+            .thenThrow(new RejectedExecutionException("Image upload queue is full"));
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/{noteId}/images/async", folderId, noteId)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("bytes".getBytes())
+                        .with(csrf()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+
+    @Test
+    void getImageUploadJob_shouldReturnJobStatus() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 62L;
+        ImageUploadJob job = new ImageUploadJob("job-2", noteId, Path.of("job-2.upload"), 10, MediaType.IMAGE_JPEG);
+
+        when(imageUploadJobService.getJob("job-2")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/folders/{folderId}/notes/{noteId}/images/jobs/{jobId}", folderId, noteId, "job-2")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is("job-2")))
+                .andExpect(jsonPath("$.noteId", is(noteId.intValue())))
+                .andExpect(jsonPath("$.status", is("PENDING")))
+                .andExpect(jsonPath("$.stagedFile").doesNotExist());
+    }
+
+    @Test
+    void getImageUploadJob_shouldReturnNotFound_forOtherNote() throws Exception {
+        ImageUploadJob job = new ImageUploadJob("job-3", 63L, Path.of("job-3.upload"), 10, MediaType.IMAGE_JPEG);
+
+        when(imageUploadJobService.getJob("job-3")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/folders/{folderId}/notes/{noteId}/images/jobs/{jobId}", 1L, 64L, "job-3")
+                        .with(csrf()))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", is("Job not found")));
+    }
+
+    @Test
+    void reorderImages_shouldUseImageIds_whenGiven() throws Exception {
+        Long folderId = 1L;
+        Long noteId = 70L;
+        Note note = createTestNote(noteId, folderId, 1L, "Images", null);
+        note.addImage("/api/blobs/b", null);
+        note.addImage("/api/blobs/a", null);
+
+        when(noteService.reorderImagesById(noteId, List.of(8L, 7L))).thenReturn(note);
+
+        mockMvc.perform(put("/api/folders/{folderId}/notes/{noteId}/images/reorder", folderId, noteId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"imageIds\":[8,7]}")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageUrls[0]", is("/api/blobs/b")))
+                .andExpect(jsonPath("$.images[1].position", is(1)));
+
+        verify(noteService, never()).reorderImages(anyLong(), anyList());
+    }
+
+    @Test
+    void deleteImageById_shouldReturnNotFound_whenImageIsNotInNote() throws Exception {
+        when(noteService.deleteImageById(71L, 9L)).thenReturn(false);
+
+        mockMvc.perform(delete("/api/folders/{folderId}/notes/{noteId}/images/{imageId}", 1L, 71L, 9L)
+                        .with(csrf()))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+
+    @Test
+    void deleteImageById_shouldDeleteImage() throws Exception {
+        when(noteService.deleteImageById(72L, 10L)).thenReturn(true);
+
+        mockMvc.perform(delete("/api/folders/{folderId}/notes/{noteId}/images/{imageId}", 1L, 72L, 10L)
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)));
+    }
+
+    @Test
+    void createNotes_shouldReturnCreatedNotes() throws Exception {
+        Long folderId = 1L;
+        List<Note> created = List.of(
+                createTestNote(80L, folderId, 1L, "First", "a"),
+                createTestNote(81L, folderId, 1L, "Second", null));
+
+        when(noteService.createNotes(eq(folderId), anyList())).thenReturn(created);
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/bulk", folderId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"notes\":[{\"title\":\"First\",\"text\":\"a\"},{\"title\":\"Second\"}]}")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].id", is(81)));
+    }
+
+    @Test
+    void createNotes_shouldReturnBadRequest_whenTooManyNotes() throws Exception {
+        when(noteService.createNotes(eq(1L), anyList()))
+                .thenThrow(new IllegalArgumentException("At most 1000 notes per request"));
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/bulk", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"notes\":[{\"title\":\"x\"}]}")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("At most 1000 notes per request")));
+    }
+
+    @Test
+    void moveNotes_shouldFlushAutosavesAndMove() throws Exception {
+        when(noteService.moveNotes(1L, List.of(82L, 83L), 2L)).thenReturn(2);
+
+        mockMvc.perform(post("/api/folders/{folderId}/notes/bulk/move", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"noteIds\":[82,83],\"targetFolderId\":2}")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.moved", is(2)));
+
+        verify(noteAutosaveService).flushNote(82L);
+        verify(noteAutosaveService).flushNote(83L);
+    }
+
+    @Test
+    void deleteNotes_shouldDiscardAutosavesOfDeletedNotesOnly() throws Exception {
+        // 85 kuulub teise kausta ja jääb alles
+        when(noteService.deleteNotes(1L, List.of(84L, 85L))).thenReturn(List.of(84L));
+
+        mockMvc.perform(delete("/api/folders/{folderId}/notes/bulk", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"noteIds\":[84,85]}")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted", is(1)));
+
+        verify(noteAutosaveService).discard(84L);
+        verify(noteAutosaveService, never()).discard(85L);
+    }
+
+    @Test
+    void deleteNotes_shouldKeepAutosaves_whenRequestIsRejected() throws Exception {
+        when(noteService.deleteNotes(1L, List.of(84L))).thenThrow(new RuntimeException("Folder not found or does not belong to you"));
+
+        mockMvc.perform(delete("/api/folders/{folderId}/notes/bulk", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"noteIds\":[84]}")
+                        .with(csrf()))
+                .andExpect(status().isInternalServerError());
+
+        verify(noteAutosaveService, never()).discard(any());
+    }
+}
@@ -22,6 +22,7 @@ import com.boardshoot.boardshoot.model.User;
 import com.boardshoot.boardshoot.repository.UserRepository;
 import com.boardshoot.boardshoot.security.CustomUserDetailsService;
 import com.boardshoot.boardshoot.security.JwtUtils;
+import com.boardshoot.boardshoot.security.TokenRevocationRegistry;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -67,6 +68,9 @@ class UserControllerTest {
     @MockBean
     private JwtUtils jwtUtils;
 
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
 
     @MockBean
     private CustomUserDetailsService customUserDetailsService;
@@ -147,6 +151,8 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.username", is("newName")))
                 .andExpect(jsonPath("$.email", is("new@example.com")))
                 .andExpect(jsonPath("$.password", is("newPass"))); 
+
+        verify(tokenRevocationRegistry).revokeUser(userId);
     }
 
  
@@ -179,6 +185,9 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.username", is("newName"))) 
                 .andExpect(jsonPath("$.email", is("old@example.com"))) 
                 .andExpect(jsonPath("$.password", is("oldPass"))); 
+
+        verify(tokenRevocationRegistry).userChanged(expectedToBeSaved);
+        verify(tokenRevocationRegistry, never()).revokeUser(anyLong());
     }
 
    
@@ -199,6 +208,7 @@ class UserControllerTest {
 
         verify(userRepository).findById(userId);
         verify(userRepository).deleteById(userId);
+        verify(tokenRevocationRegistry).revokeUser(userId);
     }
 
   
@@ -1,5 +1,7 @@
 package com.boardshoot.boardshoot.security;
 import com.boardshoot.boardshoot.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,6 +17,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 import java.io.IOException;
+import java.util.Date;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -28,6 +32,9 @@ class JwtAuthenticationFilterTest {
     @Mock
     private UserDetailsService userDetailsService; 
 
+    @Mock
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
     @Mock
     private HttpServletRequest request;
 
@@ -55,8 +62,7 @@ class JwtAuthenticationFilterTest {
         UserDetails mockUserDetails = UserDetailsImpl.build(new User(username, "pass", "email@test.com"));
 
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseValidatedClaims(jwt)).thenReturn(Optional.of(Jwts.claims().subject(username).build()));
         when(userDetailsService.loadUserByUsername(username)).thenReturn(mockUserDetails);
 
 
@@ -68,18 +74,69 @@ class JwtAuthenticationFilterTest {
         assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isEqualTo(mockUserDetails);
 
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtils).validateJwtToken(jwt);
-        verify(jwtUtils).getUserNameFromJwtToken(jwt);
+        // Token parsitakse ainult üks kord
+        verify(jwtUtils).parseValidatedClaims(jwt);
+        verify(jwtUtils, never()).validateJwtToken(anyString());
+        verify(jwtUtils, never()).getUserNameFromJwtToken(anyString());
         verify(userDetailsService).loadUserByUsername(username);
     }
 
+    @Test
+    void doFilterInternal_shouldBuildPrincipalFromClaims_withoutLoadingUser() throws ServletException, IOException {
+        String jwt = "valid.jwt.token";
+        Date issuedAt = new Date();
+        Claims claims = Jwts.claims()
+                .subject("testuser")
+                .issuedAt(issuedAt)
+                .add(JwtUtils.CLAIM_USER_ID, 7L)
+                .add(JwtUtils.CLAIM_EMAIL, "email@test.com")
+                .build();
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
+        when(jwtUtils.parseValidatedClaims(jwt)).thenReturn(Optional.of(claims));
+        when(tokenRevocationRegistry.currentPrincipal(any(UserDetailsImpl.class), any(Date.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        UserDetailsImpl principal = (UserDetailsImpl) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertThat(principal.getId()).isEqualTo(7L);
+        assertThat(principal.getUsername()).isEqualTo("testuser");
+        assertThat(principal.getEmail()).isEqualTo("email@test.com");
+
+        verify(filterChain).doFilter(request, response);
+        // Kasutajat ei laeta andmebaasist
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void doFilterInternal_shouldNotSetAuthentication_whenTokenIsRevoked() throws ServletException, IOException {
+        String jwt = "revoked.jwt.token";
+        Claims claims = Jwts.claims()
+                .subject("testuser")
+                .issuedAt(new Date())
+                .add(JwtUtils.CLAIM_USER_ID, 7L)
+                .build();
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
+        when(jwtUtils.parseValidatedClaims(jwt)).thenReturn(Optional.of(claims));
+        when(tokenRevocationRegistry.currentPrincipal(any(UserDetailsImpl.class), any(Date.class))).thenReturn(null);
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userDetailsService);
+    }
+
     @Test
     void doFilterInternal_shouldNotSetAuthentication_whenTokenIsInvalid() throws ServletException, IOException {
         String jwt = "invalid.jwt.token";
         String authHeader = "Bearer " + jwt;
 
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(false); 
+        when(jwtUtils.parseValidatedClaims(jwt)).thenReturn(Optional.empty()); 
 
       
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -87,7 +144,7 @@ class JwtAuthenticationFilterTest {
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
 
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtils).validateJwtToken(jwt);
+        verify(jwtUtils).parseValidatedClaims(jwt);
         verify(jwtUtils, never()).getUserNameFromJwtToken(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
@@ -126,7 +183,7 @@ class JwtAuthenticationFilterTest {
 
         when(request.getHeader("Authorization")).thenReturn(authHeader);
      
-        when(jwtUtils.validateJwtToken(jwt)).thenThrow(new RuntimeException("JWT parsing error"));
+        when(jwtUtils.parseValidatedClaims(jwt)).thenThrow(new RuntimeException("JWT parsing error"));
 
      
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -134,7 +191,7 @@ class JwtAuthenticationFilterTest {
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
 
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtils).validateJwtToken(jwt);
+        verify(jwtUtils).parseValidatedClaims(jwt);
         verifyNoInteractions(userDetailsService);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.boardshoot.boardshoot.security;
 
+import com.boardshoot.boardshoot.model.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
@@ -7,6 +9,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils; 
 
+import java.util.Base64;
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 
@@ -116,4 +121,94 @@ class JwtUtilsTest {
          boolean isValidEmpty = jwtUtils.validateJwtToken("");
          assertThat(isValidEmpty).isFalse(); 
     }
-}
\ No newline at end of file
+
+    @Test
+    void parseValidatedClaims_shouldReturnClaimsForValidToken() {
+        String token = jwtUtils.generateJwtToken("testuser");
+
+        Optional<Claims> claims = jwtUtils.parseValidatedClaims(token);
+
+        assertThat(claims).isPresent();
+        assertThat(claims.get().getSubject()).isEqualTo("testuser");
+        assertThat(claims.get().getExpiration()).isInTheFuture();
+    }
+
+    @Test
+    void parseValidatedClaims_shouldReuseVerifiedClaimsForSameToken() {
+        String token = jwtUtils.generateJwtToken("testuser");
+
+        Claims first = jwtUtils.parseValidatedClaims(token).orElseThrow();
+        Claims second = jwtUtils.parseValidatedClaims(token).orElseThrow();
+
+        // Teine kutse tuleb vahemälust, allkirja uuesti ei kontrollita
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void parseValidatedClaims_shouldRejectTamperedTokenEvenWhenOriginalIsCached() {
+        String token = jwtUtils.generateJwtToken("testuser");
+        assertThat(jwtUtils.parseValidatedClaims(token)).isPresent();
+
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\"}".getBytes());
+        String tamperedToken = parts[0] + "." + forgedPayload + "." + parts[2];
+
+        assertThat(jwtUtils.parseValidatedClaims(tamperedToken)).isEmpty();
+    }
+
+    @Test
+    void parseValidatedClaims_shouldNotCacheExpiredToken() throws InterruptedException {
+        // Tokeni aegumisaeg on sekundi täpsusega
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 2000);
+        String token = jwtUtils.generateJwtToken("testuser");
+        assertThat(jwtUtils.parseValidatedClaims(token)).isPresent();
+
+        Thread.sleep(2100);
+
+        assertThat(jwtUtils.parseValidatedClaims(token)).isEmpty();
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", testExpirationMs);
+    }
+
+    @Test
+    void parseValidatedClaims_shouldWorkWithCacheDisabled() {
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheSize", 0);
+        String token = jwtUtils.generateJwtToken("testuser");
+
+        Claims first = jwtUtils.parseValidatedClaims(token).orElseThrow();
+        Claims second = jwtUtils.parseValidatedClaims(token).orElseThrow();
+
+        assertThat(first.getSubject()).isEqualTo("testuser");
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    void generateJwtToken_withUser_shouldCarryIdentityClaims() {
+        User user = new User("testuser", "password123", "test@example.com");
+        user.setId(42L);
+
+        String token = jwtUtils.generateJwtToken(user);
+        Claims claims = jwtUtils.parseValidatedClaims(token).orElseThrow();
+
+        assertThat(claims.getSubject()).isEqualTo("testuser");
+        assertThat(claims.get(JwtUtils.CLAIM_USER_ID, Long.class)).isEqualTo(42L);
+        assertThat(claims.get(JwtUtils.CLAIM_EMAIL, String.class)).isEqualTo("test@example.com");
+        assertThat(claims.getIssuedAt()).isNotNull();
+
+        UserDetailsImpl principal = UserDetailsImpl.fromClaims(claims);
+        assertThat(principal).isNotNull();
+        assertThat(principal.getId()).isEqualTo(42L);
+        assertThat(principal.getUsername()).isEqualTo("testuser");
+        assertThat(principal.getEmail()).isEqualTo("test@example.com");
+        assertThat(principal.getPassword()).isNull();
+        assertThat(principal.getAuthorities()).isEmpty();
+    }
+
+    @Test
+    void fromClaims_shouldReturnNull_forTokenWithoutUserId() {
+        String token = jwtUtils.generateJwtToken("testuser");
+        Claims claims = jwtUtils.parseValidatedClaims(token).orElseThrow();
+
+        assertThat(UserDetailsImpl.fromClaims(claims)).isNull();
+    }
+}
@@ -0,0 +1,145 @@
+package com.boardshoot.boardshoot.security;
+
+import com.boardshoot.boardshoot.model.User;
+import com.boardshoot.boardshoot.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Redis on asendatud mälus oleva tabeliga, mida jagavad kõik testis loodud registrid (nagu mitu sõlme).
+ */
+class TokenRevocationRegistryTest {
+
+    private TokenRevocationRegistry registry;
+    private RedisTemplate<String, Object> redisTemplate;
+    private UserRepository userRepository;
+    private final Map<String, Object> redis = new HashMap<>();
+
+    private final UserDetailsImpl fromToken = new UserDetailsImpl(1L, "olduser", "old@example.com", Collections.emptyList());
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), any(), anyLong(), any());
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        userRepository = mock(UserRepository.class);
+        when(userRepository.existsById(any())).thenReturn(true);
+
+        registry = newRegistry();
+    }
+
+    private TokenRevocationRegistry newRegistry() {
+        TokenRevocationRegistry node = new TokenRevocationRegistry();
+        ReflectionTestUtils.setField(node, "jwtExpirationMs", 60000L);
+        ReflectionTestUtils.setField(node, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(node, "userRepository", userRepository);
+        node.init();
+        return node;
+    }
+
+    @Test
+    void currentPrincipal_shouldSeeRevocationMadeOnAnotherNode() {
+        Date issuedAt = new Date(System.currentTimeMillis() - 5000);
+        // Teine sõlm (või sama sõlm pärast taaskäivitust) alustab tühja kohaliku vahemäluga
+        TokenRevocationRegistry otherNode = newRegistry();
+
+        registry.revokeUser(1L);
+
+        assertThat(otherNode.currentPrincipal(fromToken, issuedAt)).isNull();
+    }
+
+    @Test
+    void currentPrincipal_shouldSeeProfileChangeMadeOnAnotherNode() {
+        Date issuedAt = new Date(System.currentTimeMillis() - 5000);
+        User changed = new User("newuser", "password", "new@example.com");
+        changed.setId(1L);
+
+        registry.userChanged(changed);
+
+        UserDetailsImpl current = newRegistry().currentPrincipal(fromToken, issuedAt);
+        assertThat(current.getUsername()).isEqualTo("newuser");
+        assertThat(current.getEmail()).isEqualTo("new@example.com");
+    }
+
+    @Test
+    void currentPrincipal_shouldRejectDeletedUser_whenRedisIsDown() {
+        when(redisTemplate.opsForValue().get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThat(registry.currentPrincipal(fromToken, new Date(System.currentTimeMillis() - 5000))).isNull();
+        // Olemasoleva kasutaja tokenid kehtivad edasi
+        UserDetailsImpl other = new UserDetailsImpl(2L, "other", "other@example.com", Collections.emptyList());
+        assertThat(registry.currentPrincipal(other, new Date())).isSameAs(other);
+    }
+
+    @Test
+    void currentPrincipal_shouldReturnTokenPrincipal_whenUserUnchanged() {
+        assertThat(registry.currentPrincipal(fromToken, new Date())).isSameAs(fromToken);
+    }
+
+    @Test
+    void currentPrincipal_shouldReturnNull_forTokenIssuedBeforeRevocation() {
+        Date issuedAt = new Date(System.currentTimeMillis() - 5000);
+
+        registry.revokeUser(1L);
+
+        assertThat(registry.currentPrincipal(fromToken, issuedAt)).isNull();
+        // Teise kasutaja tokenid kehtivad edasi
+        UserDetailsImpl other = new UserDetailsImpl(2L, "other", "other@example.com", Collections.emptyList());
+        assertThat(registry.currentPrincipal(other, issuedAt)).isSameAs(other);
+    }
+
+    @Test
+    void currentPrincipal_shouldAcceptTokenIssuedAfterRevocation() {
+        registry.revokeUser(1L);
+
+        Date issuedLater = new Date(System.currentTimeMillis() + 2000);
+        assertThat(registry.currentPrincipal(fromToken, issuedLater)).isSameAs(fromToken);
+    }
+
+    @Test
+    void currentPrincipal_shouldReturnUpdatedPrincipal_forTokenIssuedBeforeChange() {
+        Date issuedAt = new Date(System.currentTimeMillis() - 5000);
+        User changed = new User("newuser", "password", "new@example.com");
+        changed.setId(1L);
+
+        registry.userChanged(changed);
+
+        UserDetailsImpl current = registry.currentPrincipal(fromToken, issuedAt);
+        assertThat(current).isNotNull();
+        assertThat(current.getId()).isEqualTo(1L);
+        assertThat(current.getUsername()).isEqualTo("newuser");
+        assertThat(current.getEmail()).isEqualTo("new@example.com");
+    }
+
+    @Test
+    void userChanged_shouldNotOverrideRevocation() {
+        Date issuedAt = new Date(System.currentTimeMillis() - 5000);
+        User changed = new User("newuser", "password", "new@example.com");
+        changed.setId(1L);
+
+        registry.revokeUser(1L);
+        registry.userChanged(changed);
+
+        assertThat(registry.currentPrincipal(fromToken, issuedAt)).isNull();
+    }
+}
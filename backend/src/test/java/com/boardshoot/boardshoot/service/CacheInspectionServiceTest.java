@@ -0,0 +1,86 @@
+package com.boardshoot.boardshoot.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * SCAN põhise vahemälu vaatamise test: Redis on asendatud Mockito asendusega.
+ */
+class CacheInspectionServiceTest {
+
+    private CacheInspectionService service;
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        service = new CacheInspectionService();
+        ReflectionTestUtils.setField(service, "redisTemplate", redisTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cursor<String> cursorOf(String... keys) {
+        Iterator<String> iterator = List.of(keys).iterator();
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        return cursor;
+    }
+
+    @Test
+    void scanKeys_shouldStopAtLimitAndCloseCursor() {
+        Cursor<String> cursor = cursorOf("user:a", "user:b", "user:c");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+
+        List<String> keys = new ArrayList<>();
+        long scanned = service.scanKeys("user:*", 100, 2, keys::add);
+
+        assertThat(scanned).isEqualTo(2);
+        assertThat(keys).containsExactly("user:a", "user:b");
+        verify(cursor).close();
+        verify(redisTemplate, never()).keys(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void inspect_shouldGroupKeysByPrefix() {
+        Cursor<String> cursor = cursorOf("user:a", "user:b", "userb:a", "test-key");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        // Igale võtmele TTL ja MEMORY USAGE vastus; kaks võtit ühe torustatud päringu kohta
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(3600L, 120L, -1L, 100L))
+                .thenReturn(List.of(30L, 60L, -2L, -1L));
+
+        Map<String, CachePrefixStats> stats = service.inspect("*", 2, 100);
+
+        assertThat(stats).containsOnlyKeys("user:", "userb:");
+        CachePrefixStats users = stats.get("user:");
+        assertThat(users.getKeys()).isEqualTo(2);
+        assertThat(users.getMemoryBytes()).isEqualTo(220);
+        assertThat(users.getTtlDistribution()).containsEntry("<1d", 1L).containsEntry("none", 1L);
+        assertThat(stats.get("userb:").getTtlDistribution()).containsEntry("<1m", 1L);
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
+    }
+
+    @Test
+    void prefixOf_shouldKeepSeparator() {
+        assertThat(CacheInspectionService.prefixOf("user:alice")).isEqualTo("user:");
+        assertThat(CacheInspectionService.prefixOf("test-key")).isEqualTo("");
+    }
+}
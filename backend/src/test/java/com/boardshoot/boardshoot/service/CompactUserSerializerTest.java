@@ -0,0 +1,67 @@
+package com.boardshoot.boardshoot.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactUserSerializerTest {
+
+    private final CompactUserSerializer serializer = new CompactUserSerializer();
+
+    private Map<String, Object> user(Long id, String username, String email) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("id", id);
+        user.put("username", username);
+        user.put("email", email);
+        return user;
+    }
+
+    @Test
+    void serialize_shouldRoundTripUser() {
+        Map<String, Object> user = user(123456789L, "kasutaja", "õun@example.com");
+
+        Map<String, Object> decoded = serializer.deserialize(serializer.serialize(user));
+
+        assertThat(decoded).isEqualTo(user);
+    }
+
+    @Test
+    void serialize_shouldKeepNullAndEmptyFieldsApart() {
+        Map<String, Object> user = user(null, "", null);
+
+        Map<String, Object> decoded = serializer.deserialize(serializer.serialize(user));
+
+        assertThat(decoded.get("id")).isNull();
+        assertThat(decoded.get("username")).isEqualTo("");
+        assertThat(decoded.get("email")).isNull();
+    }
+
+    @Test
+    void serialize_shouldBeSmallerThanJsonHashFields() {
+        Map<String, Object> user = user(42L, "testuser", "test@example.com");
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+
+        int hashPayload = 0;
+        for (Map.Entry<String, Object> field : user.entrySet()) {
+            hashPayload += field.getKey().getBytes(StandardCharsets.UTF_8).length + json.serialize(field.getValue()).length;
+        }
+
+        assertThat(serializer.serialize(user).length).isLessThan(hashPayload);
+    }
+
+    @Test
+    void deserialize_shouldRejectTruncatedData() {
+        byte[] bytes = serializer.serialize(user(1L, "testuser", "test@example.com"));
+
+        assertThatThrownBy(() -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length - 3)))
+                .isInstanceOf(SerializationException.class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.boardshoot.boardshoot.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * ETag versioonitunnuste test: Redis on asendatud Mockito asendusega.
+ */
+class ContentVersionServiceTest {
+
+    private static final byte[] VERSION_KEY = "version:folderNotes:7".getBytes(StandardCharsets.UTF_8);
+
+    private ContentVersionService service;
+    private RedisTemplate<String, Object> redisTemplate;
+    private RedisStringCommands stringCommands;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        stringCommands = mock(RedisStringCommands.class);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.<RedisCallback<Object>>getArgument(0).doInRedis(connection));
+        service = new ContentVersionService();
+        ReflectionTestUtils.setField(service, "redisTemplate", redisTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getETag_shouldReturnExistingVersion() {
+        when(stringCommands.get(VERSION_KEY)).thenReturn("abc123".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(service.getETag(EntityCacheService.FOLDER_NOTES, 7L)).isEqualTo("\"abc123\"");
+        verify(stringCommands, never()).set(any(), any(), any(Expiration.class), any(SetOption.class));
+    }
+
+    @Test
+    void getETag_shouldCreateVersion_whenMissing() {
+        when(stringCommands.set(eq(VERSION_KEY), any(), any(Expiration.class), eq(SetOption.ifAbsent()))).thenReturn(true);
+
+        String first = service.getETag(EntityCacheService.FOLDER_NOTES, 7L);
+        String second = service.getETag(EntityCacheService.FOLDER_NOTES, 7L);
+
+        assertThat(first).matches("\"[0-9a-f]{24}\"");
+        // Kadunud võtme asemele ei teki kunagi sama tunnust
+        assertThat(second).isNotEqualTo(first);
+    }
+
+    @Test
+    void getETag_shouldReturnNull_whenRedisUnavailable() {
+        when(stringCommands.get(VERSION_KEY)).thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        assertThat(service.getETag(EntityCacheService.FOLDER_NOTES, 7L)).isNull();
+    }
+
+    @Test
+    void invalidate_shouldDeleteVersionImmediately_withoutTransaction() {
+        service.invalidate(EntityCacheService.FOLDER_NOTES, 7L);
+
+        verify(redisTemplate).delete("version:folderNotes:7");
+    }
+
+    @Test
+    void invalidate_shouldDeleteVersionAfterCommit_insideTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.invalidate(EntityCacheService.NOTES, 3L);
+        verify(redisTemplate, never()).delete(any(String.class));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        verify(redisTemplate).delete("version:notes:3");
+    }
+}
@@ -0,0 +1,150 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.Folder;
+import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.NoteImage;
+import com.boardshoot.boardshoot.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Kontrollib base64 data URL-ide viimist kohalikku failihoidlasse H2 andmebaasi vastu
+ */
+@DataJpaTest
+@Import({DataUrlMigrationService.class, LocalBlobStore.class})
+@TestPropertySource(properties = "boardshoot.blobstore.migrate-on-startup=false")
+class DataUrlMigrationServiceTest {
+
+    private static final byte[] IMAGE = "fake image bytes".getBytes(StandardCharsets.UTF_8);
+    private static final String BASE64_URL = "data:image/png;base64," + Base64.getEncoder().encodeToString(IMAGE);
+    private static final String PLAIN_DATA_URL = "data:image/svg+xml,%3Csvg%2F%3E";
+    private static final String INVALID_BASE64_URL = "data:image/png;base64,@@not-base64@@";
+    private static final String REMOTE_URL = "https://example.com/storage/v1/object/public/images/note_1_a.jpg";
+
+    @Autowired
+    private DataUrlMigrationService migrationService;
+
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private EntityCacheService entityCacheService;
+
+    @TempDir
+    Path blobDir;
+
+    private Long noteId;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(localBlobStore, "blobDir", blobDir.toString());
+        ReflectionTestUtils.setField(localBlobStore, "baseUrl", "");
+
+        User user = new User("user", "password", "user@example.com");
+        entityManager.persist(user);
+        Folder folder = new Folder("Folder", user);
+        entityManager.persist(folder);
+        Note note = new Note();
+        note.setTitle("Note");
+        note.setFolder(folder);
+        note.setUser(user);
+        note.addImage(REMOTE_URL, null);
+        note.addImage(BASE64_URL, null);
+        note.addImage(PLAIN_DATA_URL, null);
+        note.addImage(INVALID_BASE64_URL, null);
+        entityManager.persist(note);
+        noteId = note.getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void migrateDataUrls_shouldMoveBase64ImagesToBlobStore() throws Exception {
+        List<NoteImage> before = images();
+
+        assertThat(migrate()).isEqualTo(1);
+
+        List<NoteImage> after = images();
+        String blobUrl = after.get(1).getUrl();
+        assertThat(blobUrl).startsWith(LocalBlobStore.BLOB_PATH);
+        Path blob = localBlobStore.find(localBlobStore.hashFromUrl(blobUrl)).orElseThrow();
+        assertThat(Files.readAllBytes(blob)).isEqualTo(IMAGE);
+        // Pildi ID ja järjekord säilivad
+        assertThat(after).extracting(NoteImage::getId).isEqualTo(before.stream().map(NoteImage::getId).toList());
+        verify(entityCacheService).evictNote(any(Note.class));
+    }
+
+    @Test
+    void migrateDataUrls_shouldLeaveOtherUrlsInPlace() {
+        migrate();
+
+        List<NoteImage> after = images();
+        assertThat(after.get(0).getUrl()).isEqualTo(REMOTE_URL);
+        assertThat(after.get(2).getUrl()).isEqualTo(PLAIN_DATA_URL);
+        assertThat(after.get(3).getUrl()).isEqualTo(INVALID_BASE64_URL);
+    }
+
+    @Test
+    void migrateDataUrls_shouldBeIdempotent() throws Exception {
+        migrate();
+        List<String> firstRun = images().stream().map(NoteImage::getUrl).toList();
+        long blobs;
+        try (var files = Files.walk(blobDir)) {
+            blobs = files.filter(Files::isRegularFile).count();
+        }
+
+        assertThat(migrate()).isZero();
+
+        assertThat(images().stream().map(NoteImage::getUrl).toList()).isEqualTo(firstRun);
+        try (var files = Files.walk(blobDir)) {
+            assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(blobs);
+        }
+    }
+
+    @Test
+    void migrateDataUrls_shouldDoNothing_whenNoDataUrls() {
+        entityManager.createQuery("DELETE FROM NoteImage i WHERE i.url LIKE 'data:%'").executeUpdate();
+
+        assertThat(migrate()).isZero();
+        verify(entityCacheService, never()).evictNote(any(Note.class));
+    }
+
+    /**
+     * Käivitab migratsiooni ja kirjutab muudatused testi tehingus andmebaasi
+     */
+    private int migrate() {
+        int migrated = migrationService.migrateDataUrls();
+        entityManager.flush();
+        entityManager.clear();
+        return migrated;
+    }
+
+    private List<NoteImage> images() {
+        return entityManager.createQuery(
+                        "SELECT i FROM NoteImage i WHERE i.note.id = :noteId ORDER BY i.position", NoteImage.class)
+                .setParameter("noteId", noteId)
+                .getResultList();
+    }
+}
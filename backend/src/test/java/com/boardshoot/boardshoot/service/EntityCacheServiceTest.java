@@ -0,0 +1,154 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.config.CacheConfig;
+import com.boardshoot.boardshoot.model.Folder;
+import com.boardshoot.boardshoot.model.ImageVariants;
+import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EntityCacheServiceTest {
+
+    private EntityCacheService entityCacheService;
+    private CacheManager cacheManager;
+    private ContentVersionService contentVersionService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(EntityCacheService.FOLDERS, EntityCacheService.NOTES, EntityCacheService.FOLDER_NOTES);
+        entityCacheService = new EntityCacheService();
+        ReflectionTestUtils.setField(entityCacheService, "cacheManager", cacheManager);
+        contentVersionService = mock(ContentVersionService.class);
+        ReflectionTestUtils.setField(entityCacheService, "contentVersionService", contentVersionService);
+    }
+
+    private Note note(Long id, Long folderId) {
+        User user = new User("testuser", "password", "test@example.com");
+        user.setId(1L);
+        Folder folder = new Folder("Folder", user);
+        folder.setId(folderId);
+        Note note = new Note();
+        note.setId(id);
+        note.setTitle("Note " + id);
+        note.setFolder(folder);
+        note.setUser(user);
+        note.addText("Text");
+        note.addImage("https://example.com/a.jpg", new ImageVariants("https://example.com/a_thumb.jpg", "https://example.com/a_preview.jpg"));
+        return note;
+    }
+
+    @Test
+    void getNote_shouldLoadOnceAndServeFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        Note first = entityCacheService.getNote(1L, () -> {
+            loads.incrementAndGet();
+            return note(1L, 10L);
+        });
+        Note second = entityCacheService.getNote(1L, () -> {
+            loads.incrementAndGet();
+            return note(1L, 10L);
+        });
+
+        assertThat(loads).hasValue(1);
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void evictNote_shouldEvictNoteAndItsFolderList() {
+        Note note = note(1L, 10L);
+        entityCacheService.getNote(1L, () -> note);
+        entityCacheService.getFolderNotes(10L, () -> List.of(note));
+        entityCacheService.getFolderNotes(11L, () -> List.of());
+
+        entityCacheService.evictNote(note);
+
+        assertThat(cacheManager.getCache(EntityCacheService.NOTES).get(1L)).isNull();
+        assertThat(cacheManager.getCache(EntityCacheService.FOLDER_NOTES).get(10L)).isNull();
+        assertThat(cacheManager.getCache(EntityCacheService.FOLDER_NOTES).get(11L)).isNotNull();
+        verify(contentVersionService).invalidate(EntityCacheService.NOTES, 1L);
+        verify(contentVersionService).invalidate(EntityCacheService.FOLDER_NOTES, 10L);
+        verifyNoMoreInteractions(contentVersionService);
+    }
+
+    @Test
+    void evictFolder_shouldEvictFolderListsAndNotes() {
+        Note note = note(1L, 10L);
+        entityCacheService.getFolders(1L, () -> List.of(note.getFolder()));
+        entityCacheService.getFolderNotes(10L, () -> List.of(note));
+        entityCacheService.getNote(1L, () -> note);
+
+        entityCacheService.evictFolder(note.getFolder(), List.of(1L));
+
+        assertThat(cacheManager.getCache(EntityCacheService.FOLDERS).get(1L)).isNull();
+        assertThat(cacheManager.getCache(EntityCacheService.FOLDER_NOTES).get(10L)).isNull();
+        assertThat(cacheManager.getCache(EntityCacheService.NOTES).get(1L)).isNull();
+    }
+
+    @Test
+    void getNote_shouldFallBackToLoader_whenCacheFails() {
+        Cache failing = mock(Cache.class);
+        when(failing.get(any())).thenThrow(new RuntimeException("Connection refused"));
+        CacheManager failingManager = mock(CacheManager.class);
+        when(failingManager.getCache(EntityCacheService.NOTES)).thenReturn(failing);
+        ReflectionTestUtils.setField(entityCacheService, "cacheManager", failingManager);
+
+        Note note = entityCacheService.getNote(1L, () -> note(1L, 10L));
+
+        assertThat(note.getId()).isEqualTo(1L);
+        verify(failing, never()).put(any(), any());
+    }
+
+    @Test
+    void cacheSerializers_shouldRoundTripNotesAndFolders() {
+        ObjectMapper objectMapper = CacheConfig.cacheObjectMapper();
+        Jackson2JsonRedisSerializer<List<Note>> notes = new Jackson2JsonRedisSerializer<>(objectMapper,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, Note.class));
+        Jackson2JsonRedisSerializer<List<Folder>> folders = new Jackson2JsonRedisSerializer<>(objectMapper,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, Folder.class));
+        Note note = note(1L, 10L);
+
+        Note decoded = notes.deserialize(notes.serialize(List.of(note))).get(0);
+        Folder folder = folders.deserialize(folders.serialize(List.of(note.getFolder()))).get(0);
+
+        assertThat(decoded.getTitle()).isEqualTo("Note 1");
+        assertThat(decoded.getFolder().getId()).isEqualTo(10L);
+        assertThat(decoded.getTexts()).containsExactly("Text");
+        assertThat(decoded.getImageUrls()).containsExactly("https://example.com/a.jpg");
+        assertThat(decoded.getImageVariants().get("https://example.com/a.jpg").getThumbnailUrl())
+                .isEqualTo("https://example.com/a_thumb.jpg");
+        assertThat(folder.getName()).isEqualTo("Folder");
+        assertThat(folder.getUser().getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void cacheSerializers_shouldStoreOnlyUserIdAndNeverPassword() {
+        ObjectMapper objectMapper = CacheConfig.cacheObjectMapper();
+        Jackson2JsonRedisSerializer<Note> notes = new Jackson2JsonRedisSerializer<>(objectMapper, Note.class);
+        Note note = note(1L, 10L);
+
+        byte[] serialized = notes.serialize(note);
+        String json = new String(serialized, StandardCharsets.UTF_8);
+        Note decoded = notes.deserialize(serialized);
+
+        assertThat(json).doesNotContain("password", "testuser", "test@example.com");
+        assertThat(decoded.getUser().getId()).isEqualTo(1L);
+        assertThat(decoded.getFolder().getUser().getId()).isEqualTo(1L);
+        assertThat(decoded.getUser().getPassword()).isNull();
+    }
+}
@@ -0,0 +1,68 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.NoteImage;
+import com.boardshoot.boardshoot.model.User;
+import com.boardshoot.boardshoot.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kontrollib, et jadad seatakse vanade IDENTITY võtmetega ridade järele.
+ * Jada muutmine on H2-s DDL ja lõpetaks testi tehingu, seega töötab test ilma tehinguta ja koristab ise.
+ */
+@DataJpaTest
+@Import(IdSequenceService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdSequenceServiceTest {
+
+    @Autowired
+    private IdSequenceService idSequenceService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void alignAll_shouldMoveSequencePastExistingIds() {
+        // Enne jadasid IDENTITY veeruga loodud rida
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email) VALUES (?, ?, ?, ?)",
+                500L, "legacy", "password", "legacy@example.com");
+
+        assertEquals(1, idSequenceService.alignAll());
+
+        User user = userRepository.save(new User("fresh", "password", "fresh@example.com"));
+        assertTrue(user.getId() > 500, "Expected an id after the legacy rows but got " + user.getId());
+        // Juba ees olevat jada uuesti ei muudeta
+        assertEquals(0, idSequenceService.alignAll());
+    }
+
+    @Test
+    void allocateIds_shouldReturnDistinctIdsAcrossBlocks() {
+        List<Long> first = idSequenceService.allocateIds(NoteImage.class, 70);
+        List<Long> second = idSequenceService.allocateIds(NoteImage.class, 30);
+
+        HashSet<Long> all = new HashSet<>(first);
+        all.addAll(second);
+        assertEquals(100, all.size());
+        assertTrue(all.stream().allMatch(id -> id > 0));
+    }
+}
@@ -0,0 +1,111 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.service.ImageProcessingService.ImageVariant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageProcessingServiceTest {
+
+    private static final String ORIGINAL_URL = "https://example.com/storage/v1/object/public/images/note_1_a.jpg";
+
+    private ImageProcessingService imageProcessingService;
+
+    @BeforeEach
+    void setUp() {
+        imageProcessingService = new ImageProcessingService();
+        ReflectionTestUtils.setField(imageProcessingService, "processingThreads", 2);
+        ReflectionTestUtils.setField(imageProcessingService, "jpegQuality", 0.8f);
+        imageProcessingService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageProcessingService.stop();
+    }
+
+    @Test
+    void createVariants_shouldScaleLongestSideTo256And1024() throws IOException {
+        Map<ImageVariant, byte[]> variants = imageProcessingService.createVariantsAsync(png(3000, 2000)).join();
+
+        BufferedImage thumbnail = read(variants.get(ImageVariant.THUMBNAIL));
+        BufferedImage preview = read(variants.get(ImageVariant.PREVIEW));
+        assertThat(thumbnail.getWidth()).isEqualTo(256);
+        assertThat(thumbnail.getHeight()).isEqualTo(171);
+        assertThat(preview.getWidth()).isEqualTo(1024);
+        assertThat(preview.getHeight()).isEqualTo(683);
+    }
+
+    @Test
+    void createVariants_shouldKeepPortraitOrientation() throws IOException {
+        Map<ImageVariant, byte[]> variants = imageProcessingService.createVariantsAsync(png(1200, 2400)).join();
+
+        BufferedImage thumbnail = read(variants.get(ImageVariant.THUMBNAIL));
+        assertThat(thumbnail.getWidth()).isEqualTo(128);
+        assertThat(thumbnail.getHeight()).isEqualTo(256);
+    }
+
+    @Test
+    void decode_shouldSubsampleLargeImages() throws IOException {
+        byte[] image = png(8000, 4000);
+
+        BufferedImage decoded = imageProcessingService.decode(
+                () -> ImageIO.createImageInputStream(new ByteArrayInputStream(image)), 8000, 1024);
+
+        // Alamdiskreetimine 8000 / (2 * 1024) = 3, kuid vähemalt kaks korda sihtsuurusest suurem
+        assertThat(decoded.getWidth()).isEqualTo(2667);
+        assertThat(decoded.getHeight()).isEqualTo(1334);
+        assertThat(Math.max(decoded.getWidth(), decoded.getHeight())).isGreaterThanOrEqualTo(2 * 1024);
+    }
+
+    @Test
+    void createVariants_shouldSkipVariantsNotSmallerThanOriginal() {
+        Map<ImageVariant, byte[]> medium = imageProcessingService.createVariantsAsync(png(600, 400)).join();
+        Map<ImageVariant, byte[]> small = imageProcessingService.createVariantsAsync(png(200, 100)).join();
+
+        assertThat(medium).containsOnlyKeys(ImageVariant.THUMBNAIL);
+        assertThat(small).isEmpty();
+
+        // Puuduv variant viitab originaalile
+        StoredImage stored = new StoredImage(ORIGINAL_URL, "https://example.com/thumb.jpg", null);
+        assertThat(stored.getThumbnailUrl()).isEqualTo("https://example.com/thumb.jpg");
+        assertThat(stored.getPreviewUrl()).isEqualTo(ORIGINAL_URL);
+    }
+
+    @Test
+    void createVariants_shouldReturnNoVariantsForUndecodableImage() {
+        Map<ImageVariant, byte[]> variants = imageProcessingService
+                .createVariantsAsync("not an image".getBytes(StandardCharsets.UTF_8)).join();
+
+        assertThat(variants).isEmpty();
+        StoredImage stored = new StoredImage(ORIGINAL_URL, null, null);
+        assertThat(stored.getThumbnailUrl()).isEqualTo(ORIGINAL_URL);
+        assertThat(stored.getPreviewUrl()).isEqualTo(ORIGINAL_URL);
+    }
+
+    private static byte[] png(int width, int height) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static BufferedImage read(byte[] jpeg) throws IOException {
+        assertThat(jpeg).isNotNull();
+        return ImageIO.read(new ByteArrayInputStream(jpeg));
+    }
+}
@@ -0,0 +1,241 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.service.ImageUploadJob.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Kontrollib asünkroonse üleslaadimise korduskatseid, järjekorra piiri, kohaliku hoidla varuvarianti
+ * ja lõpetatud tööde koristamist. Supabase'i asemel on StorageService'i mock, mis ebaõnnestub N korda.
+ */
+class ImageUploadJobServiceTest {
+
+    private static final byte[] IMAGE = "fake image bytes".getBytes(StandardCharsets.UTF_8);
+    private static final String UPLOADED_URL = "https://example.com/storage/v1/object/public/images/note_1_a.jpg";
+
+    private ImageUploadJobService uploadJobService;
+    private NoteService noteService;
+    private StorageService storageService;
+    private LocalBlobStore localBlobStore;
+
+    // StorageService'i väljakutsete ajad, et kontrollida korduskatsete vahesid
+    private final List<Long> attemptTimes = Collections.synchronizedList(new ArrayList<>());
+    // Töö viga iga katse alguses, st eelmise katse tulemus
+    private final List<String> errorsBeforeAttempt = Collections.synchronizedList(new ArrayList<>());
+    private boolean started;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        noteService = mock(NoteService.class);
+        storageService = mock(StorageService.class);
+        localBlobStore = new LocalBlobStore();
+        ReflectionTestUtils.setField(localBlobStore, "blobDir", tempDir.resolve("blobs").toString());
+        ReflectionTestUtils.setField(localBlobStore, "baseUrl", "");
+
+        uploadJobService = new ImageUploadJobService();
+        ReflectionTestUtils.setField(uploadJobService, "noteService", noteService);
+        ReflectionTestUtils.setField(uploadJobService, "storageService", storageService);
+        ReflectionTestUtils.setField(uploadJobService, "localBlobStore", localBlobStore);
+        ReflectionTestUtils.setField(uploadJobService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(uploadJobService, "stagingDir", tempDir.resolve("staging").toString());
+        ReflectionTestUtils.setField(uploadJobService, "workers", 2);
+        ReflectionTestUtils.setField(uploadJobService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(uploadJobService, "maxAttempts", 4);
+        ReflectionTestUtils.setField(uploadJobService, "initialBackoffMs", 100L);
+        ReflectionTestUtils.setField(uploadJobService, "maxBackoffMs", 250L);
+        ReflectionTestUtils.setField(uploadJobService, "jobRetentionMs", 3600000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (started) {
+            uploadJobService.stop();
+        }
+    }
+
+    @Test
+    void backoffDelay_shouldDoubleUpToMaximum() {
+        assertThat(uploadJobService.backoffDelay(1)).isEqualTo(100);
+        assertThat(uploadJobService.backoffDelay(2)).isEqualTo(200);
+        assertThat(uploadJobService.backoffDelay(3)).isEqualTo(250);
+        assertThat(uploadJobService.backoffDelay(30)).isEqualTo(250);
+    }
+
+    @Test
+    void submit_shouldRetryWithBackoffUntilUploadSucceeds() throws Exception {
+        failTimes(3);
+        start();
+
+        ImageUploadJob job = submit();
+
+        awaitStatus(job, Status.RETRYING);
+        awaitStatus(job, Status.COMPLETED);
+        assertThat(job.getAttempts()).isEqualTo(4);
+        assertThat(job.getImageUrl()).isEqualTo(UPLOADED_URL);
+        assertThat(job.getError()).isNull();
+        verify(storageService, times(4)).storeImage(any(Path.class), anyLong(), any(), eq(1L));
+        verify(noteService).attachImage(eq(1L), any(StoredImage.class));
+        assertThat(Files.exists(job.getStagedFile())).isFalse();
+        // Iga korduskatse ajal on töös eelmise ebaõnnestumise põhjus
+        assertThat(errorsBeforeAttempt).containsExactly(null,
+            "Supabase unavailable (1)", "Supabase unavailable (2)", "Supabase unavailable (3)");
+
+        // Katsete vahed: 100 ms, 200 ms ja ülempiiriga 250 ms
+        assertThat(attemptTimes).hasSize(4);
+        long[] expectedDelays = {100, 200, 250};
+        for (int i = 0; i < expectedDelays.length; i++) {
+            long gapMs = TimeUnit.NANOSECONDS.toMillis(attemptTimes.get(i + 1) - attemptTimes.get(i));
+            assertThat(gapMs).isGreaterThanOrEqualTo(expectedDelays[i]);
+        }
+    }
+
+    @Test
+    void submit_shouldFallBackToLocalBlobStoreAfterLastAttempt() throws Exception {
+        ReflectionTestUtils.setField(uploadJobService, "maxAttempts", 2);
+        failTimes(Integer.MAX_VALUE);
+        start();
+
+        ImageUploadJob job = submit();
+
+        awaitStatus(job, Status.COMPLETED);
+        verify(storageService, times(2)).storeImage(any(Path.class), anyLong(), any(), eq(1L));
+        assertThat(job.getAttempts()).isEqualTo(2);
+        assertThat(job.getImageUrl()).startsWith(LocalBlobStore.BLOB_PATH);
+        Path blob = localBlobStore.find(localBlobStore.hashFromUrl(job.getImageUrl())).orElseThrow();
+        assertThat(Files.readAllBytes(blob)).isEqualTo(IMAGE);
+
+        ArgumentCaptor<StoredImage> stored = ArgumentCaptor.forClass(StoredImage.class);
+        verify(noteService).attachImage(eq(1L), stored.capture());
+        assertThat(stored.getValue().getOriginalUrl()).isEqualTo(job.getImageUrl());
+        assertThat(stored.getValue().getThumbnailUrl()).isEqualTo(job.getImageUrl());
+        assertThat(Files.exists(job.getStagedFile())).isFalse();
+    }
+
+    @Test
+    void submit_shouldRejectUpload_whenQueueIsFull() throws Exception {
+        ReflectionTestUtils.setField(uploadJobService, "workers", 1);
+        ReflectionTestUtils.setField(uploadJobService, "queueCapacity", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(storageService.storeImage(any(Path.class), anyLong(), any(), anyLong())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new StoredImage(UPLOADED_URL, null, null);
+        });
+        start();
+
+        ImageUploadJob running = submit();
+        awaitStatus(running, Status.UPLOADING);
+        ImageUploadJob queued = submit();
+
+        assertThrows(RejectedExecutionException.class, this::submit);
+
+        // Tagasi lükatud pilti ei salvestata ooteala kausta
+        try (var files = Files.list(tempDir.resolve("staging"))) {
+            assertThat(files.count()).isEqualTo(2);
+        }
+        assertThat(queued.getStatus()).isEqualTo(Status.PENDING);
+
+        release.countDown();
+        awaitStatus(running, Status.COMPLETED);
+        awaitStatus(queued, Status.COMPLETED);
+    }
+
+    @Test
+    void purgeFinishedJobs_shouldRemoveOnlyFinishedJobsPastRetention() throws Exception {
+        ReflectionTestUtils.setField(uploadJobService, "jobRetentionMs", 50L);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(storageService.storeImage(any(Path.class), anyLong(), any(), anyLong())).thenAnswer(invocation -> {
+            // Teine töö jääb pooleli
+            if (calls.incrementAndGet() > 1) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return new StoredImage(UPLOADED_URL, null, null);
+        });
+        start();
+
+        ImageUploadJob finished = submit();
+        awaitStatus(finished, Status.COMPLETED);
+        ImageUploadJob unfinished = submit();
+        awaitStatus(unfinished, Status.UPLOADING);
+
+        uploadJobService.purgeFinishedJobs();
+        assertThat(uploadJobService.getJob(finished.getId())).isPresent();
+
+        Thread.sleep(100);
+        uploadJobService.purgeFinishedJobs();
+
+        assertThat(uploadJobService.getJob(finished.getId())).isEmpty();
+        assertThat(uploadJobService.getJob(unfinished.getId())).isPresent();
+        release.countDown();
+    }
+
+    /**
+     * StorageService ebaõnnestub esimesed {@code failures} korda, seejärel õnnestub
+     */
+    private void failTimes(int failures) {
+        AtomicInteger calls = new AtomicInteger();
+        when(storageService.storeImage(any(Path.class), anyLong(), any(), anyLong())).thenAnswer(invocation -> {
+            attemptTimes.add(System.nanoTime());
+            errorsBeforeAttempt.add(currentJob().getError());
+            int call = calls.incrementAndGet();
+            if (call <= failures) {
+                throw new RuntimeException("Supabase unavailable (" + call + ")");
+            }
+            return new StoredImage(UPLOADED_URL, null, null);
+        });
+    }
+
+    private void start() {
+        uploadJobService.start();
+        started = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ImageUploadJob currentJob() {
+        Map<String, ImageUploadJob> jobs = (Map<String, ImageUploadJob>) ReflectionTestUtils.getField(uploadJobService, "jobs");
+        return jobs.values().iterator().next();
+    }
+
+    private ImageUploadJob submit() {
+        return uploadJobService.submit(1L, new ByteArrayInputStream(IMAGE), IMAGE.length, MediaType.IMAGE_JPEG);
+    }
+
+    private static void awaitStatus(ImageUploadJob job, Status status) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.getStatus() != status) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Job " + job.getId() + " stayed in " + job.getStatus() + ", expected " + status);
+            }
+            Thread.sleep(2);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.Folder;
+import com.boardshoot.boardshoot.model.Note;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class NoteAutosaveServiceTest {
+
+    private NoteAutosaveService autosaveService;
+    private NoteService noteService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        noteService = mock(NoteService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        autosaveService = new NoteAutosaveService();
+        ReflectionTestUtils.setField(autosaveService, "noteService", noteService);
+        ReflectionTestUtils.setField(autosaveService, "meterRegistry", meterRegistry);
+        // Ajastatud kontroll ei tohi testi ajal ise kirjutada
+        ReflectionTestUtils.setField(autosaveService, "checkIntervalMs", 3600000L);
+        autosaveService.start();
+
+        when(noteService.getNoteFromDatabase(1L)).thenReturn(note(3L, "Hello"));
+        when(noteService.noteExists(1L)).thenReturn(true);
+        // Kirjutus tõstab versiooni ühe võrra
+        when(noteService.patchNote(any(), any(), any(), anyList())).thenAnswer(invocation -> {
+            Long version = invocation.getArgument(1);
+            List<String> texts = invocation.getArgument(3);
+            return note(version + 1, texts.toArray(new String[0]));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        autosaveService.stop();
+    }
+
+    @Test
+    void applyEdits_shouldCoalesceManyEditsIntoOneWrite() {
+        for (int i = 0; i < 20; i++) {
+            autosaveService.applyEdits(1L, List.of(NoteTextEdit.splice(0, 5 + i, 0, "!")));
+        }
+        ReflectionTestUtils.setField(autosaveService, "idleMs", 0L);
+
+        autosaveService.flushDue();
+
+        verify(noteService, times(1)).getNoteFromDatabase(1L);
+        verify(noteService, times(1)).patchNote(eq(1L), eq(3L), isNull(), eq(List.of("Hello" + "!".repeat(20))));
+        assertThat(autosaveService.pendingCount()).isZero();
+        assertThat(meterRegistry.get("boardshoot.autosave.edits").counter().count()).isEqualTo(20);
+        assertThat(meterRegistry.get("boardshoot.autosave.flushes").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void flushDue_shouldWaitWhileNoteIsBeingEdited() {
+        autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "Hello world")));
+
+        autosaveService.flushDue();
+
+        verify(noteService, never()).patchNote(any(), any(), any(), anyList());
+        assertThat(autosaveService.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void flushDue_shouldWriteAfterMaxDelay_evenWhileEditing() {
+        ReflectionTestUtils.setField(autosaveService, "maxDelayMs", 0L);
+        autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(1, "Second")));
+
+        autosaveService.flushDue();
+
+        verify(noteService).patchNote(eq(1L), eq(3L), isNull(), eq(List.of("Hello", "Second")));
+    }
+
+    @Test
+    void flushFolder_shouldWriteNotesOfThatFolderOnly() {
+        autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "Changed")));
+
+        autosaveService.flushFolder(6L);
+        verify(noteService, never()).patchNote(any(), any(), any(), anyList());
+
+        autosaveService.flushFolder(5L);
+        verify(noteService).patchNote(eq(1L), eq(3L), isNull(), eq(List.of("Changed")));
+    }
+
+    @Test
+    void discardFolder_shouldDropBuffersOfThatFolderWithoutWriting() {
+        autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "Changed")));
+
+        autosaveService.discardFolder(6L);
+        assertThat(autosaveService.pendingCount()).isEqualTo(1);
+
+        autosaveService.discardFolder(5L);
+        autosaveService.flushAll();
+        assertThat(autosaveService.pendingCount()).isZero();
+        verify(noteService, never()).patchNote(any(), any(), any(), anyList());
+    }
+
+    @Test
+    void applyEdits_shouldRejectOutOfRangeEditWithoutChangingBuffer() {
+        autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "Kept")));
+
+        assertThrows(IllegalArgumentException.class, () -> autosaveService.applyEdits(1L, List.of(
+                NoteTextEdit.replace(0, "Lost"),
+                NoteTextEdit.splice(0, 10, 1, "x"))));
+
+        autosaveService.flushNote(1L);
+        verify(noteService).patchNote(eq(1L), eq(3L), isNull(), eq(List.of("Kept")));
+    }
+
+    @Test
+    void applyEdits_shouldReturnVersionThatPatchCanUseAfterFlush() {
+        when(noteService.getNoteFromDatabase(1L)).thenReturn(note(3L, "Hello"), note(4L, "Changed"));
+        assertThat(autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "Changed"))).getVersion()).isEqualTo(3L);
+
+        autosaveService.flushNote(1L);
+
+        // Automaatsalvestuse kirjutus 3 -> 4 loetakse kliendi omaks
+        assertThat(autosaveService.resolveVersion(1L, 3L)).isEqualTo(4L);
+        assertThat(autosaveService.resolveVersion(1L, 2L)).isEqualTo(2L);
+        assertThat(autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "Again"))).getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    void flush_shouldRebaseOntoConcurrentChangeOfAnotherText() {
+        when(noteService.getNoteFromDatabase(1L)).thenReturn(note(3L, "A", "B"), note(4L, "A", "B2"));
+        doThrow(new ObjectOptimisticLockingFailureException(Note.class, 1L))
+            .when(noteService).patchNote(eq(1L), eq(3L), any(), anyList());
+        autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "A2")));
+
+        autosaveService.flushNote(1L);
+
+        verify(noteService).patchNote(eq(1L), eq(4L), isNull(), eq(List.of("A2", "B2")));
+        assertThat(autosaveService.pendingCount()).isZero();
+        // Versioon 4 tuli teiselt päringult, seega vanem versioon annab endiselt konflikti
+        assertThat(autosaveService.resolveVersion(1L, 3L)).isEqualTo(3L);
+        assertThat(autosaveService.resolveVersion(1L, 4L)).isEqualTo(5L);
+    }
+
+    @Test
+    void flush_shouldReportConflictOnNextAutosave_whenSameTextChangedElsewhere() {
+        when(noteService.getNoteFromDatabase(1L)).thenReturn(note(3L, "A", "B"), note(4L, "A3", "B"));
+        doThrow(new ObjectOptimisticLockingFailureException(Note.class, 1L))
+            .when(noteService).patchNote(eq(1L), eq(3L), any(), anyList());
+        autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "A2")));
+
+        autosaveService.flushNote(1L);
+        verify(noteService, never()).patchNote(eq(1L), eq(4L), any(), anyList());
+
+        AutosaveFailedException e = assertThrows(AutosaveFailedException.class,
+                () -> autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(1, "B2"))));
+        assertThat(e.isConflict()).isTrue();
+        assertThat(e.getTexts()).containsExactly("A2", "B");
+        assertThat(autosaveService.pendingCount()).isZero();
+    }
+
+    @Test
+    void flush_shouldKeepEditsAndBackOff_whenWriteKeepsFailing() {
+        doThrow(new RuntimeException("Database unavailable")).when(noteService).patchNote(any(), any(), any(), anyList());
+        autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "Changed")));
+
+        autosaveService.flushNote(1L);
+        autosaveService.flushNote(1L);
+        autosaveService.flushNote(1L);
+
+        assertThat(autosaveService.pendingCount()).isEqualTo(1);
+        // Ootus pärast ebaõnnestumist: ajastatud kontroll ei kirjuta kohe uuesti
+        ReflectionTestUtils.setField(autosaveService, "idleMs", 0L);
+        autosaveService.flushDue();
+        verify(noteService, times(3)).patchNote(any(), any(), any(), anyList());
+
+        // Klient saab ebaõnnestumisest teada ja tema tekstid on alles
+        AutosaveFailedException e = assertThrows(AutosaveFailedException.class,
+                () -> autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "More"))));
+        assertThat(e.isConflict()).isFalse();
+        assertThat(e.getTexts()).containsExactly("Changed");
+        assertThrows(AutosaveFailedException.class, () -> autosaveService.flushNoteOrThrow(1L));
+
+        doReturn(note(4L, "Changed")).when(noteService).patchNote(any(), any(), any(), anyList());
+        autosaveService.flushNoteOrThrow(1L);
+        assertThat(autosaveService.pendingCount()).isZero();
+    }
+
+    @Test
+    void flush_shouldDropBuffer_whenNoteWasDeleted() {
+        doThrow(new RuntimeException("Note not found")).when(noteService).patchNote(any(), any(), any(), anyList());
+        when(noteService.noteExists(1L)).thenReturn(false);
+        autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "Changed")));
+
+        autosaveService.flushNote(1L);
+
+        assertThat(autosaveService.pendingCount()).isZero();
+    }
+
+    @Test
+    void merge_shouldCombineChangesOfDifferentTextsOnly() {
+        List<String> base = List.of("a", "b");
+        assertThat(NoteAutosaveService.merge(base, List.of("a2", "b"), List.of("a", "b2"))).containsExactly("a2", "b2");
+        assertThat(NoteAutosaveService.merge(base, List.of("a2", "b"), List.of("a2", "b"))).containsExactly("a2", "b");
+        assertThat(NoteAutosaveService.merge(base, List.of("a2", "b", "c"), base)).containsExactly("a2", "b", "c");
+        assertThat(NoteAutosaveService.merge(base, List.of("a2", "b"), List.of("a3", "b"))).isNull();
+        assertThat(NoteAutosaveService.merge(base, List.of("a2", "b", "c"), List.of("a", "b2"))).isNull();
+    }
+
+    @Test
+    void stop_shouldFlushPendingEdits() {
+        autosaveService.applyEdits(1L, List.of(NoteTextEdit.replace(0, "Before shutdown")));
+
+        autosaveService.stop();
+
+        verify(noteService).patchNote(eq(1L), eq(3L), isNull(), eq(List.of("Before shutdown")));
+    }
+
+    private static Note note(Long version, String... texts) {
+        Folder folder = new Folder();
+        folder.setId(5L);
+        Note note = new Note();
+        note.setId(1L);
+        note.setFolder(folder);
+        note.setVersion(version);
+        note.setTexts(new ArrayList<>(List.of(texts)));
+        return note;
+    }
+}
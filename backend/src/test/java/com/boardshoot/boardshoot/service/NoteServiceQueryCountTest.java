@@ -0,0 +1,466 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.config.HibernateConfig;
+import com.boardshoot.boardshoot.model.Folder;
+import com.boardshoot.boardshoot.model.IdGeneration;
+import com.boardshoot.boardshoot.model.ImageVariants;
+import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.NoteImage;
+import com.boardshoot.boardshoot.model.User;
+import com.boardshoot.boardshoot.repository.NoteRepository;
+import com.boardshoot.boardshoot.security.UserDetailsImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Kontrollib, et märkmete laadimise SQL-päringute arv ei kasva koos märkmete arvuga (N+1)
+ * ja et korduvad lugemised tulevad vahemälust. Redis'e asemel on mälus olev vahemälu.
+ */
+@DataJpaTest
+@Import({NoteService.class, EntityCacheService.class, HibernateConfig.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class NoteServiceQueryCountTest {
+
+    private static final int TEXTS_PER_NOTE = 2;
+    private static final int IMAGES_PER_NOTE = 3;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @TestConfiguration
+    static class CacheTestConfig {
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(EntityCacheService.FOLDERS, EntityCacheService.NOTES, EntityCacheService.FOLDER_NOTES);
+        }
+    }
+
+    @MockBean
+    private StorageService storageService;
+
+    @MockBean
+    private LocalBlobStore localBlobStore;
+
+    @MockBean
+    private ContentVersionService contentVersionService;
+
+    @MockBean
+    private StorageDeletionService storageDeletionService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 120, 500})
+    void getNotesForFolder_shouldLoadCollectionsInBatches(int noteCount) {
+        Folder folder = createFolderWithNotes(noteCount);
+
+        statistics.clear();
+        List<Note> notes = noteService.getNotesForFolder(folder.getId());
+        // Käime kõik kogumid läbi nagu JSON-i serialiseerimisel
+        int texts = 0;
+        int images = 0;
+        int variants = 0;
+        for (Note note : notes) {
+            texts += note.getTexts().size();
+            images += note.getImageUrls().size();
+            variants += note.getImageVariants().size();
+        }
+
+        assertEquals(noteCount, notes.size());
+        assertEquals(noteCount * TEXTS_PER_NOTE, texts);
+        assertEquals(noteCount * IMAGES_PER_NOTE, images);
+        assertEquals(noteCount * IMAGES_PER_NOTE, variants);
+
+        // Kausta kontroll + märkmed koos tekstidega + piltide partiid (variandid on pildi real)
+        int batches = (noteCount + Note.COLLECTION_BATCH_SIZE - 1) / Note.COLLECTION_BATCH_SIZE;
+        long maxStatements = 2 + batches;
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= maxStatements,
+                "Expected at most " + maxStatements + " statements for " + noteCount + " notes but got " + statements);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 30, 200})
+    void getNoteSummaries_shouldUseFixedNumberOfQueries(int noteCount) {
+        Folder folder = createFolderWithNotes(noteCount);
+
+        statistics.clear();
+        NoteSummaryPage page = noteService.getNoteSummaries(folder.getId(), null, 200);
+
+        assertEquals(noteCount, page.getItems().size());
+        NoteSummary first = page.getItems().get(0);
+        assertEquals(IMAGES_PER_NOTE, first.getImageCount());
+        assertTrue(first.getThumbnailUrl().endsWith("_thumb.jpg"));
+        assertTrue(first.getTextPreview().startsWith("Text"));
+        // Kausta kontroll + lehekülg + tekstid + pildid koos pisipiltidega
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getNoteSummaries_shouldPreviewFirstTextOfEachNote() {
+        Folder folder = createFolderWithNotes(1);
+        Note note = new Note();
+        note.setTitle("Multi");
+        note.setFolder(entityManager.getReference(Folder.class, folder.getId()));
+        note.setUser(entityManager.getReference(User.class, folder.getUser().getId()));
+        // Tähestiku järgi oleks esimene "Apple", kuid eelvaade peab tulema järjekorra järgi
+        note.addText("Zebra");
+        note.addText("Apple");
+        note.addText("Mango");
+        entityManager.persist(note);
+        entityManager.flush();
+        entityManager.clear();
+
+        NoteSummaryPage page = noteService.getNoteSummaries(folder.getId(), null, 200);
+
+        assertEquals("Text 0.0", page.getItems().get(0).getTextPreview());
+        assertEquals("Zebra", page.getItems().get(1).getTextPreview());
+        // Iga märkme kohta täpselt üks rida, mitte üks rida teksti kohta
+        List<Long> noteIds = page.getItems().stream().map(NoteSummary::getId).toList();
+        assertEquals(2, noteRepository.findTextPreviews(noteIds, 200).size());
+    }
+
+    @Test
+    void getNotesForFolder_shouldServeRepeatReadsFromCache() {
+        Folder folder = createFolderWithNotes(5);
+        noteService.getNotesForFolder(folder.getId());
+
+        statistics.clear();
+        List<Note> notes = noteService.getNotesForFolder(folder.getId());
+
+        assertEquals(5, notes.size());
+        // Märkmeid ei laadita uuesti, jääb ainult kausta olemasolu kontroll
+        assertTrue(statistics.getPrepareStatementCount() <= 1);
+    }
+
+    @Test
+    void updateNote_shouldEvictCachedNoteAndFolderList() {
+        Folder folder = createFolderWithNotes(2);
+        Long noteId = noteService.getNotesForFolder(folder.getId()).get(0).getId();
+        noteService.getNote(noteId);
+
+        statistics.clear();
+        assertEquals("Note 0", noteService.getNote(noteId).getTitle());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        noteService.updateNote(noteId, "Changed", null);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals("Changed", noteService.getNote(noteId).getTitle());
+        assertEquals("Changed", noteService.getNotesForFolder(folder.getId()).get(0).getTitle());
+    }
+
+    @Test
+    void deleteNote_shouldEvictCachedFolderList() {
+        Folder folder = createFolderWithNotes(2);
+        Long noteId = noteService.getNotesForFolder(folder.getId()).get(0).getId();
+
+        noteService.deleteNote(noteId);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(1, noteService.getNotesForFolder(folder.getId()).size());
+        verify(storageDeletionService).enqueueNoteImages(List.of(noteId));
+    }
+
+    @Test
+    void patchNote_shouldUpdateOnlyChangedTextRow() {
+        Folder folder = createFolderWithNotes(1);
+        Note note = loadDetachedNote(folder);
+
+        statistics.clear();
+        Note patched = noteService.patchNote(note.getId(), note.getVersion(), null, List.of("Text 0.0", "Edited"));
+
+        assertEquals(List.of("Text 0.0", "Edited"), patched.getTexts());
+        assertEquals(note.getVersion() + 1, patched.getVersion());
+        // Tekstide kogumit ei kustutata ega kirjutata tervikuna uuesti
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertEquals(0, statistics.getCollectionRemoveCount());
+        assertEquals(1, statistics.getCollectionUpdateCount());
+        // Märkme laadimine + tekstid + versiooni tõstmine + üks tekstirida
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateNote_shouldNotRecreateTextCollection() {
+        Folder folder = createFolderWithNotes(1);
+        Note note = loadDetachedNote(folder);
+
+        statistics.clear();
+        noteService.updateNote(note.getId(), null, "Replaced");
+        entityManager.flush();
+
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        entityManager.clear();
+        assertEquals(List.of("Replaced"), noteService.getNote(note.getId()).getTexts());
+    }
+
+    @Test
+    void patchNote_shouldRejectStaleVersion() {
+        Folder folder = createFolderWithNotes(1);
+        Note note = loadDetachedNote(folder);
+        noteService.patchNote(note.getId(), note.getVersion(), "First", null);
+        entityManager.clear();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> noteService.patchNote(note.getId(), note.getVersion(), "Second", null));
+        entityManager.clear();
+        assertEquals("First", entityManager.find(Note.class, note.getId()).getTitle());
+    }
+
+    @Test
+    void reorderImagesById_shouldUpdateOnlyMovedImages() {
+        Folder folder = createFolderWithNotes(1);
+        Note note = loadDetachedNote(folder);
+        List<Long> ids = noteService.getNote(note.getId()).getImages().stream().map(NoteImage::getId).toList();
+        entityManager.clear();
+
+        statistics.clear();
+        Note reordered = noteService.reorderImagesById(note.getId(), List.of(ids.get(1), ids.get(0), ids.get(2)));
+        entityManager.flush();
+
+        assertEquals(List.of(ids.get(1), ids.get(0), ids.get(2)),
+                reordered.getImages().stream().map(NoteImage::getId).toList());
+        assertEquals(2, statistics.getEntityStatistics(NoteImage.class.getName()).getUpdateCount());
+        assertEquals(0, statistics.getEntityDeleteCount());
+        assertEquals(0, statistics.getEntityInsertCount());
+
+        entityManager.clear();
+        assertEquals(reordered.getImageUrls(), noteService.getNote(note.getId()).getImageUrls());
+    }
+
+    @Test
+    void reorderImagesById_shouldIncrementNoteVersion() {
+        Folder folder = createFolderWithNotes(1);
+        Note note = loadDetachedNote(folder);
+        List<Long> ids = noteService.getNote(note.getId()).getImages().stream().map(NoteImage::getId).toList();
+        entityManager.clear();
+
+        Note reordered = noteService.reorderImagesById(note.getId(), List.of(ids.get(2), ids.get(1), ids.get(0)));
+
+        // Versiooniga PATCH vanema versiooniga ei kirjuta üle pärast piltide muutmist
+        assertEquals(note.getVersion() + 1, reordered.getVersion());
+        entityManager.clear();
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> noteService.patchNote(note.getId(), note.getVersion(), "Stale", null));
+    }
+
+    @Test
+    void reorderImagesById_shouldRejectDuplicateIds() {
+        Folder folder = createFolderWithNotes(1);
+        Note note = loadDetachedNote(folder);
+        List<Long> ids = noteService.getNote(note.getId()).getImages().stream().map(NoteImage::getId).toList();
+
+        assertThrows(RuntimeException.class,
+                () -> noteService.reorderImagesById(note.getId(), List.of(ids.get(0), ids.get(0), ids.get(2))));
+    }
+
+    @Test
+    void deleteImageById_shouldRemoveOnlyThatImage() {
+        Folder folder = createFolderWithNotes(1);
+        Note note = loadDetachedNote(folder);
+        NoteImage middle = noteService.getNote(note.getId()).getImages().get(1);
+        entityManager.clear();
+
+        assertTrue(noteService.deleteImageById(note.getId(), middle.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<NoteImage> remaining = noteService.getNote(note.getId()).getImages();
+        assertEquals(IMAGES_PER_NOTE - 1, remaining.size());
+        assertTrue(remaining.stream().noneMatch(image -> image.getId().equals(middle.getId())));
+        assertFalse(noteService.deleteImageById(note.getId(), middle.getId()));
+        // Originaal, pisipilt ja eelvaade lähevad storage'i kustutamisjärjekorda
+        verify(storageDeletionService).enqueueUrls(List.of(middle.getUrl(), middle.getThumbnailUrl(), middle.getPreviewUrl()));
+    }
+
+    @Test
+    void deleteImageById_shouldKeepImage_whenQueueingFilesFails() {
+        Folder folder = createFolderWithNotes(1);
+        Note note = loadDetachedNote(folder);
+        NoteImage first = noteService.getNote(note.getId()).getImages().get(0);
+        entityManager.clear();
+        doThrow(new RuntimeException("Queue unavailable")).when(storageDeletionService).enqueueUrls(anyList());
+
+        assertThrows(RuntimeException.class, () -> noteService.deleteImageById(note.getId(), first.getId()));
+
+        // Järjekorda lisamine on samas tehingus, seega pilti ei eemaldatud
+        entityManager.clear();
+        Long images = entityManager.createQuery("SELECT COUNT(i) FROM NoteImage i WHERE i.note.id = :noteId", Long.class)
+                .setParameter("noteId", note.getId())
+                .getSingleResult();
+        assertEquals(IMAGES_PER_NOTE, images.intValue());
+    }
+
+    @Test
+    void createNotes_shouldCheckFolderOnceAndBatchInserts() {
+        Folder folder = createFolderWithNotes(0);
+        signInAs(folder.getUser());
+        List<NoteDraft> drafts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            drafts.add(new NoteDraft("Bulk " + i, "Text " + i));
+        }
+
+        statistics.clear();
+        List<Note> created = noteService.createNotes(folder.getId(), drafts);
+        entityManager.flush();
+
+        assertEquals(100, created.size());
+        assertTrue(created.stream().allMatch(note -> note.getId() != null));
+        // Kausta kontroll + jada päringud (üks ploki kohta, värskel jadal üks lisaks) + märkmete ja tekstide partiid;
+        // kasutajat eraldi ei laadita
+        int blocks = (drafts.size() + IdGeneration.ALLOCATION_SIZE - 1) / IdGeneration.ALLOCATION_SIZE;
+        long maxStatements = 1 + (blocks + 1) + 2L * blocks;
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= maxStatements, "Expected at most " + maxStatements + " statements but got " + statements);
+    }
+
+    @Test
+    void moveNotes_shouldMoveOnlyNotesOfSourceFolder() {
+        Folder source = createFolderWithNotes(3);
+        User user = entityManager.find(User.class, source.getUser().getId());
+        Folder target = new Folder("Target", user);
+        entityManager.persist(target);
+        Note other = loadDetachedNote(createFolderWithNotes(1));
+        List<Long> ids = noteIdsOf(source);
+        signInAs(user);
+
+        statistics.clear();
+        int moved = noteService.moveNotes(source.getId(), List.of(ids.get(0), ids.get(1), other.getId()), target.getId());
+
+        assertEquals(2, moved);
+        // Kahe kausta kontroll + üks UPDATE
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(List.of(ids.get(2)), noteIdsOf(source));
+        assertEquals(List.of(ids.get(0), ids.get(1)), noteIdsOf(target));
+        assertEquals(1L, entityManager.find(Note.class, ids.get(0)).getVersion());
+    }
+
+    @Test
+    void moveNotes_shouldRejectFolderOfAnotherUser() {
+        Folder source = createFolderWithNotes(2);
+        Folder foreign = createFolderWithNotes(1);
+        signInAs(source.getUser());
+
+        assertThrows(RuntimeException.class,
+                () -> noteService.moveNotes(source.getId(), noteIdsOf(source), foreign.getId()));
+    }
+
+    @Test
+    void deleteNotes_shouldDeleteNotesWithCollectionsInFixedNumberOfStatements() {
+        Folder folder = createFolderWithNotes(30);
+        signInAs(folder.getUser());
+        List<Long> ids = noteIdsOf(folder);
+
+        statistics.clear();
+        List<Long> requested = new ArrayList<>(ids.subList(0, 20));
+        // Teise kausta (siin olematu) märkme ID-d eiratakse
+        requested.add(-1L);
+        List<Long> deleted = noteService.deleteNotes(folder.getId(), requested);
+
+        assertEquals(ids.subList(0, 20), deleted);
+        // Kausta kontroll + ID-de kontroll + tekstid + pildid + märkmed
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(ids.subList(20, 30), noteIdsOf(folder));
+        verify(storageDeletionService).enqueueNoteImages(ids.subList(0, 20));
+        Number texts = (Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM note_texts").getSingleResult();
+        assertEquals(10L * TEXTS_PER_NOTE, texts.longValue());
+    }
+
+    private List<Long> noteIdsOf(Folder folder) {
+        return entityManager.createQuery("SELECT n.id FROM Note n WHERE n.folder.id = :folderId ORDER BY n.id", Long.class)
+                .setParameter("folderId", folder.getId())
+                .getResultList();
+    }
+
+    private void signInAs(User user) {
+        UserDetailsImpl principal = new UserDetailsImpl(user.getId(), user.getUsername(), user.getEmail(), List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private Note loadDetachedNote(Folder folder) {
+        Note note = entityManager.createQuery("SELECT n FROM Note n WHERE n.folder.id = :folderId", Note.class)
+                .setParameter("folderId", folder.getId())
+                .getSingleResult();
+        entityManager.clear();
+        return note;
+    }
+
+    private Folder createFolderWithNotes(int noteCount) {
+        User user = new User("user" + noteCount, "password", "user" + noteCount + "@example.com");
+        entityManager.persist(user);
+        Folder folder = new Folder("Folder " + noteCount, user);
+        entityManager.persist(folder);
+
+        for (int i = 0; i < noteCount; i++) {
+            Note note = new Note();
+            note.setTitle("Note " + i);
+            note.setFolder(folder);
+            note.setUser(user);
+            for (int t = 0; t < TEXTS_PER_NOTE; t++) {
+                note.addText("Text " + i + "." + t);
+            }
+            for (int m = 0; m < IMAGES_PER_NOTE; m++) {
+                String url = "https://example.com/note_" + i + "_" + m + ".jpg";
+                note.addImage(url, new ImageVariants(
+                        "https://example.com/note_" + i + "_" + m + "_thumb.jpg",
+                        "https://example.com/note_" + i + "_" + m + "_preview.jpg"));
+            }
+            entityManager.persist(note);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return folder;
+    }
+}
@@ -0,0 +1,262 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.config.HibernateConfig;
+import com.boardshoot.boardshoot.model.Folder;
+import com.boardshoot.boardshoot.model.ImageVariants;
+import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.StorageDeletion;
+import com.boardshoot.boardshoot.model.User;
+import com.boardshoot.boardshoot.repository.StorageDeletionRepository;
+import com.boardshoot.boardshoot.security.UserDetailsImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kontrollib kausta kustutamist hulgilausetega ja piltide kustutamisjärjekorda.
+ * Supabase'i asemel on StorageService'i mock.
+ */
+@DataJpaTest
+@Import({FolderService.class, EntityCacheService.class, StorageDeletionService.class, IdSequenceService.class, HibernateConfig.class})
+@TestPropertySource(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "boardshoot.migrations.align-id-sequences-on-startup=false",
+    // Taustatöö ei tohi testi ajal ise järjekorda töödelda
+    "boardshoot.storage.deletion.interval-ms=3600000",
+    "boardshoot.storage.deletion.batch-size=4",
+    "boardshoot.storage.deletion.max-attempts=2"
+})
+class StorageDeletionServiceTest {
+
+    private static final int IMAGES_PER_NOTE = 2;
+    // Iga pildi kohta originaal, pisipilt ja eelvaade
+    private static final int OBJECTS_PER_IMAGE = 3;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private StorageDeletionService storageDeletionService;
+
+    @Autowired
+    private StorageDeletionRepository storageDeletionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(EntityCacheService.FOLDERS, EntityCacheService.NOTES, EntityCacheService.FOLDER_NOTES);
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private StorageService storageService;
+
+    @MockBean
+    private LocalBlobStore localBlobStore;
+
+    @MockBean
+    private ContentVersionService contentVersionService;
+
+    @MockBean
+    private NoteAutosaveService noteAutosaveService;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 300})
+    void deleteFolder_shouldUseBulkStatementsAndQueueImages(int noteCount) {
+        Folder folder = createFolderWithNotes(noteCount);
+        signInAs(folder.getUser());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        folderService.deleteFolder(folder.getId());
+
+        // Kausta kontroll + märkmete ID-d + pildilehed + pildid, tekstid, märkmed ja kaust.
+        // Järjekorra read kirjutatakse JdbcTemplate'iga (lehe kohta üks partii), neid statistika ei loe.
+        int images = noteCount * IMAGES_PER_NOTE;
+        int pages = images / StorageDeletionService.ENQUEUE_PAGE_SIZE + 1;
+        long maxStatements = 2 + pages + 4;
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= maxStatements,
+                "Expected at most " + maxStatements + " statements for " + noteCount + " notes but got " + statements);
+        // Laaditakse ainult kaust ja selle omanik, mitte märkmeid
+        assertEquals(2, statistics.getEntityLoadCount());
+
+        assertEquals(0, count("folder"));
+        assertEquals(0, count("note"));
+        assertEquals(0, count("note_texts"));
+        assertEquals(0, count("note_image"));
+        assertEquals(images * OBJECTS_PER_IMAGE, count("storage_deletion"));
+        verify(storageService, never()).deleteImages(anyList());
+    }
+
+    @Test
+    void deleteFolder_shouldDiscardAutosavesOnlyAfterCommit() {
+        Folder folder = createFolderWithNotes(1);
+        signInAs(folder.getUser());
+
+        folderService.deleteFolder(folder.getId());
+        verify(noteAutosaveService, never()).discardFolder(folder.getId());
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        try {
+            verify(noteAutosaveService).discardFolder(folder.getId());
+        } finally {
+            // Kinnitatud andmed koristatakse, et need ei segaks teisi teste
+            jdbcTemplate.update("DELETE FROM storage_deletion");
+            jdbcTemplate.update("DELETE FROM users");
+        }
+    }
+
+    @Test
+    void deleteFolder_shouldKeepAutosaves_whenFolderBelongsToAnotherUser() {
+        Folder folder = createFolderWithNotes(1);
+        User intruder = new User("intruder", "password", "intruder@example.com");
+        entityManager.persist(intruder);
+        signInAs(intruder);
+
+        assertThrows(RuntimeException.class, () -> folderService.deleteFolder(folder.getId()));
+
+        assertEquals(1, count("folder"));
+        verify(noteAutosaveService, never()).discardFolder(any());
+    }
+
+    @Test
+    void enqueueUrls_shouldSkipLocalAndDataUrls() {
+        when(localBlobStore.isBlobUrl("http://localhost/api/blobs/abc")).thenReturn(true);
+
+        int queued = storageDeletionService.enqueueUrls(List.of(
+                "https://example.com/storage/v1/object/public/images/note_1_a.jpg",
+                "https://example.com/storage/v1/object/public/images/note_1_a.jpg",
+                "http://localhost/api/blobs/abc",
+                "data:image/png;base64,AAAA"));
+
+        assertEquals(1, queued);
+        assertEquals("note_1_a.jpg", storageDeletionRepository.findAll().get(0).getObjectName());
+    }
+
+    @Test
+    void processQueue_shouldDeleteObjectsInBatches() {
+        storageDeletionService.enqueueUrls(urls(6));
+        when(storageService.deleteImages(anyList())).thenReturn(true);
+
+        assertEquals(6, storageDeletionService.processQueue());
+
+        verify(storageService).deleteImages(List.of("obj_0.jpg", "obj_1.jpg", "obj_2.jpg", "obj_3.jpg"));
+        verify(storageService).deleteImages(List.of("obj_4.jpg", "obj_5.jpg"));
+        assertEquals(0, storageDeletionRepository.count());
+    }
+
+    @Test
+    void processQueue_shouldBackOffAndThenDrop_whenDeleteKeepsFailing() {
+        storageDeletionService.enqueueUrls(urls(2));
+        when(storageService.deleteImages(anyList())).thenReturn(false);
+
+        assertEquals(0, storageDeletionService.processQueue());
+        List<StorageDeletion> pending = storageDeletionRepository.findAll();
+        assertEquals(2, pending.size());
+        assertTrue(pending.stream().allMatch(d -> d.getAttempts() == 1 && d.getNextAttemptAt().isAfter(Instant.now())));
+
+        // Ootamine möödas: teine ebaõnnestunud katse on viimane
+        jdbcTemplate.update("UPDATE storage_deletion SET next_attempt_at = ?", Timestamp.from(Instant.now().minusSeconds(1)));
+        entityManager.clear();
+        storageDeletionService.processQueue();
+        assertEquals(0, storageDeletionRepository.count());
+    }
+
+    private List<String> urls(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> "https://example.com/storage/v1/object/public/images/obj_" + i + ".jpg")
+                .toList();
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private void signInAs(User user) {
+        UserDetailsImpl principal = new UserDetailsImpl(user.getId(), user.getUsername(), user.getEmail(), List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private Folder createFolderWithNotes(int noteCount) {
+        User user = new User("user" + noteCount, "password", "user" + noteCount + "@example.com");
+        entityManager.persist(user);
+        Folder folder = new Folder("Folder " + noteCount, user);
+        entityManager.persist(folder);
+
+        for (int i = 0; i < noteCount; i++) {
+            Note note = new Note();
+            note.setTitle("Note " + i);
+            note.setFolder(folder);
+            note.setUser(user);
+            note.addText("Text " + i);
+            for (int m = 0; m < IMAGES_PER_NOTE; m++) {
+                String url = "https://example.com/storage/v1/object/public/images/note_" + i + "_" + m + ".jpg";
+                note.addImage(url, new ImageVariants(
+                        "https://example.com/storage/v1/object/public/images/note_" + i + "_" + m + "_thumb.jpg",
+                        "https://example.com/storage/v1/object/public/images/note_" + i + "_" + m + "_preview.jpg"));
+            }
+            entityManager.persist(note);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return folder;
+    }
+}
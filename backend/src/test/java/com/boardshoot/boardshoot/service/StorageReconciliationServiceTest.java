@@ -0,0 +1,145 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.Folder;
+import com.boardshoot.boardshoot.model.ImageVariants;
+import com.boardshoot.boardshoot.model.Note;
+import com.boardshoot.boardshoot.model.StorageDeletion;
+import com.boardshoot.boardshoot.model.User;
+import com.boardshoot.boardshoot.repository.StorageDeletionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kontrollib, et bucketi viitamata pildid lisatakse kustutamisjärjekorda ja viidatud, värsked
+ * ning võõra nimega objektid jäetakse alles. Supabase'i asemel on StorageService'i mock.
+ */
+@DataJpaTest
+@Import({StorageReconciliationService.class, StorageDeletionService.class, IdSequenceService.class})
+@TestPropertySource(properties = {
+    "boardshoot.migrations.align-id-sequences-on-startup=false",
+    // Taustatööd ei tohi testi ajal ise käivituda
+    "boardshoot.storage.reconcile.enabled=false",
+    "boardshoot.storage.deletion.interval-ms=3600000",
+    "boardshoot.storage.reconcile.page-size=2",
+    "boardshoot.storage.reconcile.min-age-ms=3600000"
+})
+class StorageReconciliationServiceTest {
+
+    private static final String BUCKET_URL = "https://example.com/storage/v1/object/public/images/";
+
+    @Autowired
+    private StorageReconciliationService reconciliationService;
+
+    @Autowired
+    private StorageDeletionService storageDeletionService;
+
+    @Autowired
+    private StorageDeletionRepository storageDeletionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private StorageService storageService;
+
+    @MockBean
+    private LocalBlobStore localBlobStore;
+
+    private final List<StorageObject> bucket = new ArrayList<>();
+    private Long noteId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User("user", "password", "user@example.com");
+        entityManager.persist(user);
+        Folder folder = new Folder("Folder", user);
+        entityManager.persist(folder);
+        Note note = new Note();
+        note.setTitle("Note");
+        note.setFolder(folder);
+        note.setUser(user);
+        entityManager.persist(note);
+        noteId = note.getId();
+        note.addImage(BUCKET_URL + name("kept"), new ImageVariants(BUCKET_URL + name("kept_thumb"), null));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Bucketi nimekiri lehtede kaupa nagu Supabase'i list API
+        when(storageService.listObjects(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(0);
+            int offset = invocation.getArgument(1);
+            return bucket.subList(Math.min(offset, bucket.size()), Math.min(offset + limit, bucket.size()));
+        });
+    }
+
+    @Test
+    void reconcile_shouldQueueOnlyOldUnreferencedObjects() {
+        Instant old = Instant.now().minus(2, ChronoUnit.DAYS);
+        bucket.add(new StorageObject(name("kept"), old));
+        bucket.add(new StorageObject(name("kept_thumb"), old));
+        bucket.add(new StorageObject(name("removed"), old));
+        bucket.add(new StorageObject(name("uploading"), Instant.now()));
+        bucket.add(new StorageObject("note_" + (noteId + 1000) + "_deleted.jpg", old));
+        bucket.add(new StorageObject("other_file.jpg", old));
+        bucket.add(new StorageObject(name("queued"), old));
+        storageDeletionService.enqueueObjectNames(List.of(name("queued")));
+
+        assertEquals(2, reconciliationService.reconcile());
+
+        List<String> queued = storageDeletionRepository.findAll().stream()
+                .map(StorageDeletion::getObjectName)
+                .sorted()
+                .toList();
+        List<String> expected = List.of("note_" + (noteId + 1000) + "_deleted.jpg", name("queued"), name("removed"));
+        assertEquals(expected.stream().sorted().toList(), queued);
+    }
+
+    @Test
+    void reconcile_shouldStopAtOrphanLimit() {
+        Instant old = Instant.now().minus(2, ChronoUnit.DAYS);
+        for (int i = 0; i < 5; i++) {
+            bucket.add(new StorageObject(name("orphan" + i), old));
+        }
+        // Teenus on testide vahel jagatud, seega piirang taastatakse
+        Object limit = ReflectionTestUtils.getField(reconciliationService, "maxOrphansPerRun");
+        ReflectionTestUtils.setField(reconciliationService, "maxOrphansPerRun", 3);
+        try {
+            assertEquals(3, reconciliationService.reconcile());
+            assertEquals(3, storageDeletionRepository.count());
+        } finally {
+            ReflectionTestUtils.setField(reconciliationService, "maxOrphansPerRun", limit);
+        }
+    }
+
+    private String name(String suffix) {
+        return "note_" + noteId + "_" + suffix + ".jpg";
+    }
+}
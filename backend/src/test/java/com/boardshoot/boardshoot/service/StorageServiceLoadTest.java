@@ -0,0 +1,280 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.config.SupabaseStorageConfig;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Koormustest StorageService'i HTTP kliendile kohaliku Storage API asendusserveri vastu.
+ * Võrdleb lihtsat (kogumita) ja ühenduste kogumiga päringutehast.
+ */
+class StorageServiceLoadTest {
+
+    private static final int THREADS = 16;
+    private static final int ITERATIONS_PER_THREAD = 25;
+    private static final byte[] IMAGE = new byte[32 * 1024];
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private volatile long responseDelayMs = 0;
+    // Mitu järgmist üleslaadimist vastavad "Bucket not found"
+    private final AtomicInteger bucketNotFoundResponses = new AtomicInteger();
+    private final AtomicInteger bucketChecks = new AtomicInteger();
+    private final AtomicInteger uploads = new AtomicInteger();
+    // Register, mille olekut bucketi kontrolli saabumisel jälgitakse
+    private volatile StorageBucketRegistry observedRegistry;
+    private volatile boolean bucketKnownDuringCheck;
+
+    @TempDir
+    Path blobDir;
+
+    @BeforeEach
+    void startStubServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/storage/v1/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            if (responseDelayMs > 0) {
+                try {
+                    Thread.sleep(responseDelayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String path = exchange.getRequestURI().getPath();
+            int status = 200;
+            byte[] response = "{}".getBytes();
+            if ("GET".equals(exchange.getRequestMethod()) && path.startsWith("/storage/v1/bucket/")) {
+                bucketChecks.incrementAndGet();
+                StorageBucketRegistry registry = observedRegistry;
+                if (registry != null) {
+                    bucketKnownDuringCheck = registry.isKnown("test-bucket");
+                }
+            } else if ("POST".equals(exchange.getRequestMethod()) && path.startsWith("/storage/v1/object/")) {
+                uploads.incrementAndGet();
+                if (bucketNotFoundResponses.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                    // Supabase vastab puuduva bucketi korral 400 ja veaga kehas
+                    status = 400;
+                    response = "{\"statusCode\":\"404\",\"error\":\"Bucket not found\",\"message\":\"Bucket not found\"}".getBytes();
+                }
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        serverExecutor = Executors.newFixedThreadPool(THREADS * 2);
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void pooledClient_shouldReuseConnectionsUnderConcurrentLoad() throws Exception {
+        LoadResult simple = runLoad(new SimpleClientHttpRequestFactory());
+        LoadResult pooled = runLoad(SupabaseStorageConfig.createPooledRequestFactory(
+            50, THREADS, 1000, 5000, 1000, 30000));
+
+        System.out.printf("Storage load test (%d requests): simple client %.0f req/s over %d connections, "
+                + "pooled client %.0f req/s over %d connections%n",
+            simple.requests, simple.throughput(), simple.connections,
+            pooled.throughput(), pooled.connections);
+
+        // Kogum hoiab ühendused lahti, seega uusi ühendusi ei teki rohkem kui paralleelseid lõimi
+        assertThat(pooled.connections).isLessThanOrEqualTo(THREADS);
+    }
+
+    @Test
+    void pooledClient_shouldTimeOutOnSlowStorageNode() {
+        StorageService storageService = createStorageService(
+            SupabaseStorageConfig.createPooledRequestFactory(50, THREADS, 1000, 300, 1000, 30000));
+        // Bucketi kontroll tehakse enne aeglustamist
+        storageService.verifyBucketOnStartup();
+        responseDelayMs = 2000;
+
+        long start = System.nanoTime();
+        String url = storageService.uploadImage(IMAGE, 1L);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Aeglane sõlm ei hoia lõime kinni - üleslaadimine katkeb ja pilt läheb kohalikku hoidlasse
+        assertThat(elapsedMs).isLessThan(1500);
+        assertThat(url).contains(LocalBlobStore.BLOB_PATH);
+    }
+
+    @Test
+    void uploadImage_shouldRecheckBucketAndRetryOnce_whenBucketNotFound() {
+        StorageBucketRegistry bucketRegistry = new StorageBucketRegistry();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        bucketRegistry.bindTo(meterRegistry);
+        StorageService storageService = createStorageService(new SimpleClientHttpRequestFactory(), bucketRegistry, meterRegistry);
+        storageService.verifyBucketOnStartup();
+        observedRegistry = bucketRegistry;
+        bucketChecks.set(0);
+        bucketNotFoundResponses.set(1);
+
+        String url = storageService.uploadImage(IMAGE, 1L);
+
+        // Üks ebaõnnestunud ja üks korduskatse, vahel täpselt üks uus bucketi kontroll
+        assertThat(url).startsWith("http://127.0.0.1:" + server.getAddress().getPort() + "/storage/v1/object/public/test-bucket/");
+        assertThat(uploads.get()).isEqualTo(2);
+        assertThat(bucketChecks.get()).isEqualTo(1);
+        // Register tühjendati enne uut kontrolli ja bucket on pärast seda jälle teada
+        assertThat(bucketKnownDuringCheck).isFalse();
+        assertThat(bucketRegistry.isKnown("test-bucket")).isTrue();
+        assertThat(bucketRegistry.getInvalidations()).isEqualTo(1);
+        // Käivitusaegne kontroll + uus kontroll; üleslaadimise eel jäi kontroll registri tõttu vahele
+        assertThat(bucketRegistry.getChecksPerformed()).isEqualTo(2);
+        assertThat(bucketRegistry.getChecksSkipped()).isEqualTo(1);
+        assertThat(meterRegistry.get("boardshoot.storage.bucket.checks").tag("result", "performed").functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("boardshoot.storage.bucket.checks").tag("result", "skipped").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("boardshoot.storage.bucket.invalidations").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("boardshoot.storage.requests").tag("operation", "upload").tag("outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("boardshoot.storage.requests").tag("operation", "upload").tag("outcome", "success").timer().count()).isEqualTo(1);
+
+        // Järgmine üleslaadimine ei kontrolli bucketit uuesti
+        storageService.uploadImage(IMAGE, 1L);
+        assertThat(uploads.get()).isEqualTo(3);
+        assertThat(bucketChecks.get()).isEqualTo(1);
+        assertThat(bucketRegistry.getChecksSkipped()).isEqualTo(2);
+        assertThat(bucketRegistry.getInvalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void storeImage_shouldUploadVariantsConcurrentlyWithOriginal() throws Exception {
+        ImageProcessingService imageProcessingService = new ImageProcessingService();
+        ReflectionTestUtils.setField(imageProcessingService, "processingThreads", 2);
+        ReflectionTestUtils.setField(imageProcessingService, "jpegQuality", 0.8f);
+        imageProcessingService.start();
+        StorageService storageService = createStorageService(new SimpleClientHttpRequestFactory());
+        ReflectionTestUtils.setField(storageService, "imageProcessingService", imageProcessingService);
+        storageService.start();
+        try {
+            storageService.verifyBucketOnStartup();
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(new BufferedImage(3000, 2000, BufferedImage.TYPE_INT_RGB), "png", png);
+            responseDelayMs = 500;
+
+            long start = System.nanoTime();
+            StoredImage stored = storageService.storeImage(png.toByteArray(), 1L);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertThat(uploads.get()).isEqualTo(3);
+            assertThat(stored.getThumbnailUrl()).endsWith("_thumb.jpg");
+            assertThat(stored.getPreviewUrl()).endsWith("_preview.jpg");
+            // Järjest üles laadides kuluks originaalile ja kahele variandile vähemalt 3 × 500 ms
+            assertThat(elapsedMs).isLessThan(1300);
+        } finally {
+            storageService.stop();
+            imageProcessingService.stop();
+        }
+    }
+
+    private LoadResult runLoad(ClientHttpRequestFactory requestFactory) throws Exception {
+        clientPorts.clear();
+        StorageService storageService = createStorageService(requestFactory);
+        storageService.verifyBucketOnStartup();
+        String publicPrefix = "http://127.0.0.1:" + server.getAddress().getPort() + "/storage/v1/object/public/";
+
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < ITERATIONS_PER_THREAD; i++) {
+                        String url = storageService.uploadImage(IMAGE, 1L);
+                        assertThat(url).startsWith(publicPrefix);
+                        assertThat(storageService.deleteImage(url.substring(url.lastIndexOf('/') + 1))).isTrue();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            return new LoadResult(THREADS * ITERATIONS_PER_THREAD * 2, elapsedNanos, clientPorts.size());
+        } finally {
+            clients.shutdownNow();
+            if (requestFactory instanceof HttpComponentsClientHttpRequestFactory pooled) {
+                pooled.destroy();
+            }
+        }
+    }
+
+    private StorageService createStorageService(ClientHttpRequestFactory requestFactory) {
+        return createStorageService(requestFactory, new StorageBucketRegistry(), new SimpleMeterRegistry());
+    }
+
+    private StorageService createStorageService(ClientHttpRequestFactory requestFactory,
+                                                StorageBucketRegistry bucketRegistry, SimpleMeterRegistry meterRegistry) {
+        SupabaseStorageConfig config = new SupabaseStorageConfig();
+        ReflectionTestUtils.setField(config, "supabaseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(config, "supabaseServiceKey", "test-key");
+        ReflectionTestUtils.setField(config, "bucketName", "test-bucket");
+
+        LocalBlobStore localBlobStore = new LocalBlobStore();
+        ReflectionTestUtils.setField(localBlobStore, "blobDir", blobDir.toString());
+        ReflectionTestUtils.setField(localBlobStore, "baseUrl", "");
+
+        StorageService storageService = new StorageService();
+        ReflectionTestUtils.setField(storageService, "restTemplate", new RestTemplate(requestFactory));
+        ReflectionTestUtils.setField(storageService, "supabaseConfig", config);
+        ReflectionTestUtils.setField(storageService, "localBlobStore", localBlobStore);
+        ReflectionTestUtils.setField(storageService, "bucketRegistry", bucketRegistry);
+        ReflectionTestUtils.setField(storageService, "meterRegistry", meterRegistry);
+        return storageService;
+    }
+
+    private static class LoadResult {
+        final int requests;
+        final long elapsedNanos;
+        final int connections;
+
+        LoadResult(int requests, long elapsedNanos, int connections) {
+            this.requests = requests;
+            this.elapsedNanos = elapsedNanos;
+            this.connections = connections;
+        }
+
+        double throughput() {
+            return requests / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.boardshoot.boardshoot.service;
+
+import com.boardshoot.boardshoot.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Kahetasemelise kasutajate vahemälu test: Redis on asendatud Mockito asendusega.
+ */
+class UserCacheServiceTest {
+
+    private UserCacheService userCacheService;
+    private RedisTemplate<String, Object> redisTemplate;
+    private HashOperations<String, Object, Object> hashOperations;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn((HashOperations) hashOperations);
+        meterRegistry = new SimpleMeterRegistry();
+
+        userCacheService = new UserCacheService();
+        ReflectionTestUtils.setField(userCacheService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(userCacheService, "meterRegistry", meterRegistry);
+        userCacheService.init();
+    }
+
+    @Test
+    void getCachedUser_shouldServeRepeatLookupsFromLocalCache() {
+        Map<Object, Object> entries = new HashMap<>();
+        entries.put("id", 1);
+        entries.put("username", "testuser");
+        when(hashOperations.entries("user:testuser")).thenReturn(entries);
+
+        Map<String, Object> first = userCacheService.getCachedUser("testuser");
+        Map<String, Object> second = userCacheService.getCachedUser("testuser");
+
+        assertThat(first).containsEntry("username", "testuser");
+        assertThat(second).isSameAs(first);
+        verify(hashOperations, times(1)).entries("user:testuser");
+        assertThat(meterRegistry.counter("boardshoot.cache.user.lookups", "result", "hit", "level", "local").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void cacheUser_shouldPopulateLocalCache() {
+        User user = new User("testuser", "password", "test@example.com");
+        user.setId(1L);
+
+        userCacheService.cacheUser(user);
+        Map<String, Object> cached = userCacheService.getCachedUser("testuser");
+
+        assertThat(cached).containsEntry("email", "test@example.com").doesNotContainKey("password");
+        verify(hashOperations, never()).entries(anyString());
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void cacheUser_shouldSendHashAndExpiryInOnePipeline() {
+        User user = new User("testuser", "password", "test@example.com");
+        user.setId(1L);
+
+        userCacheService.cacheUser(user);
+
+        // Üks torustatud päring, eraldi expire käsku ei saadeta
+        ArgumentCaptor<SessionCallback> callback = ArgumentCaptor.forClass(SessionCallback.class);
+        verify(redisTemplate, times(1)).executePipelined(callback.capture());
+        verify(redisTemplate, never()).expire(anyString(), anyLong(), any(TimeUnit.class));
+        verify(hashOperations, never()).putAll(anyString(), anyMap());
+
+        RedisOperations<String, Object> operations = mock(RedisOperations.class);
+        HashOperations<String, Object, Object> pipelinedHash = mock(HashOperations.class);
+        when(operations.opsForHash()).thenReturn((HashOperations) pipelinedHash);
+        callback.getValue().execute(operations);
+
+        verify(pipelinedHash).putAll(eq("user:testuser"), anyMap());
+        verify(operations).expire("user:testuser", 60 * 60, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void invalidateUserCache_shouldEvictLocallyAndNotifyOtherNodes() {
+        User user = new User("testuser", "password", "test@example.com");
+        user.setId(1L);
+        userCacheService.cacheUser(user);
+
+        userCacheService.invalidateUserCache("testuser");
+
+        verify(redisTemplate).delete(List.of("user:testuser", "userb:testuser"));
+        verify(redisTemplate).convertAndSend(UserCacheService.INVALIDATION_CHANNEL, "testuser");
+        assertThat(userCacheService.getCachedUser("testuser")).isNull();
+        verify(hashOperations).entries("user:testuser");
+    }
+
+    @Test
+    void evictLocal_shouldForceNextLookupToRedis() {
+        User user = new User("testuser", "password", "test@example.com");
+        user.setId(1L);
+        userCacheService.cacheUser(user);
+
+        userCacheService.evictLocal("testuser");
+        userCacheService.getCachedUser("testuser");
+
+        verify(hashOperations).entries("user:testuser");
+    }
+}
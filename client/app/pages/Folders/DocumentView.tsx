@@ -44,6 +44,24 @@ const truncateUrl = (url: string, maxLength: number = 30): string => {
   return url.substring(0, maxLength / 2) + '...' + url.substring(url.length - maxLength / 2);
 };
 
+// Leiab URL-ide nimekirjale vastavad pildi ID-d märkme piltidest.
+// Sama URL võib märkmes korduda, seega kasutatakse iga pilti ainult üks kord.
+// Tagastab null, kui mõnel URL-il ID puudub (nt vanem server), siis saadetakse URL-id.
+const imageIdsFor = (urls: string[], noteImages?: { id: number, url: string }[]): number[] | null => {
+  if (!noteImages || noteImages.length === 0) return null;
+  const idsByUrl = new Map<string, number[]>();
+  noteImages.forEach((image) => {
+    idsByUrl.set(image.url, [...(idsByUrl.get(image.url) || []), image.id]);
+  });
+  const ids: number[] = [];
+  for (const url of urls) {
+    const id = idsByUrl.get(url)?.shift();
+    if (id === undefined) return null;
+    ids.push(id);
+  }
+  return ids;
+};
+
 const DocumentView = () => {
   const [document, setDocument] = useState<any>(null);
   const [content, setContent] = useState<string>('');
@@ -177,17 +195,20 @@ const DocumentView = () => {
       try {
         console.log(`Muudan ${newImages.length} pildi järjekorda märkmes ID: ${noteId}`);
         
-        // Saadame uuendatud järjekorra serverisse
-        const response = await axiosInstance.put(`/api/folders/${folderId}/notes/${noteId}/images/reorder`, {
-          imageUrls: newImages
-        });
+        // Saadame uuendatud järjekorra serverisse; pildi ID-d on lühemad ja üheselt mõistetavad
+        const imageIds = imageIdsFor(newImages, document?.images);
+        const response = await axiosInstance.put(`/api/folders/${folderId}/notes/${noteId}/images/reorder`,
+          imageIds ? { imageIds } : { imageUrls: newImages });
         
-        console.log('Images reordered successfully:', response.data);
+        console.log('Images reordered successfully');
         
         // Uuendame dokumendi objekti
         if (document && response.data) {
           const updatedDocument = { ...document };
           updatedDocument.imageUrls = newImages;
+          if (response.data.images) {
+            updatedDocument.images = response.data.images;
+          }
           setDocument(updatedDocument);
         }
         
@@ -249,10 +270,15 @@ const DocumentView = () => {
     try {
       console.log(`Kustutan pildi indeksiga ${imageToDelete.index} märkmest ID: ${noteId}`);
       
-      // Saadame serverisse päringu pildi kustutamiseks
-      await axiosInstance.delete(`/api/folders/${folderId}/notes/${noteId}/images`, {
-        data: { imageUrl: imageToDelete.url }
-      });
+      // Saadame serverisse päringu pildi kustutamiseks, võimalusel pildi ID järgi
+      const imageId = imageIdsFor(images, document?.images)?.[imageToDelete.index];
+      if (imageId !== undefined) {
+        await axiosInstance.delete(`/api/folders/${folderId}/notes/${noteId}/images/${imageId}`);
+      } else {
+        await axiosInstance.delete(`/api/folders/${folderId}/notes/${noteId}/images`, {
+          data: { imageUrl: imageToDelete.url }
+        });
+      }
       
       // Uuendame kohalikku pildi massiivi
       const updatedImages = [...images];
@@ -263,6 +289,9 @@ const DocumentView = () => {
       if (document) {
         const updatedDocument = { ...document };
         updatedDocument.imageUrls = updatedImages;
+        if (imageId !== undefined && updatedDocument.images) {
+          updatedDocument.images = updatedDocument.images.filter((image: { id: number }) => image.id !== imageId);
+        }
         setDocument(updatedDocument);
       }
       
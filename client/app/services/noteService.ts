@@ -86,6 +86,39 @@ const getAuthHeader = async () => {
   return { Authorization: `Bearer ${token}` };
 };
 
+// Tingimuslik GET päring: saadame eelmise vastuse ETag-i ja 304 korral kasutame salvestatud andmeid
+const getWithETag = async (url: string, config: { headers: any; timeout?: number }) => {
+  const storageKey = `etag_${url}`;
+  let stored: { etag: string; data: any } | null = null;
+  try {
+    const storedStr = await AsyncStorage.getItem(storageKey);
+    stored = storedStr ? JSON.parse(storedStr) : null;
+  } catch (error) {
+    console.error('Error reading ETag cache:', error);
+  }
+
+  const response = await axios.get(url, {
+    ...config,
+    headers: stored ? { ...config.headers, 'If-None-Match': stored.etag } : config.headers,
+    validateStatus: (status) => (status >= 200 && status < 300) || status === 304
+  });
+
+  if (response.status === 304 && stored) {
+    console.log(`Not modified, using stored data for ${url}`);
+    return stored.data;
+  }
+
+  const etag = response.headers['etag'];
+  if (etag) {
+    try {
+      await AsyncStorage.setItem(storageKey, JSON.stringify({ etag, data: response.data }));
+    } catch (error) {
+      console.error('Error saving ETag cache:', error);
+    }
+  }
+  return response.data;
+};
+
 // Funktsioon, mis teisendab URI pildi base64-ks
 export const uriToBase64 = async (uri: string): Promise<string> => {
   try {
@@ -135,10 +168,9 @@ export const noteService = {
   getNotesForFolder: async (folderId: number) => {
     try {
       const headers = await getAuthHeader();
-      const response = await axios.get(`${API_URL}/folders/${folderId}/notes`, {
+      return await getWithETag(`${API_URL}/folders/${folderId}/notes`, {
         headers
       });
-      return response.data;
     } catch (error) {
       console.error('Error fetching notes:', error);
       throw error;
@@ -149,10 +181,9 @@ export const noteService = {
   getNote: async (folderId: number, noteId: number) => {
     try {
       const headers = await getAuthHeader();
-      const response = await axios.get(`${API_URL}/folders/${folderId}/notes/${noteId}`, {
+      return await getWithETag(`${API_URL}/folders/${folderId}/notes/${noteId}`, {
         headers
       });
-      return response.data;
     } catch (error) {
       console.error('Error fetching note:', error);
       throw error;
@@ -371,15 +402,15 @@ export const folderService = {
           console.log("API URL for folders:", `${API_URL}/folders`);
           console.log("Using token:", token.substring(0, 10) + '...');
           
-          const response = await axios.get(`${API_URL}/folders`, {
+          const data = await getWithETag(`${API_URL}/folders`, {
             headers,
             timeout: 10000 // 10 sekundit timeout
           });
           
-          console.log("Folders fetch successful:", response.status, "Count:", response.data?.length || 0);
+          console.log("Folders fetch successful, count:", data?.length || 0);
           
           // Salvesta andmed vahemällu
-          const folders = response.data || [];
+          const folders = data || [];
           await setCachedData(CACHE_KEY, folders);
           
           return folders;
@@ -456,13 +487,13 @@ export const folderService = {
       }
       
       const headers = await getAuthHeader();
-      const response = await axios.get(`${API_URL}/folders/${folderId}/notes`, {
+      const data = await getWithETag(`${API_URL}/folders/${folderId}/notes`, {
         headers,
         timeout: 10000
       });
       
       // Salvesta andmed vahemällu
-      const notes = response.data || [];
+      const notes = data || [];
       await setCachedData(CACHE_KEY, notes);
       
       return notes;